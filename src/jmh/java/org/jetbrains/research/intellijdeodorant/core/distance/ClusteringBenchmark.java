@@ -0,0 +1,45 @@
+package org.jetbrains.research.intellijdeodorant.core.distance;
+
+import org.jetbrains.research.intellijdeodorant.utils.math.Cluster;
+import org.jetbrains.research.intellijdeodorant.utils.math.Clustering;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the clustering of the members of a class on their Jaccard distances.
+ * Hierarchical clustering takes cubic time, so the sizes are smaller than in the other benchmarks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClusteringBenchmark {
+    @Param({"100", "500", "1000"})
+    private int membersCount;
+
+    @Param({"HIERARCHICAL", "NEAREST_NEIGHBOR"})
+    private Clustering.Algorithm algorithm;
+
+    private ArrayList<Entity> members;
+    private double[][] distanceMatrix;
+
+    @Setup
+    public void setUp() {
+        members = new ArrayList<>(new SyntheticClass(membersCount, 42).getMembers());
+        distanceMatrix = DistanceMatrix.getJaccardDistanceMatrix(members);
+    }
+
+    @Benchmark
+    public HashSet<Cluster> clustering() {
+        double[][] matrix = new double[distanceMatrix.length][];
+        for (int i = 0; i < matrix.length; i++) {
+            matrix[i] = distanceMatrix[i].clone();
+        }
+        return Clustering.getInstance(matrix, algorithm).clustering(members);
+    }
+}
@@ -0,0 +1,35 @@
+package org.jetbrains.research.intellijdeodorant.core.distance;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the grouping of Extract Class candidates into concepts, see {@link ExtractClassCandidateGroup#groupConcepts()}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConceptGroupingBenchmark {
+    @Param({"100", "1000", "5000"})
+    private int membersCount;
+
+    private List<List<Entity>> clusters;
+
+    @Setup
+    public void setUp() {
+        SyntheticClass syntheticClass = new SyntheticClass(membersCount, 42);
+        clusters = syntheticClass.generateClusters(membersCount / 10, 43);
+    }
+
+    @Benchmark
+    public void groupConcepts(Blackhole blackhole) {
+        ExtractClassCandidateGroup.groupOverlappingClusters(clusters, cluster -> cluster,
+                (conceptEntities, conceptClusters) -> blackhole.consume(conceptClusters));
+    }
+}
@@ -0,0 +1,50 @@
+package org.jetbrains.research.intellijdeodorant.core.distance;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the Jaccard distances between the members of a class.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DistanceBenchmark {
+    @Param({"100", "1000", "5000"})
+    private int membersCount;
+
+    private List<Entity> members;
+    private long[][] entitySets;
+
+    @Setup
+    public void setUp() {
+        members = new SyntheticClass(membersCount, 42).getMembers();
+        EntityDictionary dictionary = new EntityDictionary();
+        entitySets = new long[members.size()][];
+        for (int i = 0; i < entitySets.length; i++) {
+            entitySets[i] = dictionary.toBitSet(members.get(i).getFullEntitySet()).toLongArray();
+        }
+    }
+
+    /**
+     * Distances of every member to all other members, as computed for a single row of the distance matrix.
+     */
+    @Benchmark
+    public void distanceCalculator(Blackhole blackhole) {
+        long[] first = entitySets[0];
+        for (long[] entitySet : entitySets) {
+            blackhole.consume(DistanceCalculator.getDistance(first, entitySet));
+        }
+    }
+
+    @Benchmark
+    public double[][] jaccardDistanceMatrix() {
+        return DistanceMatrix.getJaccardDistanceMatrix(members);
+    }
+}
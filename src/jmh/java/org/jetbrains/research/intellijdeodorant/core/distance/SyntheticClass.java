@@ -0,0 +1,95 @@
+package org.jetbrains.research.intellijdeodorant.core.distance;
+
+import java.util.*;
+
+/**
+ * Generates the members of a class with a random access graph: every method accesses a few attributes
+ * and invokes a few other methods of the class. The generator is seeded, so all runs measure the same graph.
+ */
+class SyntheticClass {
+    private static final String CLASS_NAME = "benchmark.SyntheticClass";
+
+    private final List<Entity> members = new ArrayList<>();
+
+    SyntheticClass(int membersCount, long seed) {
+        Random random = new Random(seed);
+        int attributesCount = Math.max(1, membersCount / 3);
+        int methodsCount = membersCount - attributesCount;
+        List<SyntheticEntity> attributes = new ArrayList<>();
+        List<SyntheticEntity> methods = new ArrayList<>();
+        for (int i = 0; i < attributesCount; i++) {
+            attributes.add(new SyntheticEntity(CLASS_NAME + "::attribute" + i));
+        }
+        for (int i = 0; i < methodsCount; i++) {
+            methods.add(new SyntheticEntity(CLASS_NAME + "::method" + i + "()"));
+        }
+        for (SyntheticEntity method : methods) {
+            int accessedAttributes = 1 + random.nextInt(8);
+            for (int i = 0; i < accessedAttributes; i++) {
+                SyntheticEntity attribute = attributes.get(random.nextInt(attributesCount));
+                method.fullEntitySet.add(attribute.name);
+                attribute.fullEntitySet.add(method.name);
+            }
+            int invokedMethods = random.nextInt(4);
+            for (int i = 0; i < invokedMethods; i++) {
+                method.fullEntitySet.add(methods.get(random.nextInt(methodsCount)).name);
+            }
+        }
+        members.addAll(attributes);
+        members.addAll(methods);
+    }
+
+    List<Entity> getMembers() {
+        return members;
+    }
+
+    /**
+     * Returns random groups of members, which overlap like the clusters of Extract Class candidates.
+     */
+    List<List<Entity>> generateClusters(int clustersCount, long seed) {
+        Random random = new Random(seed);
+        List<List<Entity>> clusters = new ArrayList<>();
+        for (int i = 0; i < clustersCount; i++) {
+            int clusterSize = 2 + random.nextInt(Math.max(1, Math.min(20, members.size() - 1)));
+            Set<Entity> cluster = new LinkedHashSet<>();
+            for (int j = 0; j < clusterSize; j++) {
+                cluster.add(members.get(random.nextInt(members.size())));
+            }
+            clusters.add(new ArrayList<>(cluster));
+        }
+        clusters.sort(Comparator.comparingInt(cluster -> -cluster.size()));
+        return clusters;
+    }
+
+    private static class SyntheticEntity extends Entity {
+        private final String name;
+        private final Set<String> fullEntitySet = new HashSet<>();
+
+        private SyntheticEntity(String name) {
+            this.name = name;
+            this.fullEntitySet.add(name);
+        }
+
+        @Override
+        public Set<String> getEntitySet() {
+            Set<String> entitySet = new HashSet<>(fullEntitySet);
+            entitySet.remove(name);
+            return entitySet;
+        }
+
+        @Override
+        public Set<String> getFullEntitySet() {
+            return fullEntitySet;
+        }
+
+        @Override
+        public String getClassOrigin() {
+            return CLASS_NAME;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
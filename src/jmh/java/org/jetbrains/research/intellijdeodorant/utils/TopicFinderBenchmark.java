@@ -0,0 +1,64 @@
+package org.jetbrains.research.intellijdeodorant.utils;
+
+import org.jetbrains.research.intellijdeodorant.utils.math.Stemmer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the search of topics in the names of the members of a class.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TopicFinderBenchmark {
+    private static final String[] WORDS = {
+            "account", "balance", "customer", "order", "items", "processing", "calculated", "total", "shipping",
+            "address", "validation", "payments", "running", "connection", "manager", "listeners", "events", "the"
+    };
+
+    @Param({"100", "1000", "5000"})
+    private int membersCount;
+
+    private List<String> codeElements;
+    private List<String> words;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        codeElements = new ArrayList<>();
+        words = new ArrayList<>();
+        for (int i = 0; i < membersCount; i++) {
+            StringBuilder name = new StringBuilder(random.nextBoolean() ? "get" : "update");
+            int wordsCount = 1 + random.nextInt(3);
+            for (int j = 0; j < wordsCount; j++) {
+                String word = WORDS[random.nextInt(WORDS.length)];
+                name.append(Character.toUpperCase(word.charAt(0))).append(word.substring(1));
+                words.add(word);
+            }
+            codeElements.add(random.nextInt(4) == 0 ? name.toString().replace("get", "get_") : name.toString());
+        }
+    }
+
+    @Benchmark
+    public List<String> findTopics() {
+        return TopicFinder.findTopics(codeElements);
+    }
+
+    @Benchmark
+    public void stemmer(Blackhole blackhole) {
+        for (String word : words) {
+            Stemmer stemmer = new Stemmer();
+            stemmer.add(word.toCharArray(), word.length());
+            stemmer.stem();
+            blackhole.consume(stemmer.toString());
+        }
+    }
+}
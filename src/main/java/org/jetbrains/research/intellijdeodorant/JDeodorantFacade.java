@@ -1,33 +1,51 @@
 package org.jetbrains.research.intellijdeodorant;
 
+import com.intellij.concurrency.JobLauncher;
 import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.psi.PsiVariable;
-import org.jetbrains.research.intellijdeodorant.core.ast.ASTReader;
+import org.jetbrains.research.intellijdeodorant.core.AnalysisFactsCache;
+import org.jetbrains.research.intellijdeodorant.core.AnalysisSession;
 import org.jetbrains.research.intellijdeodorant.core.ast.ClassObject;
 import org.jetbrains.research.intellijdeodorant.core.ast.MethodObject;
 import org.jetbrains.research.intellijdeodorant.core.ast.SystemObject;
 import org.jetbrains.research.intellijdeodorant.core.ast.decomposition.cfg.*;
 import org.jetbrains.research.intellijdeodorant.core.distance.*;
+import org.jetbrains.research.intellijdeodorant.core.statistics.Instrumentation;
 import org.jetbrains.research.intellijdeodorant.ide.refactoring.typeStateChecking.TypeCheckEliminationGroup;
+import org.jetbrains.research.intellijdeodorant.utils.ReadActionUtils;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
 
 public class JDeodorantFacade {
 
     public static List<MoveMethodCandidateRefactoring> getMoveMethodRefactoringOpportunities(ProjectInfo project, ProgressIndicator indicator, Set<String> classNamesToBeExamined) {
-        new ASTReader(project, indicator);
-        MySystem system = new MySystem(ASTReader.getSystemObject(), false);
-        DistanceMatrix distanceMatrix = new DistanceMatrix(system);
+        MySystem system = AnalysisSession.getInstance(project.getProject()).getSystem(project, indicator, false);
+        DistanceMatrix distanceMatrix = ReadActionUtils.computeInReadAction(() -> new DistanceMatrix(system));
         List<MoveMethodCandidateRefactoring> candidateRefactoring =
                 distanceMatrix.getMoveMethodCandidateRefactoringsByAccess(classNamesToBeExamined, indicator);
         List<MoveMethodCandidateRefactoring> moveMethodCandidateList = new ArrayList<>(candidateRefactoring);
-        Collections.sort(moveMethodCandidateList);
+        ReadActionUtils.runInReadAction(() -> Collections.sort(moveMethodCandidateList));
         return moveMethodCandidateList;
     }
 
     public static TreeSet<ExtractClassCandidateGroup> getExtractClassRefactoringOpportunities(ProjectInfo project, ProgressIndicator indicator) {
-        new ASTReader(project, indicator);
-        SystemObject systemObject = ASTReader.getSystemObject();
+        TreeSet<ExtractClassCandidateGroup> groups = new TreeSet<>();
+        getExtractClassRefactoringOpportunities(project, indicator, groups::add);
+        return groups;
+    }
+
+    /**
+     * Passes the group of candidates of each class to the consumer as soon as the class has been processed,
+     * so the results can be shown before the whole scope is analyzed.
+     */
+    public static void getExtractClassRefactoringOpportunities(ProjectInfo project, ProgressIndicator indicator,
+                                                               Consumer<ExtractClassCandidateGroup> groupConsumer) {
+        AnalysisSession session = AnalysisSession.getInstance(project.getProject());
+        SystemObject systemObject = session.getSystemObject(project, indicator);
         if (systemObject != null) {
             List<ClassObject> classObjectsToBeExamined = systemObject.getClassObjects();
             Set<String> classNamesToBeExamined = new LinkedHashSet<>();
@@ -35,123 +53,279 @@ public class JDeodorantFacade {
                 if (!classObject.isEnum() && !classObject.isInterface())
                     classNamesToBeExamined.add(classObject.getName());
             }
-            MySystem system = new MySystem(systemObject, true);
-            DistanceMatrix distanceMatrix = new DistanceMatrix(system);
+            MySystem system = session.getSystem(project, indicator, true);
+            DistanceMatrix distanceMatrix = ReadActionUtils.computeInReadAction(() -> new DistanceMatrix(system));
 
-            List<ExtractClassCandidateRefactoring> extractClassCandidateList = new ArrayList<>(distanceMatrix.getExtractClassCandidateRefactorings(classNamesToBeExamined, indicator));
+            try (Instrumentation.Phase ignored = Instrumentation.startPhase("extract.class.candidates")) {
+                distanceMatrix.getExtractClassCandidateRefactorings(classNamesToBeExamined, indicator, candidates ->
+                        groupConsumer.accept(ReadActionUtils.computeInReadAction(() -> {
+                            ExtractClassCandidateGroup group = new ExtractClassCandidateGroup(candidates.get(0).getSourceEntity());
+                            for (ExtractClassCandidateRefactoring candidate : candidates) {
+                                group.addCandidate(candidate);
+                            }
+                            try (Instrumentation.Phase ignoredConcepts = Instrumentation.startPhase("concepts")) {
+                                group.groupConcepts();
+                            }
+                            return group;
+                        })));
+            }
+        }
+    }
+
+    public static Set<ASTSliceGroup> getExtractMethodRefactoringOpportunities(ProjectInfo project, ProgressIndicator indicator) {
+        Set<ASTSliceGroup> extractedSliceGroups = new TreeSet<>();
+        for (List<ASTSliceGroup> sliceGroups : processMethods(project, indicator, sliceGroups -> {
+        })) {
+            extractedSliceGroups.addAll(sliceGroups);
+        }
+        return extractedSliceGroups;
+    }
+
+    /**
+     * Passes the slice groups of each method to the consumer as soon as the method has been processed,
+     * so the results can be shown before the whole scope is analyzed.
+     * The consumer is called concurrently from the threads that process the methods, outside of a read action.
+     */
+    public static void getExtractMethodRefactoringOpportunities(ProjectInfo project, ProgressIndicator indicator,
+                                                                Consumer<List<ASTSliceGroup>> methodSliceGroupsConsumer) {
+        processMethods(project, indicator, methodSliceGroupsConsumer);
+    }
 
-            HashMap<String, ExtractClassCandidateGroup> groupedBySourceClassMap = new HashMap<>();
-            for (ExtractClassCandidateRefactoring candidate : extractClassCandidateList) {
-                if (groupedBySourceClassMap.containsKey(candidate.getSourceEntity())) {
-                    groupedBySourceClassMap.get(candidate.getSourceEntity()).addCandidate(candidate);
+    /**
+     * Processes the methods of the model. The methods whose classes have been changed while they were waiting
+     * to be processed are processed again on the model brought up to date, until none of them is stale.
+     */
+    private static List<List<ASTSliceGroup>> processMethods(ProjectInfo project, ProgressIndicator indicator,
+                                                            Consumer<List<ASTSliceGroup>> methodSliceGroupsConsumer) {
+        AnalysisSession session = AnalysisSession.getInstance(project.getProject());
+        SystemObject systemObject = session.getSystemObject(project, indicator);
+        if (systemObject == null) {
+            return Collections.emptyList();
+        }
+        Set<ClassObject> classObjectsToBeExamined = new LinkedHashSet<>(systemObject.getClassObjects());
+        List<MethodObject> methodObjectsToBeExamined = new ArrayList<>();
+        List<ClassObject> declaringClassObjects = new ArrayList<>();
+
+        for (ClassObject classObject : classObjectsToBeExamined) {
+            if (!classObject.isEnum() && !classObject.isInterface()) {
+                ListIterator<MethodObject> methodIterator = classObject.getMethodIterator();
+                while (methodIterator.hasNext()) {
+                    methodObjectsToBeExamined.add(methodIterator.next());
+                    declaringClassObjects.add(classObject);
+                }
+            }
+        }
+        AnalysisFactsCache factsCache = AnalysisFactsCache.getInstance(project.getProject());
+        List<List<ASTSliceGroup>> sliceGroupsOfMethods = processMethodsConcurrently(systemObject, declaringClassObjects,
+                methodObjectsToBeExamined, factsCache, methodSliceGroupsConsumer, indicator);
+        List<Integer> stalePositions = getStalePositions(sliceGroupsOfMethods);
+        while (!stalePositions.isEmpty()) {
+            Instrumentation.count("methods.requeued", stalePositions.size());
+            systemObject = session.getSystemObject(project, indicator);
+            for (int position : stalePositions) {
+                if (systemObject.getClassObject(declaringClassObjects.get(position).getName()) == declaringClassObjects.get(position)) {
+                    //the change has not been reported to the session yet
+                    session.invalidate();
+                    systemObject = session.getSystemObject(project, indicator);
+                    break;
+                }
+            }
+            List<Integer> requeuedPositions = new ArrayList<>();
+            for (int position : stalePositions) {
+                ClassObject classObject = systemObject.getClassObject(declaringClassObjects.get(position).getName());
+                int methodPosition = classObject == null ? -1
+                        : classObject.getMethodList().indexOf(methodObjectsToBeExamined.get(position));
+                if (methodPosition < 0) {
+                    //the method has been removed
+                    sliceGroupsOfMethods.set(position, Collections.emptyList());
                 } else {
-                    ExtractClassCandidateGroup group = new ExtractClassCandidateGroup(candidate.getSourceEntity());
-                    group.addCandidate(candidate);
-                    groupedBySourceClassMap.put(candidate.getSourceEntity(), group);
+                    requeuedPositions.add(position);
+                    declaringClassObjects.set(position, classObject);
+                    methodObjectsToBeExamined.set(position, classObject.getMethodList().get(methodPosition));
                 }
             }
-            for (String sourceClass : groupedBySourceClassMap.keySet()) {
-                groupedBySourceClassMap.get(sourceClass).groupConcepts();
+            List<ClassObject> requeuedClassObjects = new ArrayList<>();
+            List<MethodObject> requeuedMethodObjects = new ArrayList<>();
+            for (int position : requeuedPositions) {
+                requeuedClassObjects.add(declaringClassObjects.get(position));
+                requeuedMethodObjects.add(methodObjectsToBeExamined.get(position));
+            }
+            List<List<ASTSliceGroup>> requeuedSliceGroups = processMethodsConcurrently(systemObject, requeuedClassObjects,
+                    requeuedMethodObjects, factsCache, methodSliceGroupsConsumer, indicator);
+            List<Integer> nextStalePositions = new ArrayList<>();
+            for (int i = 0; i < requeuedPositions.size(); i++) {
+                int position = requeuedPositions.get(i);
+                sliceGroupsOfMethods.set(position, requeuedSliceGroups.get(i));
+                if (requeuedSliceGroups.get(i) == null) {
+                    nextStalePositions.add(position);
+                }
             }
-            return new TreeSet<>(groupedBySourceClassMap.values());
-        } else {
-            return new TreeSet<>();
+            stalePositions = nextStalePositions;
         }
+        return sliceGroupsOfMethods;
     }
 
-    public static Set<ASTSliceGroup> getExtractMethodRefactoringOpportunities(ProjectInfo project, ProgressIndicator indicator) {
-        new ASTReader(project, indicator);
-
-        SystemObject systemObject = ASTReader.getSystemObject();
-        Set<ASTSliceGroup> extractedSliceGroups = new TreeSet<>();
-        if (systemObject != null) {
-            Set<ClassObject> classObjectsToBeExamined = new LinkedHashSet<>(systemObject.getClassObjects());
+    private static List<Integer> getStalePositions(List<List<ASTSliceGroup>> sliceGroupsOfMethods) {
+        List<Integer> stalePositions = new ArrayList<>();
+        for (int i = 0; i < sliceGroupsOfMethods.size(); i++) {
+            if (sliceGroupsOfMethods.get(i) == null) {
+                stalePositions.add(i);
+            }
+        }
+        return stalePositions;
+    }
 
-            for (ClassObject classObject : classObjectsToBeExamined) {
-                if (!classObject.isEnum() && !classObject.isInterface()) {
-                    ListIterator<MethodObject> methodIterator = classObject.getMethodIterator();
-                    while (methodIterator.hasNext()) {
-                        MethodObject methodObject = methodIterator.next();
-                        processMethod(extractedSliceGroups, classObject, methodObject);
+    /**
+     * Builds PDGs and slices of the methods in parallel on the shared fork-join pool, whose size is bounded by the number of cores.
+     * The result of each method is stored at the position of the method, so that the slice groups are merged in the same order
+     * as in the sequential processing.
+     * The processing is cancelled as soon as the indicator is cancelled.
+     * Each method is processed in its own read action, which is restarted if a write action intervenes.
+     * The result of a method is {@code null} if the file of its class has been modified since the class was parsed,
+     * because its statements in the model may no longer match the code; such a method has to be processed again
+     * once its class is parsed again.
+     * Methods in which no candidates have been found since the last change of their classes are skipped.
+     * Non-empty results are also passed to the consumer as soon as a method has been processed.
+     */
+    private static List<List<ASTSliceGroup>> processMethodsConcurrently(SystemObject systemObject, List<ClassObject> classObjects,
+                                                                        List<MethodObject> methodObjects, AnalysisFactsCache factsCache,
+                                                                        Consumer<List<ASTSliceGroup>> methodSliceGroupsConsumer,
+                                                                        ProgressIndicator indicator) {
+        indicator.setText(IntelliJDeodorantBundle.message("long.method.detect.indicator.status"));
+        indicator.setFraction(0.0);
+        int methodsCount = methodObjects.size();
+        AtomicReferenceArray<List<ASTSliceGroup>> results = new AtomicReferenceArray<>(methodsCount);
+        AtomicInteger processedMethods = new AtomicInteger();
+        List<Integer> positions = new ArrayList<>(methodsCount);
+        for (int i = 0; i < methodsCount; i++) {
+            positions.add(i);
+        }
+        JobLauncher.getInstance().invokeConcurrentlyUnderProgress(positions, indicator, position -> {
+            ClassObject classObject = classObjects.get(position);
+            MethodObject methodObject = methodObjects.get(position);
+            List<ASTSliceGroup> sliceGroups = ReadActionUtils.computeInReadAction(() -> {
+                if (!classObject.isUpToDate()) {
+                    return null;
+                }
+                //like the groups of the whole scope, the groups of a method are ordered and deduplicated by their metrics
+                Set<ASTSliceGroup> methodSliceGroups = new TreeSet<>();
+                String classKey = factsCache.getClassKey(classObject, systemObject);
+                if (classKey == null || !factsCache.hasNoExtractMethodCandidates(classKey, methodObject)) {
+                    processMethod(methodSliceGroups, systemObject, classObject, methodObject);
+                    if (classKey != null && methodSliceGroups.isEmpty()) {
+                        factsCache.setNoExtractMethodCandidates(classKey, methodObject);
                     }
+                } else {
+                    Instrumentation.count("methods.skipped.cached");
                 }
+                return new ArrayList<>(methodSliceGroups);
+            });
+            if (sliceGroups != null && !sliceGroups.isEmpty()) {
+                methodSliceGroupsConsumer.accept(sliceGroups);
             }
+            results.set(position, sliceGroups);
+            indicator.setFraction((double) processedMethods.incrementAndGet() / methodsCount);
+            return true;
+        });
+        indicator.checkCanceled();
+        List<List<ASTSliceGroup>> sliceGroupsOfMethods = new ArrayList<>(methodsCount);
+        for (int i = 0; i < methodsCount; i++) {
+            sliceGroupsOfMethods.add(results.get(i));
         }
-        return extractedSliceGroups;
+        indicator.setFraction(1.0);
+        return sliceGroupsOfMethods;
     }
 
-    private static void processMethod(final Set<ASTSliceGroup> extractedSliceGroups, ClassObject classObject, MethodObject methodObject) {
+    private static void processMethod(final Collection<ASTSliceGroup> extractedSliceGroups, SystemObject systemObject,
+                                      ClassObject classObject, MethodObject methodObject) {
         if (methodObject.getMethodBody() != null) {
-            CFG cfg = new CFG(methodObject);
-            PDG pdg = new PDG(cfg, classObject.getPsiFile(), classObject.getFieldsAccessedInsideMethod(methodObject));
-            for (PsiVariable declaration : pdg.getVariableDeclarationsInMethod()) {
-                PlainVariable variable = new PlainVariable(declaration);
-                PDGSliceUnionCollection sliceUnionCollection = new PDGSliceUnionCollection(pdg, variable);
-                double sumOfExtractedStatementsInGroup = 0.0;
-                double sumOfDuplicatedStatementsInGroup = 0.0;
-                double sumOfDuplicationRatioInGroup = 0.0;
-                int maximumNumberOfExtractedStatementsInGroup = 0;
-                int groupSize = sliceUnionCollection.getSliceUnions().size();
-                ASTSliceGroup sliceGroup = new ASTSliceGroup();
-                for (PDGSliceUnion sliceUnion : sliceUnionCollection.getSliceUnions()) {
-                    ASTSlice slice = new ASTSlice(sliceUnion);
-                    if (!slice.isVariableCriterionDeclarationStatementIsDeeperNestedThanExtractedMethodInvocationInsertionStatement()) {
-                        int numberOfExtractedStatements = slice.getNumberOfSliceStatements();
-                        int numberOfDuplicatedStatements = slice.getNumberOfDuplicatedStatements();
-                        double duplicationRatio = (double) numberOfDuplicatedStatements / (double) numberOfExtractedStatements;
-                        sumOfExtractedStatementsInGroup += numberOfExtractedStatements;
-                        sumOfDuplicatedStatementsInGroup += numberOfDuplicatedStatements;
-                        sumOfDuplicationRatioInGroup += duplicationRatio;
-                        if (numberOfExtractedStatements > maximumNumberOfExtractedStatementsInGroup)
-                            maximumNumberOfExtractedStatementsInGroup = numberOfExtractedStatements;
-                        sliceGroup.addCandidate(slice);
-                    }
-                }
-                if (!sliceGroup.getCandidates().isEmpty()) {
-                    sliceGroup.setAverageNumberOfExtractedStatementsInGroup(sumOfExtractedStatementsInGroup / (double) groupSize);
-                    sliceGroup.setAverageNumberOfDuplicatedStatementsInGroup(sumOfDuplicatedStatementsInGroup / (double) groupSize);
-                    sliceGroup.setAverageDuplicationRatioInGroup(sumOfDuplicationRatioInGroup / (double) groupSize);
-                    sliceGroup.setMaximumNumberOfExtractedStatementsInGroup(maximumNumberOfExtractedStatementsInGroup);
-                    extractedSliceGroups.add(sliceGroup);
-                }
+            PDG pdg;
+            try (Instrumentation.Phase ignored = Instrumentation.startPhase("pdg")) {
+                CFG cfg = new CFG(methodObject);
+                pdg = new PDG(cfg, classObject.getPsiFile(), classObject.getFieldsAccessedInsideMethod(methodObject, systemObject));
             }
-            for (PsiVariable declaration : pdg.getVariableDeclarationsAndAccessedFieldsInMethod()) {
-                PlainVariable variable = new PlainVariable(declaration);
-                PDGObjectSliceUnionCollection objectSliceUnionCollection = new PDGObjectSliceUnionCollection(pdg, variable);
-                double sumOfExtractedStatementsInGroup = 0.0;
-                double sumOfDuplicatedStatementsInGroup = 0.0;
-                double sumOfDuplicationRatioInGroup = 0.0;
-                int maximumNumberOfExtractedStatementsInGroup = 0;
-                int groupSize = objectSliceUnionCollection.getSliceUnions().size();
-                ASTSliceGroup sliceGroup = new ASTSliceGroup();
-                for (PDGObjectSliceUnion objectSliceUnion : objectSliceUnionCollection.getSliceUnions()) {
-                    ASTSlice slice = new ASTSlice(objectSliceUnion);
-                    if (!slice.isVariableCriterionDeclarationStatementIsDeeperNestedThanExtractedMethodInvocationInsertionStatement()) {
-                        int numberOfExtractedStatements = slice.getNumberOfSliceStatements();
-                        int numberOfDuplicatedStatements = slice.getNumberOfDuplicatedStatements();
-                        double duplicationRatio = (double) numberOfDuplicatedStatements / (double) numberOfExtractedStatements;
-                        sumOfExtractedStatementsInGroup += numberOfExtractedStatements;
-                        sumOfDuplicatedStatementsInGroup += numberOfDuplicatedStatements;
-                        sumOfDuplicationRatioInGroup += duplicationRatio;
-                        if (numberOfExtractedStatements > maximumNumberOfExtractedStatementsInGroup)
-                            maximumNumberOfExtractedStatementsInGroup = numberOfExtractedStatements;
-                        sliceGroup.addCandidate(slice);
-                    }
+            Instrumentation.count("pdg.nodes", pdg.getNodes().size());
+            try (Instrumentation.Phase ignored = Instrumentation.startPhase("slicing")) {
+                processSlices(extractedSliceGroups, pdg);
+            }
+        }
+    }
+
+    private static void processSlices(final Collection<ASTSliceGroup> extractedSliceGroups, PDG pdg) {
+        for (PsiVariable declaration : pdg.getVariableDeclarationsInMethod()) {
+            ProgressManager.checkCanceled();
+            PlainVariable variable = new PlainVariable(declaration);
+            PDGSliceUnionCollection sliceUnionCollection = new PDGSliceUnionCollection(pdg, variable);
+            double sumOfExtractedStatementsInGroup = 0.0;
+            double sumOfDuplicatedStatementsInGroup = 0.0;
+            double sumOfDuplicationRatioInGroup = 0.0;
+            int maximumNumberOfExtractedStatementsInGroup = 0;
+            int groupSize = sliceUnionCollection.getSliceUnions().size();
+            ASTSliceGroup sliceGroup = new ASTSliceGroup();
+            for (PDGSliceUnion sliceUnion : sliceUnionCollection.getSliceUnions()) {
+                ASTSlice slice = new ASTSlice(sliceUnion);
+                Instrumentation.count("slices.evaluated");
+                if (slice.isVariableCriterionDeclarationStatementIsDeeperNestedThanExtractedMethodInvocationInsertionStatement()) {
+                    Instrumentation.count("slices.rejected.nested.declaration");
+                } else {
+                    int numberOfExtractedStatements = slice.getNumberOfSliceStatements();
+                    int numberOfDuplicatedStatements = slice.getNumberOfDuplicatedStatements();
+                    double duplicationRatio = (double) numberOfDuplicatedStatements / (double) numberOfExtractedStatements;
+                    sumOfExtractedStatementsInGroup += numberOfExtractedStatements;
+                    sumOfDuplicatedStatementsInGroup += numberOfDuplicatedStatements;
+                    sumOfDuplicationRatioInGroup += duplicationRatio;
+                    if (numberOfExtractedStatements > maximumNumberOfExtractedStatementsInGroup)
+                        maximumNumberOfExtractedStatementsInGroup = numberOfExtractedStatements;
+                    sliceGroup.addCandidate(slice);
                 }
-                if (!sliceGroup.getCandidates().isEmpty()) {
-                    sliceGroup.setAverageNumberOfExtractedStatementsInGroup(sumOfExtractedStatementsInGroup / (double) groupSize);
-                    sliceGroup.setAverageNumberOfDuplicatedStatementsInGroup(sumOfDuplicatedStatementsInGroup / (double) groupSize);
-                    sliceGroup.setAverageDuplicationRatioInGroup(sumOfDuplicationRatioInGroup / (double) groupSize);
-                    sliceGroup.setMaximumNumberOfExtractedStatementsInGroup(maximumNumberOfExtractedStatementsInGroup);
-                    extractedSliceGroups.add(sliceGroup);
+            }
+            if (!sliceGroup.getCandidates().isEmpty()) {
+                sliceGroup.setAverageNumberOfExtractedStatementsInGroup(sumOfExtractedStatementsInGroup / (double) groupSize);
+                sliceGroup.setAverageNumberOfDuplicatedStatementsInGroup(sumOfDuplicatedStatementsInGroup / (double) groupSize);
+                sliceGroup.setAverageDuplicationRatioInGroup(sumOfDuplicationRatioInGroup / (double) groupSize);
+                sliceGroup.setMaximumNumberOfExtractedStatementsInGroup(maximumNumberOfExtractedStatementsInGroup);
+                extractedSliceGroups.add(sliceGroup);
+            }
+        }
+        for (PsiVariable declaration : pdg.getVariableDeclarationsAndAccessedFieldsInMethod()) {
+            ProgressManager.checkCanceled();
+            PlainVariable variable = new PlainVariable(declaration);
+            PDGObjectSliceUnionCollection objectSliceUnionCollection = new PDGObjectSliceUnionCollection(pdg, variable);
+            double sumOfExtractedStatementsInGroup = 0.0;
+            double sumOfDuplicatedStatementsInGroup = 0.0;
+            double sumOfDuplicationRatioInGroup = 0.0;
+            int maximumNumberOfExtractedStatementsInGroup = 0;
+            int groupSize = objectSliceUnionCollection.getSliceUnions().size();
+            ASTSliceGroup sliceGroup = new ASTSliceGroup();
+            for (PDGObjectSliceUnion objectSliceUnion : objectSliceUnionCollection.getSliceUnions()) {
+                ASTSlice slice = new ASTSlice(objectSliceUnion);
+                Instrumentation.count("slices.evaluated");
+                if (slice.isVariableCriterionDeclarationStatementIsDeeperNestedThanExtractedMethodInvocationInsertionStatement()) {
+                    Instrumentation.count("slices.rejected.nested.declaration");
+                } else {
+                    int numberOfExtractedStatements = slice.getNumberOfSliceStatements();
+                    int numberOfDuplicatedStatements = slice.getNumberOfDuplicatedStatements();
+                    double duplicationRatio = (double) numberOfDuplicatedStatements / (double) numberOfExtractedStatements;
+                    sumOfExtractedStatementsInGroup += numberOfExtractedStatements;
+                    sumOfDuplicatedStatementsInGroup += numberOfDuplicatedStatements;
+                    sumOfDuplicationRatioInGroup += duplicationRatio;
+                    if (numberOfExtractedStatements > maximumNumberOfExtractedStatementsInGroup)
+                        maximumNumberOfExtractedStatementsInGroup = numberOfExtractedStatements;
+                    sliceGroup.addCandidate(slice);
                 }
             }
+            if (!sliceGroup.getCandidates().isEmpty()) {
+                sliceGroup.setAverageNumberOfExtractedStatementsInGroup(sumOfExtractedStatementsInGroup / (double) groupSize);
+                sliceGroup.setAverageNumberOfDuplicatedStatementsInGroup(sumOfDuplicatedStatementsInGroup / (double) groupSize);
+                sliceGroup.setAverageDuplicationRatioInGroup(sumOfDuplicationRatioInGroup / (double) groupSize);
+                sliceGroup.setMaximumNumberOfExtractedStatementsInGroup(maximumNumberOfExtractedStatementsInGroup);
+                extractedSliceGroups.add(sliceGroup);
+            }
         }
     }
 
     public static Set<TypeCheckEliminationGroup> getTypeCheckEliminationRefactoringOpportunities(ProjectInfo project, ProgressIndicator indicator) {
-        new ASTReader(project, indicator);
-        SystemObject systemObject = ASTReader.getSystemObject();
+        SystemObject systemObject = AnalysisSession.getInstance(project.getProject()).getSystemObject(project, indicator);
 
         Set<ClassObject> classObjectsToBeExamined = new LinkedHashSet<>();
         for (ClassObject classObject : systemObject.getClassObjects()) {
@@ -159,6 +333,8 @@ public class JDeodorantFacade {
                 classObjectsToBeExamined.add(classObject);
             }
         }
-        return new TreeSet<>(systemObject.generateTypeCheckEliminations(classObjectsToBeExamined, indicator));
+        try (Instrumentation.Phase ignored = Instrumentation.startPhase("type.checking")) {
+            return new TreeSet<>(systemObject.generateTypeCheckEliminations(classObjectsToBeExamined, indicator));
+        }
     }
 }
@@ -0,0 +1,333 @@
+package org.jetbrains.research.intellijdeodorant.core;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Pair;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.psi.PsiFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.research.intellijdeodorant.core.ast.AbstractMethodInvocationObject;
+import org.jetbrains.research.intellijdeodorant.core.ast.ClassObject;
+import org.jetbrains.research.intellijdeodorant.core.ast.CreationObject;
+import org.jetbrains.research.intellijdeodorant.core.ast.MethodObject;
+import org.jetbrains.research.intellijdeodorant.core.ast.SystemObject;
+import org.jetbrains.research.intellijdeodorant.core.ast.TypeObject;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-class analysis facts that are kept in the system directory of the project, so they survive IDE restarts.
+ * <p>
+ * The facts of a class are stored under a key that is derived from the content of its file, of the files
+ * of its superclasses and of the files of the classes whose methods and constructors it invokes,
+ * so they are ignored as soon as any of these files is changed. Changes of library classes are not tracked.
+ * Currently the methods for which no Extract Method candidates have been found are stored, so their PDGs
+ * are not built again until the code changes. The analysis model itself is not stored, because its objects
+ * refer to PSI elements, so the classes are still parsed and the other smells are still detected on every run.
+ */
+public class AnalysisFactsCache implements Disposable {
+    private static final Logger LOG = Logger.getInstance(AnalysisFactsCache.class);
+    private static final int VERSION = 2;
+    private static final long EXPIRATION_TIME = TimeUnit.DAYS.toMillis(30);
+
+    private final File cacheFile;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<PsiFile, Pair<Long, String>> fileHashes = Collections.synchronizedMap(new WeakHashMap<>());
+    //a class object is not changed once it is built, the class is parsed again into a new one
+    private final Map<ClassObject, Set<String>> invokedClassNames = Collections.synchronizedMap(new WeakHashMap<>());
+    private final Map<ClassObject, ClassKey> classKeys = Collections.synchronizedMap(new WeakHashMap<>());
+    private volatile boolean changed;
+
+    public AnalysisFactsCache(@NotNull Project project) {
+        this.cacheFile = new File(PathManager.getSystemPath(),
+                "intellijdeodorant" + File.separator + project.getName() + "." + project.getLocationHash() + ".facts");
+        load();
+    }
+
+    public static AnalysisFactsCache getInstance(@NotNull Project project) {
+        return ServiceManager.getService(project, AnalysisFactsCache.class);
+    }
+
+    /**
+     * Returns the key of the facts of the given class, or {@code null} if the content of its file is not available.
+     * The key is computed once per class object and reused until one of the files it depends on is modified.
+     * Must be called under a read action.
+     */
+    @Nullable
+    public String getClassKey(@NotNull ClassObject classObject, @NotNull SystemObject systemObject) {
+        ClassKey classKey = classKeys.get(classObject);
+        if (classKey == null || !classKey.isUpToDate(classObject, systemObject)) {
+            classKey = computeClassKey(classObject, systemObject);
+            if (classKey == null) {
+                return null;
+            }
+            classKeys.put(classObject, classKey);
+        }
+        return classKey.key;
+    }
+
+    @Nullable
+    private ClassKey computeClassKey(@NotNull ClassObject classObject, @NotNull SystemObject systemObject) {
+        MessageDigest digest = createDigest();
+        digest.update(classObject.getName().getBytes(StandardCharsets.UTF_8));
+        PsiFile classFile = classObject.getPsiFile();
+        if (classFile == null) {
+            return null;
+        }
+        long classFileStamp = classFile.getModificationStamp();
+        digest.update(getFileHash(classFile).getBytes(StandardCharsets.UTF_8));
+        List<Dependency> dependencies = new ArrayList<>();
+        Set<String> visitedClasses = new HashSet<>();
+        visitedClasses.add(classObject.getName());
+        TypeObject superclass = classObject.getSuperclass();
+        while (superclass != null && visitedClasses.add(superclass.getClassType())) {
+            ClassObject superclassObject = systemObject.getClassObject(superclass.getClassType());
+            PsiFile psiFile = superclassObject == null ? null : superclassObject.getPsiFile();
+            dependencies.add(new Dependency(superclass.getClassType(), psiFile));
+            if (superclassObject == null) {
+                break;
+            }
+            if (psiFile == null) {
+                return null;
+            }
+            digest.update(getFileHash(psiFile).getBytes(StandardCharsets.UTF_8));
+            superclass = superclassObject.getSuperclass();
+        }
+        //the PDG nodes also depend on the exceptions thrown by the invoked methods and constructors
+        for (String invokedClassName : invokedClassNames.computeIfAbsent(classObject, AnalysisFactsCache::getInvokedClassNames)) {
+            if (visitedClasses.add(invokedClassName)) {
+                ClassObject invokedClass = systemObject.getClassObject(invokedClassName);
+                PsiFile psiFile = invokedClass == null ? null : invokedClass.getPsiFile();
+                dependencies.add(new Dependency(invokedClassName, psiFile));
+                if (invokedClass != null) {
+                    if (psiFile == null) {
+                        return null;
+                    }
+                    digest.update(invokedClassName.getBytes(StandardCharsets.UTF_8));
+                    digest.update(getFileHash(psiFile).getBytes(StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return new ClassKey(toHex(digest.digest()), classFile, classFileStamp, dependencies);
+    }
+
+    private static Set<String> getInvokedClassNames(@NotNull ClassObject classObject) {
+        Set<String> invokedClassNames = new TreeSet<>();
+        for (MethodObject methodObject : classObject.getMethodList()) {
+            for (AbstractMethodInvocationObject invocation : methodObject.getMethodInvocations()) {
+                invokedClassNames.add(invocation.getOriginClassName());
+            }
+            for (AbstractMethodInvocationObject invocation : methodObject.getSuperMethodInvocations()) {
+                invokedClassNames.add(invocation.getOriginClassName());
+            }
+            for (CreationObject creation : methodObject.getCreations()) {
+                invokedClassNames.add(creation.getType().getClassType());
+            }
+        }
+        return invokedClassNames;
+    }
+
+    /**
+     * Returns {@code true} if no Extract Method candidates have been found in the given method
+     * since the last change of its class.
+     */
+    public boolean hasNoExtractMethodCandidates(@NotNull String classKey, @NotNull MethodObject methodObject) {
+        Entry entry = entries.get(classKey);
+        if (entry == null) {
+            return false;
+        }
+        entry.lastAccessTime = System.currentTimeMillis();
+        return entry.methodsWithoutExtractMethodCandidates.contains(methodObject.getSignature());
+    }
+
+    public void setNoExtractMethodCandidates(@NotNull String classKey, @NotNull MethodObject methodObject) {
+        Entry entry = entries.computeIfAbsent(classKey, key -> new Entry(System.currentTimeMillis()));
+        entry.methodsWithoutExtractMethodCandidates.add(methodObject.getSignature());
+        changed = true;
+    }
+
+    /**
+     * Drops all stored facts, so the next analysis is done from scratch.
+     */
+    public void clear() {
+        entries.clear();
+        changed = true;
+    }
+
+    @Override
+    public void dispose() {
+        if (changed) {
+            save();
+        }
+    }
+
+    private String getFileHash(@NotNull PsiFile psiFile) {
+        long modificationStamp = psiFile.getModificationStamp();
+        Pair<Long, String> fileHash = fileHashes.get(psiFile);
+        if (fileHash == null || fileHash.first != modificationStamp) {
+            MessageDigest digest = createDigest();
+            digest.update(psiFile.getText().getBytes(StandardCharsets.UTF_8));
+            fileHash = Pair.create(modificationStamp, toHex(digest.digest()));
+            fileHashes.put(psiFile, fileHash);
+        }
+        return fileHash.second;
+    }
+
+    private void load() {
+        if (!cacheFile.isFile()) {
+            return;
+        }
+        long expirationTime = System.currentTimeMillis() - EXPIRATION_TIME;
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+            if (input.readInt() != VERSION) {
+                return;
+            }
+            int entriesCount = input.readInt();
+            for (int i = 0; i < entriesCount; i++) {
+                String classKey = input.readUTF();
+                Entry entry = new Entry(input.readLong());
+                int methodsCount = input.readInt();
+                for (int j = 0; j < methodsCount; j++) {
+                    entry.methodsWithoutExtractMethodCandidates.add(input.readUTF());
+                }
+                if (entry.lastAccessTime > expirationTime) {
+                    entries.put(classKey, entry);
+                }
+            }
+        } catch (IOException e) {
+            LOG.info("Cannot read analysis facts from " + cacheFile, e);
+            entries.clear();
+        }
+    }
+
+    /**
+     * Writes the facts to a temporary file that then replaces the cache file, so a crash cannot leave a partially
+     * written cache file behind.
+     */
+    private void save() {
+        File directory = cacheFile.getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            LOG.info("Cannot create directory " + directory);
+            return;
+        }
+        File temporaryFile = new File(directory, cacheFile.getName() + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile)))) {
+            Map<String, Entry> entriesToSave = new HashMap<>(entries);
+            output.writeInt(VERSION);
+            output.writeInt(entriesToSave.size());
+            for (Map.Entry<String, Entry> entry : entriesToSave.entrySet()) {
+                output.writeUTF(entry.getKey());
+                output.writeLong(entry.getValue().lastAccessTime);
+                Set<String> methods = new HashSet<>(entry.getValue().methodsWithoutExtractMethodCandidates);
+                output.writeInt(methods.size());
+                for (String method : methods) {
+                    output.writeUTF(method);
+                }
+            }
+        } catch (IOException e) {
+            LOG.info("Cannot write analysis facts to " + temporaryFile, e);
+            FileUtil.delete(temporaryFile);
+            return;
+        }
+        try {
+            try {
+                Files.move(temporaryFile.toPath(), cacheFile.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporaryFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            LOG.info("Cannot replace " + cacheFile, e);
+            FileUtil.delete(temporaryFile);
+        }
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * The key of a class together with the files it has been computed from, so it is computed again only
+     * when one of these files is modified or a class it depends on is added to or removed from the system.
+     */
+    private static class ClassKey {
+        private final String key;
+        private final PsiFile classFile;
+        private final long classFileStamp;
+        private final List<Dependency> dependencies;
+
+        private ClassKey(String key, PsiFile classFile, long classFileStamp, List<Dependency> dependencies) {
+            this.key = key;
+            this.classFile = classFile;
+            this.classFileStamp = classFileStamp;
+            this.dependencies = dependencies;
+        }
+
+        private boolean isUpToDate(ClassObject classObject, SystemObject systemObject) {
+            if (classObject.getPsiFile() != classFile || classFile.getModificationStamp() != classFileStamp) {
+                return false;
+            }
+            for (Dependency dependency : dependencies) {
+                if (!dependency.isUpToDate(systemObject)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * A class that a key depends on, with the file that declared it, or {@code null} if it was not in the system.
+     */
+    private static class Dependency {
+        private final String className;
+        private final PsiFile psiFile;
+        private final long modificationStamp;
+
+        private Dependency(String className, PsiFile psiFile) {
+            this.className = className;
+            this.psiFile = psiFile;
+            this.modificationStamp = psiFile == null ? 0 : psiFile.getModificationStamp();
+        }
+
+        private boolean isUpToDate(SystemObject systemObject) {
+            ClassObject classObject = systemObject.getClassObject(className);
+            PsiFile currentFile = classObject == null ? null : classObject.getPsiFile();
+            return currentFile == psiFile && (psiFile == null || psiFile.getModificationStamp() == modificationStamp);
+        }
+    }
+
+    private static class Entry {
+        private final Set<String> methodsWithoutExtractMethodCandidates = ConcurrentHashMap.newKeySet();
+        private volatile long lastAccessTime;
+
+        private Entry(long lastAccessTime) {
+            this.lastAccessTime = lastAccessTime;
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package org.jetbrains.research.intellijdeodorant.core;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.*;
+import com.intellij.psi.util.PsiTreeUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.research.intellijdeodorant.core.ast.ASTReader;
+import org.jetbrains.research.intellijdeodorant.core.ast.SystemObject;
+import org.jetbrains.research.intellijdeodorant.core.distance.MySystem;
+import org.jetbrains.research.intellijdeodorant.core.distance.ProjectInfo;
+import org.jetbrains.research.intellijdeodorant.utils.ReadActionUtils;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Project-level cache of the analysis model.
+ * <p>
+ * The {@link SystemObject} is built once and then kept up to date incrementally: PSI changes are tracked,
+ * and only the classes of the changed files are parsed again when the model is requested next time.
+ * Changes outside of code blocks (e.g. in method signatures, field declarations, imports or top-level classes)
+ * may affect the facts of other classes, so they cause the whole model to be rebuilt,
+ * unless only whitespace and comments are changed.
+ * The derived {@link MySystem} instances are cached until the model changes.
+ * <p>
+ * The model is built in small read actions, so write actions can happen while it is being built.
+ * The changes are recorded without taking the lock of the session, and the changes made during the build
+ * are applied on the next request. Classes that are invalidated during the build are parsed from the new
+ * version of their files or skipped, and their files are parsed again on the next request.
+ * <p>
+ * Only the Extract Method detection checks that the classes it processed have not changed since they were parsed,
+ * and processes the changed ones again. The Move Method, Extract Class and type checking candidates are computed
+ * from the model as it was when they were requested, so they can be stale if the code changes during the analysis.
+ */
+public class AnalysisSession implements Disposable {
+    private final Project project;
+    private final Set<VirtualFile> changedFiles = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean structureChanged = new AtomicBoolean();
+    private SystemObject systemObject;
+    private Map<VirtualFile, List<String>> classNamesByFile;
+    private MySystem system;
+    private MySystem systemWithStaticMembers;
+
+    public AnalysisSession(@NotNull Project project) {
+        this.project = project;
+        PsiManager.getInstance(project).addPsiTreeChangeListener(new ModelInvalidationListener(), this);
+    }
+
+    public static AnalysisSession getInstance(@NotNull Project project) {
+        return ServiceManager.getService(project, AnalysisSession.class);
+    }
+
+    /**
+     * Returns the model of the classes from the given project info.
+     * The model is built from scratch only on the first call or after structural changes,
+     * otherwise only the classes from the changed files are parsed again.
+     */
+    public synchronized SystemObject getSystemObject(@NotNull ProjectInfo projectInfo, @NotNull ProgressIndicator indicator) {
+        try {
+            return updateSystemObject(projectInfo, indicator);
+        } catch (RuntimeException e) {
+            // a partially updated model cannot be brought up to date incrementally
+            invalidate();
+            throw e;
+        }
+    }
+
+    private SystemObject updateSystemObject(@NotNull ProjectInfo projectInfo, @NotNull ProgressIndicator indicator) {
+        Map<VirtualFile, List<PsiClass>> classesByFile = new LinkedHashMap<>();
+        Map<VirtualFile, List<String>> namesByFile = new LinkedHashMap<>();
+        boolean classesInvalidated = ReadActionUtils.computeInReadAction(() ->
+                groupClassesByFile(projectInfo.getClasses(), classesByFile, namesByFile));
+        Set<VirtualFile> changedFiles = new HashSet<>(this.changedFiles);
+        this.changedFiles.removeAll(changedFiles);
+        if (structureChanged.getAndSet(false) || systemObject == null) {
+            systemObject = new SystemObject();
+            ASTReader reader = new ASTReader(systemObject, projectInfo.getClasses(), indicator, true);
+            onModelChanged(namesByFile);
+            onClassesInvalidated(reader, classesInvalidated);
+        } else {
+            Set<VirtualFile> filesToRemove = new HashSet<>(classNamesByFile.keySet());
+            filesToRemove.removeAll(classesByFile.keySet());
+            List<PsiClass> classesToAdd = new ArrayList<>();
+            for (Map.Entry<VirtualFile, List<PsiClass>> entry : classesByFile.entrySet()) {
+                VirtualFile file = entry.getKey();
+                if (changedFiles.contains(file) || !classNamesByFile.containsKey(file)) {
+                    classesToAdd.addAll(entry.getValue());
+                    if (classNamesByFile.containsKey(file)) {
+                        filesToRemove.add(file);
+                    }
+                }
+            }
+            if (!filesToRemove.isEmpty() || !classesToAdd.isEmpty()) {
+                List<String> classNamesToRemove = new ArrayList<>();
+                for (VirtualFile file : filesToRemove) {
+                    classNamesToRemove.addAll(classNamesByFile.get(file));
+                }
+                systemObject.removeClasses(classNamesToRemove);
+                ASTReader reader = new ASTReader(systemObject, classesToAdd, indicator, true);
+                List<String> classNames = new ArrayList<>();
+                namesByFile.values().forEach(classNames::addAll);
+                systemObject.orderClasses(classNames);
+                onModelChanged(namesByFile);
+                onClassesInvalidated(reader, classesInvalidated);
+            } else if (classesInvalidated) {
+                structureChanged();
+            }
+        }
+        return systemObject;
+    }
+
+    /**
+     * Records the files whose classes were modified while the model was being built, so they are parsed again
+     * on the next request. If some classes were invalid before they could be located in their files,
+     * the model is rebuilt on the next request.
+     */
+    private void onClassesInvalidated(@NotNull ASTReader reader, boolean classesInvalidated) {
+        for (VirtualFile file : reader.getModifiedFiles()) {
+            fileChanged(file, false);
+        }
+        if (classesInvalidated || reader.hasSkippedClasses()) {
+            structureChanged();
+        }
+    }
+
+    /**
+     * Returns the distance model built on top of {@link #getSystemObject(ProjectInfo, ProgressIndicator)}.
+     */
+    public synchronized MySystem getSystem(@NotNull ProjectInfo projectInfo, @NotNull ProgressIndicator indicator,
+                                           boolean includeStaticMembers) {
+        SystemObject currentSystemObject = getSystemObject(projectInfo, indicator);
+        if (includeStaticMembers) {
+            if (systemWithStaticMembers == null) {
+                systemWithStaticMembers = ReadActionUtils.computeInReadAction(() -> new MySystem(currentSystemObject, true));
+            }
+            return systemWithStaticMembers;
+        } else {
+            if (system == null) {
+                system = ReadActionUtils.computeInReadAction(() -> new MySystem(currentSystemObject, false));
+            }
+            return system;
+        }
+    }
+
+    /**
+     * Drops the cached model, so the next request rebuilds it from scratch.
+     */
+    public synchronized void invalidate() {
+        systemObject = null;
+        classNamesByFile = null;
+        system = null;
+        systemWithStaticMembers = null;
+        changedFiles.clear();
+        structureChanged.set(false);
+    }
+
+    @Override
+    public void dispose() {
+        invalidate();
+    }
+
+    private void onModelChanged(Map<VirtualFile, List<String>> namesByFile) {
+        classNamesByFile = namesByFile;
+        system = null;
+        systemWithStaticMembers = null;
+    }
+
+    /**
+     * Groups the classes and their names by file. The names are taken in the same read action, because
+     * the classes may be invalidated by later write actions.
+     *
+     * @return {@code true} if some classes are no longer valid, so the project info is out of date.
+     */
+    private static boolean groupClassesByFile(List<PsiClass> classes, Map<VirtualFile, List<PsiClass>> classesByFile,
+                                              Map<VirtualFile, List<String>> namesByFile) {
+        classesByFile.clear();
+        namesByFile.clear();
+        boolean classesInvalidated = false;
+        for (PsiClass psiClass : classes) {
+            if (!psiClass.isValid()) {
+                classesInvalidated = true;
+                continue;
+            }
+            PsiFile psiFile = psiClass.getContainingFile();
+            VirtualFile file = psiFile == null ? null : psiFile.getVirtualFile();
+            classesByFile.computeIfAbsent(file, key -> new ArrayList<>()).add(psiClass);
+            namesByFile.computeIfAbsent(file, key -> new ArrayList<>()).add(psiClass.getQualifiedName());
+        }
+        return classesInvalidated;
+    }
+
+    private void fileChanged(@NotNull VirtualFile file, boolean structural) {
+        changedFiles.add(file);
+        if (structural) {
+            structureChanged.set(true);
+        }
+    }
+
+    private void structureChanged() {
+        structureChanged.set(true);
+    }
+
+    /**
+     * Records the files whose classes have to be parsed again.
+     */
+    private class ModelInvalidationListener extends PsiTreeChangeAdapter {
+        @Override
+        public void childAdded(@NotNull PsiTreeChangeEvent event) {
+            processEvent(event);
+        }
+
+        @Override
+        public void childRemoved(@NotNull PsiTreeChangeEvent event) {
+            processEvent(event);
+        }
+
+        @Override
+        public void childReplaced(@NotNull PsiTreeChangeEvent event) {
+            processEvent(event);
+        }
+
+        @Override
+        public void childMoved(@NotNull PsiTreeChangeEvent event) {
+            processEvent(event);
+        }
+
+        @Override
+        public void childrenChanged(@NotNull PsiTreeChangeEvent event) {
+            processEvent(event);
+        }
+
+        @Override
+        public void propertyChanged(@NotNull PsiTreeChangeEvent event) {
+            processEvent(event);
+        }
+
+        private void processEvent(@NotNull PsiTreeChangeEvent event) {
+            PsiFile psiFile = event.getFile();
+            if (psiFile == null) {
+                if (event.getChild() instanceof PsiJavaFile || event.getChild() instanceof PsiDirectory
+                        || event.getOldChild() instanceof PsiJavaFile || event.getNewChild() instanceof PsiJavaFile) {
+                    structureChanged();
+                }
+                return;
+            }
+            if (!(psiFile instanceof PsiJavaFile) || psiFile.getVirtualFile() == null) {
+                return;
+            }
+            PsiElement parent = event.getParent();
+            boolean structural;
+            if (parent instanceof PsiFile) {
+                //top-level children are classes, imports and the package statement
+                structural = !changesOnlyWhiteSpaceOrComments(event);
+            } else {
+                structural = PsiTreeUtil.getNonStrictParentOfType(parent, PsiCodeBlock.class, PsiComment.class) == null;
+            }
+            fileChanged(psiFile.getVirtualFile(), structural);
+        }
+
+        private boolean changesOnlyWhiteSpaceOrComments(@NotNull PsiTreeChangeEvent event) {
+            boolean hasChildren = false;
+            for (PsiElement child : new PsiElement[]{event.getChild(), event.getOldChild(), event.getNewChild()}) {
+                if (child != null) {
+                    if (!(child instanceof PsiWhiteSpace) && !(child instanceof PsiComment)) {
+                        return false;
+                    }
+                    hasChildren = true;
+                }
+            }
+            return hasChildren;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package org.jetbrains.research.intellijdeodorant.core;
+
+import com.intellij.codeInsight.daemon.impl.DaemonCodeAnalyzerEx;
+import com.intellij.lang.annotation.HighlightSeverity;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.compiler.CompileScope;
+import com.intellij.openapi.compiler.CompilerManager;
+import com.intellij.openapi.compiler.CompilerMessage;
+import com.intellij.openapi.compiler.CompilerMessageCategory;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.problems.WolfTheProblemSolver;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.concurrency.Semaphore;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Checks that the analyzed files have no compilation errors before the detection is run.
+ * <p>
+ * The status of a file is taken from its PSI error elements and from the problem highlighting
+ * that has already been done by the IDE. The errors of a file also depend on the files it refers to,
+ * so the status is cached only until any PSI of the project is modified.
+ * Only the files whose status is still unknown are compiled.
+ */
+public class CompilationErrorsChecker {
+    private final Project project;
+    private final Map<VirtualFile, FileStatus> statuses = new ConcurrentHashMap<>();
+
+    public CompilationErrorsChecker(@NotNull Project project) {
+        this.project = project;
+    }
+
+    public static CompilationErrorsChecker getInstance(@NotNull Project project) {
+        return ServiceManager.getService(project, CompilationErrorsChecker.class);
+    }
+
+    /**
+     * Checks the files of the given classes without compiling them. Must be called under a read action.
+     */
+    @NotNull
+    public Result check(@NotNull List<PsiClass> classes) {
+        long modificationCount = PsiModificationTracker.getInstance(project).getModificationCount();
+        Set<VirtualFile> unknownFiles = new LinkedHashSet<>();
+        Set<PsiFile> checkedFiles = new HashSet<>();
+        for (PsiClass psiClass : classes) {
+            PsiFile psiFile = psiClass.getContainingFile();
+            if (psiFile == null || psiFile.getVirtualFile() == null || !checkedFiles.add(psiFile)) {
+                continue;
+            }
+            Boolean hasErrors = hasErrors(psiFile, modificationCount);
+            if (hasErrors == null) {
+                unknownFiles.add(psiFile.getVirtualFile());
+            } else if (hasErrors) {
+                return new Result(true, Collections.emptySet(), modificationCount);
+            }
+        }
+        return new Result(false, unknownFiles, modificationCount);
+    }
+
+    /**
+     * Compiles the files whose status is unknown and passes {@code true} to the callback on the EDT
+     * if there are no compilation errors. Must be called on the EDT.
+     */
+    public void compile(@NotNull Result result, @NotNull Consumer<Boolean> callback) {
+        CompilerManager compilerManager = CompilerManager.getInstance(project);
+        CompileScope compileScope = compilerManager.createFilesCompileScope(
+                result.unknownFiles.toArray(VirtualFile.EMPTY_ARRAY));
+        compilerManager.make(compileScope, (aborted, errors, warnings, compileContext) -> {
+            if (!aborted) {
+                Set<VirtualFile> filesWithErrors = new HashSet<>();
+                for (CompilerMessage message : compileContext.getMessages(CompilerMessageCategory.ERROR)) {
+                    filesWithErrors.add(message.getVirtualFile());
+                }
+                for (VirtualFile file : result.unknownFiles) {
+                    statuses.put(file, new FileStatus(result.modificationCount, filesWithErrors.contains(file)));
+                }
+            }
+            callback.accept(errors == 0 && !aborted);
+        });
+    }
+
+    /**
+     * Compiles the files whose status is unknown and waits for the compilation to finish.
+     * Must not be called on the EDT.
+     */
+    public boolean compileAndWait(@NotNull Result result) {
+        Semaphore semaphore = new Semaphore(1);
+        boolean[] succeeded = new boolean[1];
+        ApplicationManager.getApplication().invokeLater(() -> compile(result, compiled -> {
+            succeeded[0] = compiled;
+            semaphore.up();
+        }));
+        semaphore.waitFor();
+        return succeeded[0];
+    }
+
+    /**
+     * Returns {@code null} if it is not known whether the file has errors.
+     */
+    private Boolean hasErrors(@NotNull PsiFile psiFile, long modificationCount) {
+        VirtualFile file = psiFile.getVirtualFile();
+        if (WolfTheProblemSolver.getInstance(project).isProblemFile(file)) {
+            return true;
+        }
+        FileStatus status = statuses.get(file);
+        if (status != null && status.modificationCount == modificationCount) {
+            return status.hasErrors;
+        }
+        Boolean hasErrors = PsiTreeUtil.hasErrorElements(psiFile) ? Boolean.TRUE : getHighlightedErrors(psiFile);
+        if (hasErrors != null) {
+            statuses.put(file, new FileStatus(modificationCount, hasErrors));
+        }
+        return hasErrors;
+    }
+
+    /**
+     * Returns whether the error highlighting of the file contains errors,
+     * or {@code null} if the file has not been highlighted since its last change.
+     */
+    private Boolean getHighlightedErrors(@NotNull PsiFile psiFile) {
+        PsiDocumentManager documentManager = PsiDocumentManager.getInstance(project);
+        Document document = documentManager.getCachedDocument(psiFile);
+        if (document == null || !documentManager.isCommitted(document)
+                || !DaemonCodeAnalyzerEx.getInstanceEx(project).isErrorAnalyzingFinished(psiFile)) {
+            return null;
+        }
+        return !DaemonCodeAnalyzerEx.processHighlights(document, project, HighlightSeverity.ERROR,
+                0, document.getTextLength(), info -> false);
+    }
+
+    public static class Result {
+        private final boolean hasErrors;
+        private final Set<VirtualFile> unknownFiles;
+        private final long modificationCount;
+
+        private Result(boolean hasErrors, @NotNull Set<VirtualFile> unknownFiles, long modificationCount) {
+            this.hasErrors = hasErrors;
+            this.unknownFiles = unknownFiles;
+            this.modificationCount = modificationCount;
+        }
+
+        /**
+         * Returns {@code true} if some files are known to have errors.
+         */
+        public boolean hasErrors() {
+            return hasErrors;
+        }
+
+        /**
+         * Returns {@code true} if some files have to be compiled to find out whether they have errors.
+         */
+        public boolean hasUnknownFiles() {
+            return !unknownFiles.isEmpty();
+        }
+    }
+
+    private static class FileStatus {
+        private final long modificationCount;
+        private final boolean hasErrors;
+
+        private FileStatus(long modificationCount, boolean hasErrors) {
+            this.modificationCount = modificationCount;
+            this.hasErrors = hasErrors;
+        }
+    }
+}
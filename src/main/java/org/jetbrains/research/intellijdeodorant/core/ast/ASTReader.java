@@ -1,34 +1,133 @@
 package org.jetbrains.research.intellijdeodorant.core.ast;
 
+import com.intellij.concurrency.JobLauncher;
 import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.*;
+import com.intellij.psi.util.PsiTreeUtil;
 
 import org.jetbrains.research.intellijdeodorant.core.ast.decomposition.MethodBodyObject;
 import org.jetbrains.research.intellijdeodorant.core.distance.ProjectInfo;
+import org.jetbrains.research.intellijdeodorant.core.statistics.Instrumentation;
 import org.jetbrains.research.intellijdeodorant.IntelliJDeodorantBundle;
+import org.jetbrains.research.intellijdeodorant.utils.ReadActionUtils;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 public class ASTReader {
-    private static SystemObject systemObject;
+    private final SystemObject systemObject;
+    private final Set<VirtualFile> modifiedFiles = ConcurrentHashMap.newKeySet();
+    private volatile boolean classesSkipped;
 
     public ASTReader(ProjectInfo project, ProgressIndicator indicator) {
+        this(new SystemObject(), project.getClasses(), indicator, false);
+    }
+
+    /**
+     * Adds the given classes to an existing model, e.g. to bring it up to date after some files have been changed.
+     * Every class is parsed in its own read action that gives way to write actions.
+     * A class that has been invalidated by a write action before it is parsed is found again in its file
+     * by its qualified name, or skipped if it is no longer there; the file is then reported by {@link #getModifiedFiles()}.
+     *
+     * @param concurrent if {@code true}, the classes are parsed on all available cores.
+     *                   The resulting model is the same as in the sequential mode.
+     */
+    public ASTReader(SystemObject systemObject, List<PsiClass> classes, ProgressIndicator indicator, boolean concurrent) {
         indicator.setText(IntelliJDeodorantBundle.message("feature.envy.parsing.indicator"));
         indicator.setFraction(0.0);
-        systemObject = new SystemObject();
-        List<PsiClass> classes = project.getClasses();
-        int processedClasses = 0;
-        int classesCount = classes.size();
+        this.systemObject = systemObject;
+        try (Instrumentation.Phase ignored = Instrumentation.startPhase("ast.reader")) {
+            List<ClassLocation> locations = ReadActionUtils.computeInReadAction(() -> locateClasses(classes));
+            List<ParsedClass> parsedClasses = concurrent && locations.size() > 1
+                    ? processTypeDeclarationsConcurrently(locations, indicator)
+                    : processTypeDeclarations(locations, indicator);
+            for (ParsedClass parsedClass : parsedClasses) {
+                if (parsedClass != null) {
+                    parsedClass.addTo(systemObject);
+                }
+            }
+        }
+        Instrumentation.count("classes.parsed", classes.size());
+        indicator.setFraction(1.0);
+    }
+
+    private List<ClassLocation> locateClasses(List<PsiClass> classes) {
+        List<ClassLocation> locations = new ArrayList<>(classes.size());
         for (PsiClass psiClass : classes) {
-            systemObject.addClass(processTypeDeclaration(psiClass));
+            if (psiClass.isValid()) {
+                PsiFile psiFile = psiClass.getContainingFile();
+                locations.add(new ClassLocation(psiClass, psiClass.getQualifiedName(), psiFile,
+                        psiFile == null ? null : psiFile.getVirtualFile()));
+            } else {
+                //the file of the class is not known any more
+                classesSkipped = true;
+            }
+        }
+        return locations;
+    }
+
+    /**
+     * Parses the class, or the class with the same name in its file if it has been invalidated by a write action.
+     * Returns {@code null} if the class cannot be found any more.
+     */
+    private ParsedClass processTypeDeclaration(ClassLocation location) {
+        PsiClass psiClass = location.psiClass;
+        if (!psiClass.isValid()) {
+            if (location.virtualFile != null) {
+                modifiedFiles.add(location.virtualFile);
+            }
+            psiClass = location.findClass();
+            if (psiClass == null) {
+                Instrumentation.count("classes.skipped.invalid");
+                return null;
+            }
+        }
+        return processTypeDeclaration(psiClass);
+    }
+
+    private List<ParsedClass> processTypeDeclarations(List<ClassLocation> locations, ProgressIndicator indicator) {
+        List<ParsedClass> parsedClasses = new ArrayList<>();
+        int processedClasses = 0;
+        int classesCount = locations.size();
+        for (ClassLocation location : locations) {
+            parsedClasses.add(ReadActionUtils.computeInReadAction(() -> processTypeDeclaration(location)));
             processedClasses += 1;
             indicator.setFraction((double) processedClasses / classesCount);
         }
-        indicator.setFraction(1.0);
+        return parsedClasses;
     }
 
-    private ClassObject processTypeDeclaration(PsiClass psiClass) {
+    /**
+     * Parses classes in parallel. Every class is parsed into its own {@link ParsedClass},
+     * and the results are collected in the order of the given classes, so the merge is deterministic.
+     */
+    private List<ParsedClass> processTypeDeclarationsConcurrently(List<ClassLocation> locations, ProgressIndicator indicator) {
+        int classesCount = locations.size();
+        AtomicReferenceArray<ParsedClass> results = new AtomicReferenceArray<>(classesCount);
+        AtomicInteger processedClasses = new AtomicInteger();
+        List<Integer> positions = new ArrayList<>(classesCount);
+        for (int i = 0; i < classesCount; i++) {
+            positions.add(i);
+        }
+        JobLauncher.getInstance().invokeConcurrentlyUnderProgress(positions, indicator, position -> {
+            ClassLocation location = locations.get(position);
+            results.set(position, ReadActionUtils.computeInReadAction(() -> processTypeDeclaration(location)));
+            indicator.setFraction((double) processedClasses.incrementAndGet() / classesCount);
+            return true;
+        });
+        List<ParsedClass> parsedClasses = new ArrayList<>(classesCount);
+        for (int i = 0; i < classesCount; i++) {
+            parsedClasses.add(results.get(i));
+        }
+        return parsedClasses;
+    }
+
+    private ParsedClass processTypeDeclaration(PsiClass psiClass) {
         final ClassObject classObject = new ClassObject(psiClass);
+        final ParsedClass parsedClass = new ParsedClass(classObject);
         classObject.setName(psiClass.getQualifiedName());
         if (psiClass.isInterface()) {
             classObject.setInterface(true);
@@ -66,9 +165,9 @@ public class ASTReader {
 
         PsiMethod[] methodDeclarations = psiClass.getMethods();
         for (PsiMethod methodDeclaration : methodDeclarations) {
-            processMethodDeclaration(classObject, methodDeclaration);
+            processMethodDeclaration(parsedClass, methodDeclaration);
         }
-        return classObject;
+        return parsedClass;
     }
 
     private void processFieldDeclaration(final ClassObject classObject, PsiField fieldDeclaration) {
@@ -92,7 +191,8 @@ public class ASTReader {
 
     }
 
-    private void processMethodDeclaration(final ClassObject classObject, PsiMethod methodDeclaration) {
+    private void processMethodDeclaration(final ParsedClass parsedClass, PsiMethod methodDeclaration) {
+        final ClassObject classObject = parsedClass.classObject;
         String methodName = methodDeclaration.getName();
         final ConstructorObject constructorObject = new ConstructorObject();
         constructorObject.setMethodDeclaration(methodDeclaration);
@@ -157,21 +257,90 @@ public class ASTReader {
             classObject.addMethod(methodObject);
             FieldInstructionObject fieldInstruction = methodObject.isGetter();
             if (fieldInstruction != null)
-                systemObject.addGetter(methodObject.generateMethodInvocation(), fieldInstruction);
+                parsedClass.getters.put(methodObject.generateMethodInvocation(), fieldInstruction);
             fieldInstruction = methodObject.isSetter();
             if (fieldInstruction != null)
-                systemObject.addSetter(methodObject.generateMethodInvocation(), fieldInstruction);
+                parsedClass.setters.put(methodObject.generateMethodInvocation(), fieldInstruction);
             fieldInstruction = methodObject.isCollectionAdder();
             if (fieldInstruction != null)
-                systemObject.addCollectionAdder(methodObject.generateMethodInvocation(), fieldInstruction);
+                parsedClass.collectionAdders.put(methodObject.generateMethodInvocation(), fieldInstruction);
             MethodInvocationObject methodInvocation = methodObject.isDelegate();
             if (methodInvocation != null)
-                systemObject.addDelegate(methodObject.generateMethodInvocation(), methodInvocation);
+                parsedClass.delegates.put(methodObject.generateMethodInvocation(), methodInvocation);
         }
     }
 
-    public static SystemObject getSystemObject() {
+    /**
+     * Facts collected from a single class. They are added to the {@link SystemObject} only after
+     * the class is parsed, so classes can be parsed independently of each other.
+     */
+    private static class ParsedClass {
+        private final ClassObject classObject;
+        private final Map<MethodInvocationObject, FieldInstructionObject> getters = new LinkedHashMap<>();
+        private final Map<MethodInvocationObject, FieldInstructionObject> setters = new LinkedHashMap<>();
+        private final Map<MethodInvocationObject, FieldInstructionObject> collectionAdders = new LinkedHashMap<>();
+        private final Map<MethodInvocationObject, MethodInvocationObject> delegates = new LinkedHashMap<>();
+
+        private ParsedClass(ClassObject classObject) {
+            this.classObject = classObject;
+        }
+
+        private void addTo(SystemObject systemObject) {
+            systemObject.addClass(classObject);
+            getters.forEach(systemObject::addGetter);
+            setters.forEach(systemObject::addSetter);
+            collectionAdders.forEach(systemObject::addCollectionAdder);
+            delegates.forEach(systemObject::addDelegate);
+        }
+    }
+
+    /**
+     * The class to be parsed, with its name and file, so it can be found again if it is invalidated.
+     */
+    private static class ClassLocation {
+        private final PsiClass psiClass;
+        private final String qualifiedName;
+        private final PsiFile psiFile;
+        private final VirtualFile virtualFile;
+
+        private ClassLocation(PsiClass psiClass, String qualifiedName, PsiFile psiFile, VirtualFile virtualFile) {
+            this.psiClass = psiClass;
+            this.qualifiedName = qualifiedName;
+            this.psiFile = psiFile;
+            this.virtualFile = virtualFile;
+        }
+
+        private PsiClass findClass() {
+            if (qualifiedName == null || psiFile == null || !psiFile.isValid()) {
+                return null;
+            }
+            for (PsiClass psiClass : PsiTreeUtil.findChildrenOfType(psiFile, PsiClass.class)) {
+                if (qualifiedName.equals(psiClass.getQualifiedName())) {
+                    return psiClass;
+                }
+            }
+            return null;
+        }
+    }
+
+    public SystemObject getSystemObject() {
         return systemObject;
     }
 
+    /**
+     * Returns the files whose classes were invalidated by write actions while the model was built.
+     * Their classes in the model may not match the current code, so they have to be parsed again.
+     */
+    public Set<VirtualFile> getModifiedFiles() {
+        return modifiedFiles;
+    }
+
+    /**
+     * Returns {@code true} if some of the given classes were already invalid when the build started,
+     * so neither they nor their files are in the model.
+     */
+    public boolean hasSkippedClasses() {
+        return classesSkipped;
+    }
+
 }
\ No newline at end of file
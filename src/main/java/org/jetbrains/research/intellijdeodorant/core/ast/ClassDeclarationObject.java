@@ -111,10 +111,10 @@ public abstract class ClassDeclarationObject {
         return false;
     }
 
-    public Set<FieldObject> getFieldsAccessedInsideMethod(AbstractMethodDeclaration method) {
+    public Set<FieldObject> getFieldsAccessedInsideMethod(AbstractMethodDeclaration method, SystemObject system) {
         Set<FieldObject> fields = new LinkedHashSet<>();
         for (FieldInstructionObject fieldInstruction : method.getFieldInstructions()) {
-            FieldObject accessedFieldFromThisClass = findField(fieldInstruction);
+            FieldObject accessedFieldFromThisClass = findField(fieldInstruction, system);
             if (accessedFieldFromThisClass != null) {
                 fields.add(accessedFieldFromThisClass);
             }
@@ -124,7 +124,7 @@ public abstract class ClassDeclarationObject {
             for (TryStatementObject tryStatement : tryStatements) {
                 for (CatchClauseObject catchClause : tryStatement.getCatchClauses()) {
                     for (FieldInstructionObject fieldInstruction : catchClause.getBody().getFieldInstructions()) {
-                        FieldObject accessedFieldFromThisClass = findField(fieldInstruction);
+                        FieldObject accessedFieldFromThisClass = findField(fieldInstruction, system);
                         if (accessedFieldFromThisClass != null) {
                             fields.add(accessedFieldFromThisClass);
                         }
@@ -132,7 +132,7 @@ public abstract class ClassDeclarationObject {
                 }
                 if (tryStatement.getFinallyClause() != null) {
                     for (FieldInstructionObject fieldInstruction : tryStatement.getFinallyClause().getFieldInstructions()) {
-                        FieldObject accessedFieldFromThisClass = findField(fieldInstruction);
+                        FieldObject accessedFieldFromThisClass = findField(fieldInstruction, system);
                         if (accessedFieldFromThisClass != null) {
                             fields.add(accessedFieldFromThisClass);
                         }
@@ -152,16 +152,16 @@ public abstract class ClassDeclarationObject {
         return null;
     }
 
-    FieldObject findField(FieldInstructionObject fieldInstruction) {
+    FieldObject findField(FieldInstructionObject fieldInstruction, SystemObject system) {
         FieldObject field = getField(fieldInstruction);
         if (field != null) {
             return field;
         } else {
             TypeObject superclassType = getSuperclass();
             if (superclassType != null) {
-                ClassObject superclassObject = ASTReader.getSystemObject().getClassObject(superclassType.toString());
+                ClassObject superclassObject = system.getClassObject(superclassType.toString());
                 if (superclassObject != null) {
-                    return superclassObject.findField(fieldInstruction);
+                    return superclassObject.findField(fieldInstruction, system);
                 }
             }
         }
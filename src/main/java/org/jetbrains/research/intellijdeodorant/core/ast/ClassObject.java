@@ -4,12 +4,13 @@ import com.intellij.psi.*;
 import org.jetbrains.research.intellijdeodorant.core.ast.decomposition.MethodBodyObject;
 import org.jetbrains.research.intellijdeodorant.core.ast.decomposition.TypeCheckCodeFragmentAnalyzer;
 import org.jetbrains.research.intellijdeodorant.ide.refactoring.typeStateChecking.TypeCheckElimination;
+import org.jetbrains.research.intellijdeodorant.utils.PsiElementHandle;
 
 import java.util.List;
 import java.util.ArrayList;
 import java.util.ListIterator;
 
-import static org.jetbrains.research.intellijdeodorant.utils.PsiUtils.toPointer;
+import static org.jetbrains.research.intellijdeodorant.utils.PsiUtils.findClass;
 
 public class ClassObject extends ClassDeclarationObject {
     private final List<ConstructorObject> constructorList;
@@ -20,10 +21,8 @@ public class ClassObject extends ClassDeclarationObject {
     private boolean _static;
     private boolean _enum;
     private Access access;
-    private SmartPsiElementPointer<PsiElement> typeDeclaration;
     private final String psiType;
-    private final SmartPsiElementPointer<PsiElement> psiFile;
-    private final SmartPsiElementPointer<PsiElement> psiClass;
+    private final PsiElementHandle<PsiClass> psiClass;
 
     public ClassObject(PsiClass psiClass) {
         this.psiType = psiClass.getQualifiedName();
@@ -35,13 +34,11 @@ public class ClassObject extends ClassDeclarationObject {
         this._static = psiClass.hasModifierProperty(PsiModifier.STATIC);
         this._enum = psiClass.isEnum();
         this.access = Access.NONE;
-        this.typeDeclaration = toPointer(psiClass);
-        this.psiFile = toPointer(psiClass.getContainingFile());
-        this.psiClass = toPointer(psiClass);
+        this.psiClass = PsiElementHandle.of(psiClass);
     }
 
     public PsiElement getAbstractTypeDeclaration() {
-        return typeDeclaration.getElement();
+        return getPsiClass();
     }
 
     public ClassObject getClassObject() {
@@ -53,7 +50,14 @@ public class ClassObject extends ClassDeclarationObject {
     }
 
     public PsiJavaFile getPsiFile() {
-        return (PsiJavaFile) psiFile.getElement();
+        return (PsiJavaFile) psiClass.getFile();
+    }
+
+    /**
+     * Returns {@code true} if the file of the class has not been modified since the class was parsed.
+     */
+    public boolean isUpToDate() {
+        return psiClass.isUpToDate();
     }
 
     public List<TypeCheckElimination> generateTypeCheckEliminations() {
@@ -181,7 +185,17 @@ public class ClassObject extends ClassDeclarationObject {
         return sb.toString();
     }
 
+    /**
+     * Returns the class, looking it up by its qualified name if its file has been modified since the analysis.
+     */
     public PsiClass getPsiClass() {
-        return (PsiClass) psiClass.getElement();
+        PsiClass element = psiClass.getElement();
+        if (element == null && psiType != null) {
+            PsiFile file = psiClass.getFile();
+            if (file != null) {
+                element = findClass(psiType, file.getProject());
+            }
+        }
+        return element;
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package org.jetbrains.research.intellijdeodorant.core.ast;
 
+import com.intellij.openapi.application.ReadAction;
 import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.psi.*;
 import com.intellij.psi.impl.source.javadoc.PsiDocMethodOrFieldRef;
@@ -13,6 +14,7 @@ import org.jetbrains.research.intellijdeodorant.inheritance.CompleteInheritanceD
 import org.jetbrains.research.intellijdeodorant.inheritance.InheritanceTree;
 import org.jetbrains.research.intellijdeodorant.ide.refactoring.typeStateChecking.TypeCheckElimination;
 import org.jetbrains.research.intellijdeodorant.ide.refactoring.typeStateChecking.TypeCheckEliminationGroup;
+import org.jetbrains.research.intellijdeodorant.utils.ReadActionUtils;
 
 import javax.swing.tree.DefaultMutableTreeNode;
 import java.util.*;
@@ -42,6 +44,42 @@ public class SystemObject {
         classList.add(c);
     }
 
+    /**
+     * Removes the given classes together with the getters, setters, collection adders and delegates declared in them.
+     */
+    public void removeClasses(Collection<String> classNames) {
+        if (classNames.isEmpty()) {
+            return;
+        }
+        Set<String> removedClassNames = new HashSet<>(classNames);
+        classList.removeIf(classObject -> removedClassNames.contains(classObject.getName()));
+        getterMap.keySet().removeIf(invocation -> removedClassNames.contains(invocation.getOriginClassName()));
+        setterMap.keySet().removeIf(invocation -> removedClassNames.contains(invocation.getOriginClassName()));
+        collectionAdderMap.keySet().removeIf(invocation -> removedClassNames.contains(invocation.getOriginClassName()));
+        delegateMap.keySet().removeIf(invocation -> removedClassNames.contains(invocation.getOriginClassName()));
+        updateClassNameMap();
+    }
+
+    /**
+     * Reorders the classes according to the given list of class names.
+     * Classes that are not mentioned in the list are moved to the end.
+     */
+    public void orderClasses(List<String> classNames) {
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < classNames.size(); i++) {
+            positions.putIfAbsent(classNames.get(i), i);
+        }
+        classList.sort(Comparator.comparingInt(classObject -> positions.getOrDefault(classObject.getName(), Integer.MAX_VALUE)));
+        updateClassNameMap();
+    }
+
+    private void updateClassNameMap() {
+        classNameMap.clear();
+        for (int i = 0; i < classList.size(); i++) {
+            classNameMap.put(classList.get(i).getName(), i);
+        }
+    }
+
     public void addGetter(MethodInvocationObject methodInvocation, FieldInstructionObject fieldInstruction) {
         getterMap.put(methodInvocation, fieldInstruction);
     }
@@ -148,17 +186,31 @@ public class SystemObject {
         return names;
     }
 
+    /**
+     * Detects the type checks of each class in a separate read action, then ranks them in a single read action,
+     * because the ranking updates the detected eliminations and cannot be restarted.
+     */
     public List<TypeCheckEliminationGroup> generateTypeCheckEliminations(Set<ClassObject> classObjectsToBeExamined, ProgressIndicator indicator) {
         indicator.setText(IntelliJDeodorantBundle.message("type.state.checking.identification.indicator"));
         indicator.setFraction(0.0);
+        Map<ClassObject, List<TypeCheckElimination>> eliminationsByClass = new LinkedHashMap<>();
+        for (ClassObject classObject : classObjectsToBeExamined) {
+            eliminationsByClass.put(classObject, ReadActionUtils.computeInReadAction(classObject::generateTypeCheckEliminations));
+            indicator.setFraction(indicator.getFraction() + 1.0 / classObjectsToBeExamined.size());
+        }
+        return ReadAction.compute(() -> rankTypeCheckEliminations(eliminationsByClass, indicator));
+    }
+
+    private List<TypeCheckEliminationGroup> rankTypeCheckEliminations(Map<ClassObject, List<TypeCheckElimination>> eliminationsByClass,
+                                                                      ProgressIndicator indicator) {
         List<TypeCheckElimination> typeCheckEliminationResults = new ArrayList<>();
         List<TypeCheckEliminationGroup> typeCheckEliminationGroups = new ArrayList<>();
         Map<TypeCheckElimination, List<PsiField>> staticFieldMap = new LinkedHashMap<>();
         Map<Integer, ArrayList<TypeCheckElimination>> staticFieldRankMap = new TreeMap<>();
         Map<String, ArrayList<TypeCheckElimination>> inheritanceTreeMap = new LinkedHashMap<>();
         CompleteInheritanceDetection inheritanceDetection = new CompleteInheritanceDetection(this);
-        for (ClassObject classObject : classObjectsToBeExamined) {
-            List<TypeCheckElimination> eliminations = classObject.generateTypeCheckEliminations();
+        for (List<TypeCheckElimination> eliminations : eliminationsByClass.values()) {
+            indicator.checkCanceled();
             for (TypeCheckElimination elimination : eliminations) {
                 List<PsiField> staticFields = elimination.getStaticFields();
                 if (!staticFields.isEmpty()) {
@@ -285,7 +337,6 @@ public class SystemObject {
                     }
                 }
             }
-            indicator.setFraction(indicator.getFraction() + 1.0 / classObjectsToBeExamined.size());
         }
         for (String rootNode : inheritanceTreeMap.keySet()) {
             ArrayList<TypeCheckElimination> typeCheckEliminations = inheritanceTreeMap.get(rootNode);
@@ -5,8 +5,7 @@ import com.intellij.psi.SmartPsiElementPointer;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.research.intellijdeodorant.core.ast.util.ExpressionExtractor;
-
-import java.util.List;
+import org.jetbrains.research.intellijdeodorant.core.ast.util.ExtractedExpressions;
 
 import static org.jetbrains.research.intellijdeodorant.utils.PsiUtils.toPointer;
 
@@ -26,15 +25,13 @@ public class AbstractExpression extends AbstractMethodFragment {
     }
 
     private void processExpression(PsiExpression expression) {
-        ExpressionExtractor expressionExtractor = new ExpressionExtractor();
-        List<PsiExpression> assignments = expressionExtractor.getAssignments(expression);
-        List<PsiExpression> postfixExpressions = expressionExtractor.getPostfixExpressions(expression);
-        List<PsiExpression> prefixExpressions = expressionExtractor.getPrefixExpressions(expression);
-        processVariables(expressionExtractor.getVariableInstructions(expression), assignments, postfixExpressions, prefixExpressions);
-        processMethodInvocations(expressionExtractor.getMethodInvocations(expression));
-        processClassInstanceCreations(expressionExtractor.getClassInstanceCreations(expression));
-        processArrayCreations(expressionExtractor.getArrayCreations(expression));
-        processLiterals(expressionExtractor.getLiterals(expression));
+        ExtractedExpressions expressions = new ExpressionExtractor().getAllExpressions(expression);
+        processVariables(expressions.getVariableInstructions(), expressions.getAssignments(),
+                expressions.getPostfixExpressions(), expressions.getPrefixExpressions());
+        processMethodInvocations(expressions.getMethodInvocations());
+        processClassInstanceCreations(expressions.getClassInstanceCreations());
+        processArrayCreations(expressions.getArrayCreations());
+        processLiterals(expressions.getLiterals());
     }
 
     private PsiExpression getExpression() {
@@ -3,6 +3,7 @@ package org.jetbrains.research.intellijdeodorant.core.ast.decomposition;
 import com.intellij.psi.*;
 import com.intellij.psi.impl.source.PsiClassReferenceType;
 import com.intellij.psi.util.PsiUtil;
+import com.intellij.util.SmartList;
 import org.jetbrains.research.intellijdeodorant.core.ast.*;
 import org.jetbrains.research.intellijdeodorant.core.ast.decomposition.cfg.AbstractVariable;
 import org.jetbrains.research.intellijdeodorant.core.ast.decomposition.cfg.PlainVariable;
@@ -14,70 +15,71 @@ import static org.jetbrains.research.intellijdeodorant.utils.PsiUtils.resolveMet
 
 public abstract class AbstractMethodFragment {
     private final AbstractMethodFragment parent;
-    private final List<MethodInvocationObject> methodInvocationList;
-    private final List<SuperMethodInvocationObject> superMethodInvocationList;
-    private final List<FieldInstructionObject> fieldInstructionList;
-    private final List<SuperFieldInstructionObject> superFieldInstructionList;
-    private final List<LocalVariableDeclarationObject> localVariableDeclarationList;
-    private final List<LocalVariableInstructionObject> localVariableInstructionList;
-    private final List<CreationObject> creationList;
-    private final List<PsiExpression> literalList;
-    private final List<AnonymousClassDeclarationObject> anonymousClassDeclarationList;
-    private final Set<String> exceptionsInThrowStatements;
-    private final Map<AbstractVariable, ArrayList<MethodInvocationObject>> nonDistinctInvokedMethodsThroughFields;
-    private final Map<AbstractVariable, ArrayList<MethodInvocationObject>> nonDistinctInvokedMethodsThroughParameters;
-    private final Map<AbstractVariable, ArrayList<MethodInvocationObject>> nonDistinctInvokedMethodsThroughLocalVariables;
-    private final List<MethodInvocationObject> nonDistinctInvokedMethodsThroughThisReference;
-    private final List<MethodInvocationObject> nonDistinctInvokedStaticMethods;
-    private final List<AbstractVariable> nonDistinctDefinedFieldsThroughFields;
-    private final List<AbstractVariable> nonDistinctUsedFieldsThroughFields;
-    private final List<AbstractVariable> nonDistinctDefinedFieldsThroughParameters;
-    private final List<AbstractVariable> nonDistinctUsedFieldsThroughParameters;
-    private final List<AbstractVariable> nonDistinctDefinedFieldsThroughLocalVariables;
-    private final List<AbstractVariable> nonDistinctUsedFieldsThroughLocalVariables;
-    private final List<PlainVariable> nonDistinctDefinedFieldsThroughThisReference;
-    private final List<PlainVariable> nonDistinctUsedFieldsThroughThisReference;
-
-    private final Set<PlainVariable> declaredLocalVariables;
-    private final Set<PlainVariable> definedLocalVariables;
-    private final Set<PlainVariable> usedLocalVariables;
-    private final Map<PlainVariable, LinkedHashSet<MethodInvocationObject>> parametersPassedAsArgumentsInMethodInvocations;
-    private final Map<PlainVariable, LinkedHashSet<SuperMethodInvocationObject>> parametersPassedAsArgumentsInSuperMethodInvocations;
-    private final Map<PlainVariable, LinkedHashSet<ClassInstanceCreationObject>> variablesAssignedWithClassInstanceCreations;
+    //the facts are allocated when the first one is added, and share the immutable empty collections until then
+    private List<MethodInvocationObject> methodInvocationList;
+    private List<SuperMethodInvocationObject> superMethodInvocationList;
+    private List<FieldInstructionObject> fieldInstructionList;
+    private List<SuperFieldInstructionObject> superFieldInstructionList;
+    private List<LocalVariableDeclarationObject> localVariableDeclarationList;
+    private List<LocalVariableInstructionObject> localVariableInstructionList;
+    private List<CreationObject> creationList;
+    private List<PsiExpression> literalList;
+    private List<AnonymousClassDeclarationObject> anonymousClassDeclarationList;
+    private Set<String> exceptionsInThrowStatements;
+    private Map<AbstractVariable, ArrayList<MethodInvocationObject>> nonDistinctInvokedMethodsThroughFields;
+    private Map<AbstractVariable, ArrayList<MethodInvocationObject>> nonDistinctInvokedMethodsThroughParameters;
+    private Map<AbstractVariable, ArrayList<MethodInvocationObject>> nonDistinctInvokedMethodsThroughLocalVariables;
+    private List<MethodInvocationObject> nonDistinctInvokedMethodsThroughThisReference;
+    private List<MethodInvocationObject> nonDistinctInvokedStaticMethods;
+    private List<AbstractVariable> nonDistinctDefinedFieldsThroughFields;
+    private List<AbstractVariable> nonDistinctUsedFieldsThroughFields;
+    private List<AbstractVariable> nonDistinctDefinedFieldsThroughParameters;
+    private List<AbstractVariable> nonDistinctUsedFieldsThroughParameters;
+    private List<AbstractVariable> nonDistinctDefinedFieldsThroughLocalVariables;
+    private List<AbstractVariable> nonDistinctUsedFieldsThroughLocalVariables;
+    private List<PlainVariable> nonDistinctDefinedFieldsThroughThisReference;
+    private List<PlainVariable> nonDistinctUsedFieldsThroughThisReference;
+
+    private Set<PlainVariable> declaredLocalVariables;
+    private Set<PlainVariable> definedLocalVariables;
+    private Set<PlainVariable> usedLocalVariables;
+    private Map<PlainVariable, LinkedHashSet<MethodInvocationObject>> parametersPassedAsArgumentsInMethodInvocations;
+    private Map<PlainVariable, LinkedHashSet<SuperMethodInvocationObject>> parametersPassedAsArgumentsInSuperMethodInvocations;
+    private Map<PlainVariable, LinkedHashSet<ClassInstanceCreationObject>> variablesAssignedWithClassInstanceCreations;
 
     AbstractMethodFragment(AbstractMethodFragment parent) {
         this.parent = parent;
-        this.methodInvocationList = new ArrayList<>();
-        this.superMethodInvocationList = new ArrayList<>();
-        this.fieldInstructionList = new ArrayList<>();
-        this.superFieldInstructionList = new ArrayList<>();
-        this.localVariableDeclarationList = new ArrayList<>();
-        this.localVariableInstructionList = new ArrayList<>();
-        this.creationList = new ArrayList<>();
-        this.literalList = new ArrayList<>();
-        this.anonymousClassDeclarationList = new ArrayList<>();
-        this.exceptionsInThrowStatements = new LinkedHashSet<>();
-
-        this.nonDistinctInvokedMethodsThroughFields = new LinkedHashMap<>();
-        this.nonDistinctInvokedMethodsThroughParameters = new LinkedHashMap<>();
-        this.nonDistinctInvokedMethodsThroughLocalVariables = new LinkedHashMap<>();
-        this.nonDistinctInvokedMethodsThroughThisReference = new ArrayList<>();
-        this.nonDistinctInvokedStaticMethods = new ArrayList<>();
-        this.nonDistinctDefinedFieldsThroughFields = new ArrayList<>();
-        this.nonDistinctUsedFieldsThroughFields = new ArrayList<>();
-        this.nonDistinctDefinedFieldsThroughParameters = new ArrayList<>();
-        this.nonDistinctUsedFieldsThroughParameters = new ArrayList<>();
-        this.nonDistinctDefinedFieldsThroughLocalVariables = new ArrayList<>();
-        this.nonDistinctUsedFieldsThroughLocalVariables = new ArrayList<>();
-        this.nonDistinctDefinedFieldsThroughThisReference = new ArrayList<>();
-        this.nonDistinctUsedFieldsThroughThisReference = new ArrayList<>();
-
-        this.declaredLocalVariables = new LinkedHashSet<>();
-        this.definedLocalVariables = new LinkedHashSet<>();
-        this.usedLocalVariables = new LinkedHashSet<>();
-        this.parametersPassedAsArgumentsInMethodInvocations = new LinkedHashMap<>();
-        this.parametersPassedAsArgumentsInSuperMethodInvocations = new LinkedHashMap<>();
-        this.variablesAssignedWithClassInstanceCreations = new LinkedHashMap<>();
+        this.methodInvocationList = Collections.emptyList();
+        this.superMethodInvocationList = Collections.emptyList();
+        this.fieldInstructionList = Collections.emptyList();
+        this.superFieldInstructionList = Collections.emptyList();
+        this.localVariableDeclarationList = Collections.emptyList();
+        this.localVariableInstructionList = Collections.emptyList();
+        this.creationList = Collections.emptyList();
+        this.literalList = Collections.emptyList();
+        this.anonymousClassDeclarationList = Collections.emptyList();
+        this.exceptionsInThrowStatements = Collections.emptySet();
+
+        this.nonDistinctInvokedMethodsThroughFields = Collections.emptyMap();
+        this.nonDistinctInvokedMethodsThroughParameters = Collections.emptyMap();
+        this.nonDistinctInvokedMethodsThroughLocalVariables = Collections.emptyMap();
+        this.nonDistinctInvokedMethodsThroughThisReference = Collections.emptyList();
+        this.nonDistinctInvokedStaticMethods = Collections.emptyList();
+        this.nonDistinctDefinedFieldsThroughFields = Collections.emptyList();
+        this.nonDistinctUsedFieldsThroughFields = Collections.emptyList();
+        this.nonDistinctDefinedFieldsThroughParameters = Collections.emptyList();
+        this.nonDistinctUsedFieldsThroughParameters = Collections.emptyList();
+        this.nonDistinctDefinedFieldsThroughLocalVariables = Collections.emptyList();
+        this.nonDistinctUsedFieldsThroughLocalVariables = Collections.emptyList();
+        this.nonDistinctDefinedFieldsThroughThisReference = Collections.emptyList();
+        this.nonDistinctUsedFieldsThroughThisReference = Collections.emptyList();
+
+        this.declaredLocalVariables = Collections.emptySet();
+        this.definedLocalVariables = Collections.emptySet();
+        this.usedLocalVariables = Collections.emptySet();
+        this.parametersPassedAsArgumentsInMethodInvocations = Collections.emptyMap();
+        this.parametersPassedAsArgumentsInSuperMethodInvocations = Collections.emptyMap();
+        this.variablesAssignedWithClassInstanceCreations = Collections.emptyMap();
     }
 
     public AbstractMethodFragment getParent() {
@@ -207,49 +209,49 @@ public abstract class AbstractMethodFragment {
     }
 
     private void addFieldInstruction(FieldInstructionObject fieldInstruction) {
-        fieldInstructionList.add(fieldInstruction);
+        fieldInstructionList = add(fieldInstructionList, fieldInstruction);
         if (parent != null) {
             parent.addFieldInstruction(fieldInstruction);
         }
     }
 
     private void addSuperFieldInstruction(SuperFieldInstructionObject superFieldInstruction) {
-        superFieldInstructionList.add(superFieldInstruction);
+        superFieldInstructionList = add(superFieldInstructionList, superFieldInstruction);
         if (parent != null) {
             parent.addSuperFieldInstruction(superFieldInstruction);
         }
     }
 
     private void addLocalVariableDeclaration(LocalVariableDeclarationObject localVariable) {
-        localVariableDeclarationList.add(localVariable);
+        localVariableDeclarationList = add(localVariableDeclarationList, localVariable);
         if (parent != null) {
             parent.addLocalVariableDeclaration(localVariable);
         }
     }
 
     private void addLocalVariableInstruction(LocalVariableInstructionObject localVariable) {
-        localVariableInstructionList.add(localVariable);
+        localVariableInstructionList = add(localVariableInstructionList, localVariable);
         if (parent != null) {
             parent.addLocalVariableInstruction(localVariable);
         }
     }
 
     private void addDeclaredLocalVariable(PlainVariable variable) {
-        declaredLocalVariables.add(variable);
+        declaredLocalVariables = add(declaredLocalVariables, variable);
         if (parent != null) {
             parent.addDeclaredLocalVariable(variable);
         }
     }
 
     private void addDefinedLocalVariable(PlainVariable variable) {
-        definedLocalVariables.add(variable);
+        definedLocalVariables = add(definedLocalVariables, variable);
         if (parent != null) {
             parent.addDefinedLocalVariable(variable);
         }
     }
 
     private void addUsedLocalVariable(PlainVariable variable) {
-        usedLocalVariables.add(variable);
+        usedLocalVariables = add(usedLocalVariables, variable);
         if (parent != null) {
             parent.addUsedLocalVariable(variable);
         }
@@ -379,7 +381,7 @@ public abstract class AbstractMethodFragment {
     }
 
     private void addMethodInvocation(MethodInvocationObject methodInvocationObject) {
-        methodInvocationList.add(methodInvocationObject);
+        methodInvocationList = add(methodInvocationList, methodInvocationObject);
         if (parent != null) {
             parent.addMethodInvocation(methodInvocationObject);
         }
@@ -545,7 +547,7 @@ public abstract class AbstractMethodFragment {
     }
 
     private void addCreation(CreationObject creationObject) {
-        creationList.add(creationObject);
+        creationList = add(creationList, creationObject);
         if (parent != null) {
             parent.addCreation(creationObject);
         }
@@ -558,14 +560,14 @@ public abstract class AbstractMethodFragment {
     }
 
     private void addLiteral(PsiExpression literalObject) {
-        literalList.add(literalObject);
+        literalList = add(literalList, literalObject);
         if (parent != null) {
             parent.addLiteral(literalObject);
         }
     }
 
     private void addAnonymousClassDeclaration(AnonymousClassDeclarationObject anonymousClassObject) {
-        anonymousClassDeclarationList.add(anonymousClassObject);
+        anonymousClassDeclarationList = add(anonymousClassDeclarationList, anonymousClassObject);
         if (parent != null) {
             parent.addAnonymousClassDeclaration(anonymousClassObject);
         }
@@ -585,13 +587,15 @@ public abstract class AbstractMethodFragment {
     }
 
     private void addExceptionInThrowStatement(String exception) {
-        exceptionsInThrowStatements.add(exception);
+        exceptionsInThrowStatements = add(exceptionsInThrowStatements, exception);
         if (parent != null) {
             parent.addExceptionInThrowStatement(exception);
         }
     }
 
     private void addNonDistinctInvokedMethodThroughField(AbstractVariable field, MethodInvocationObject methodInvocation) {
+        if (nonDistinctInvokedMethodsThroughFields.isEmpty())
+            nonDistinctInvokedMethodsThroughFields = new LinkedHashMap<>();
         if (nonDistinctInvokedMethodsThroughFields.containsKey(field)) {
             ArrayList<MethodInvocationObject> methodInvocations = nonDistinctInvokedMethodsThroughFields.get(field);
             methodInvocations.add(methodInvocation);
@@ -606,6 +610,8 @@ public abstract class AbstractMethodFragment {
     }
 
     private void addNonDistinctInvokedMethodThroughParameter(AbstractVariable parameter, MethodInvocationObject methodInvocation) {
+        if (nonDistinctInvokedMethodsThroughParameters.isEmpty())
+            nonDistinctInvokedMethodsThroughParameters = new LinkedHashMap<>();
         if (nonDistinctInvokedMethodsThroughParameters.containsKey(parameter)) {
             ArrayList<MethodInvocationObject> methodInvocations = nonDistinctInvokedMethodsThroughParameters.get(parameter);
             methodInvocations.add(methodInvocation);
@@ -620,6 +626,8 @@ public abstract class AbstractMethodFragment {
     }
 
     private void addNonDistinctInvokedMethodThroughLocalVariable(AbstractVariable localVariable, MethodInvocationObject methodInvocation) {
+        if (nonDistinctInvokedMethodsThroughLocalVariables.isEmpty())
+            nonDistinctInvokedMethodsThroughLocalVariables = new LinkedHashMap<>();
         if (nonDistinctInvokedMethodsThroughLocalVariables.containsKey(localVariable)) {
             ArrayList<MethodInvocationObject> methodInvocations = nonDistinctInvokedMethodsThroughLocalVariables.get(localVariable);
             methodInvocations.add(methodInvocation);
@@ -634,20 +642,22 @@ public abstract class AbstractMethodFragment {
     }
 
     private void addNonDistinctInvokedMethodThroughThisReference(MethodInvocationObject methodInvocation) {
-        nonDistinctInvokedMethodsThroughThisReference.add(methodInvocation);
+        nonDistinctInvokedMethodsThroughThisReference = add(nonDistinctInvokedMethodsThroughThisReference, methodInvocation);
         if (parent != null) {
             parent.addNonDistinctInvokedMethodThroughThisReference(methodInvocation);
         }
     }
 
     private void addStaticallyInvokedMethod(MethodInvocationObject methodInvocation) {
-        nonDistinctInvokedStaticMethods.add(methodInvocation);
+        nonDistinctInvokedStaticMethods = add(nonDistinctInvokedStaticMethods, methodInvocation);
         if (parent != null) {
             parent.addStaticallyInvokedMethod(methodInvocation);
         }
     }
 
     private void addVariableAssignedWithClassInstanceCreation(PlainVariable variable, ClassInstanceCreationObject classInstanceCreation) {
+        if (variablesAssignedWithClassInstanceCreations.isEmpty())
+            variablesAssignedWithClassInstanceCreations = new LinkedHashMap<>();
         if (variablesAssignedWithClassInstanceCreations.containsKey(variable)) {
             LinkedHashSet<ClassInstanceCreationObject> classInstanceCreations = variablesAssignedWithClassInstanceCreations.get(variable);
             classInstanceCreations.add(classInstanceCreation);
@@ -713,14 +723,14 @@ public abstract class AbstractMethodFragment {
         if (variable != null) {
             PlainVariable initialVariable = variable.getInitialVariable();
             if (variable instanceof PlainVariable) {
-                nonDistinctDefinedFieldsThroughThisReference.add((PlainVariable) variable);
+                nonDistinctDefinedFieldsThroughThisReference = add(nonDistinctDefinedFieldsThroughThisReference, (PlainVariable) variable);
             } else {
                 if (initialVariable.isField()) {
-                    nonDistinctDefinedFieldsThroughFields.add(variable);
+                    nonDistinctDefinedFieldsThroughFields = add(nonDistinctDefinedFieldsThroughFields, variable);
                 } else if (initialVariable.isParameter()) {
-                    nonDistinctDefinedFieldsThroughParameters.add(variable);
+                    nonDistinctDefinedFieldsThroughParameters = add(nonDistinctDefinedFieldsThroughParameters, variable);
                 } else {
-                    nonDistinctDefinedFieldsThroughLocalVariables.add(variable);
+                    nonDistinctDefinedFieldsThroughLocalVariables = add(nonDistinctDefinedFieldsThroughLocalVariables, variable);
                 }
             }
             if (parent != null) {
@@ -734,17 +744,17 @@ public abstract class AbstractMethodFragment {
             PlainVariable initialVariable = variable.getInitialVariable();
             if (variable instanceof PlainVariable) {
                 if (!nonDistinctUsedFieldsThroughThisReference.contains(variable)) {
-                    nonDistinctUsedFieldsThroughThisReference.add((PlainVariable) variable);
+                    nonDistinctUsedFieldsThroughThisReference = add(nonDistinctUsedFieldsThroughThisReference, (PlainVariable) variable);
                 }
             } else {
                 if (initialVariable.isField()) {
                     if (!nonDistinctUsedFieldsThroughFields.contains(variable)) {
-                        nonDistinctUsedFieldsThroughFields.add(variable);
+                        nonDistinctUsedFieldsThroughFields = add(nonDistinctUsedFieldsThroughFields, variable);
                     }
                 } else if (initialVariable.isParameter()) {
-                    nonDistinctUsedFieldsThroughParameters.add(variable);
+                    nonDistinctUsedFieldsThroughParameters = add(nonDistinctUsedFieldsThroughParameters, variable);
                 } else {
-                    nonDistinctUsedFieldsThroughLocalVariables.add(variable);
+                    nonDistinctUsedFieldsThroughLocalVariables = add(nonDistinctUsedFieldsThroughLocalVariables, variable);
                 }
             }
             if (parent != null) {
@@ -753,6 +763,61 @@ public abstract class AbstractMethodFragment {
         }
     }
 
+    private static <T> List<T> add(List<T> list, T element) {
+        if (list.isEmpty())
+            list = new SmartList<>();
+        list.add(element);
+        return list;
+    }
+
+    private static <T> Set<T> add(Set<T> set, T element) {
+        if (set.isEmpty())
+            set = new LinkedHashSet<>();
+        set.add(element);
+        return set;
+    }
+
+    /**
+     * Releases the spare capacity of the facts, once the fragments of the method body have all been built.
+     */
+    void compact() {
+        methodInvocationList = compact(methodInvocationList);
+        fieldInstructionList = compact(fieldInstructionList);
+        superFieldInstructionList = compact(superFieldInstructionList);
+        localVariableDeclarationList = compact(localVariableDeclarationList);
+        localVariableInstructionList = compact(localVariableInstructionList);
+        creationList = compact(creationList);
+        literalList = compact(literalList);
+        anonymousClassDeclarationList = compact(anonymousClassDeclarationList);
+        nonDistinctInvokedMethodsThroughThisReference = compact(nonDistinctInvokedMethodsThroughThisReference);
+        nonDistinctInvokedStaticMethods = compact(nonDistinctInvokedStaticMethods);
+        nonDistinctDefinedFieldsThroughFields = compact(nonDistinctDefinedFieldsThroughFields);
+        nonDistinctUsedFieldsThroughFields = compact(nonDistinctUsedFieldsThroughFields);
+        nonDistinctDefinedFieldsThroughParameters = compact(nonDistinctDefinedFieldsThroughParameters);
+        nonDistinctUsedFieldsThroughParameters = compact(nonDistinctUsedFieldsThroughParameters);
+        nonDistinctDefinedFieldsThroughLocalVariables = compact(nonDistinctDefinedFieldsThroughLocalVariables);
+        nonDistinctUsedFieldsThroughLocalVariables = compact(nonDistinctUsedFieldsThroughLocalVariables);
+        nonDistinctDefinedFieldsThroughThisReference = compact(nonDistinctDefinedFieldsThroughThisReference);
+        nonDistinctUsedFieldsThroughThisReference = compact(nonDistinctUsedFieldsThroughThisReference);
+        compactValues(nonDistinctInvokedMethodsThroughFields);
+        compactValues(nonDistinctInvokedMethodsThroughParameters);
+        compactValues(nonDistinctInvokedMethodsThroughLocalVariables);
+    }
+
+    /**
+     * Copies a list of more than one element to an array list without spare capacity,
+     * the empty and single element lists being compact already.
+     */
+    private static <T> List<T> compact(List<T> list) {
+        return list.size() > 1 ? new ArrayList<>(list) : list;
+    }
+
+    private static <K, V> void compactValues(Map<K, ArrayList<V>> map) {
+        for (ArrayList<V> values : map.values()) {
+            values.trimToSize();
+        }
+    }
+
     public List<FieldInstructionObject> getFieldInstructions() {
         return fieldInstructionList;
     }
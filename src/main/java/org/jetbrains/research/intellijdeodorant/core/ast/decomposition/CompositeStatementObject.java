@@ -44,6 +44,16 @@ public class CompositeStatementObject extends AbstractStatement {
         return expressionList;
     }
 
+    void compact() {
+        super.compact();
+        for (AbstractStatement statement : statementList) {
+            statement.compact();
+        }
+        for (AbstractExpression expression : expressionList) {
+            expression.compact();
+        }
+    }
+
     public List<String> stringRepresentation() {
         List<String> stringRepresentation = new ArrayList<>();
         stringRepresentation.add(this.toString());
@@ -20,6 +20,7 @@ public class MethodBodyObject {
         for (PsiStatement statement : statements) {
             processStatement(compositeStatement, statement);
         }
+        compositeStatement.compact();
     }
 
     public CompositeStatementObject getCompositeStatement() {
@@ -2,6 +2,7 @@ package org.jetbrains.research.intellijdeodorant.core.ast.decomposition;
 
 import com.intellij.psi.*;
 import org.jetbrains.research.intellijdeodorant.core.ast.util.ExpressionExtractor;
+import org.jetbrains.research.intellijdeodorant.core.ast.util.ExtractedExpressions;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -25,16 +26,14 @@ public class StatementObject extends AbstractStatement {
     public StatementObject(PsiStatement statement, StatementType type, AbstractMethodFragment parent) {
         super(statement, type, parent);
 
-        ExpressionExtractor expressionExtractor = new ExpressionExtractor();
-        List<PsiExpression> assignments = expressionExtractor.getAssignments(statement);
-        List<PsiExpression> postfixExpressions = expressionExtractor.getPostfixExpressions(statement);
-        List<PsiExpression> prefixExpressions = expressionExtractor.getPrefixExpressions(statement);
-        processVariables(expressionExtractor.getVariableInstructions(statement), assignments, postfixExpressions, prefixExpressions);
+        ExtractedExpressions expressions = new ExpressionExtractor().getAllExpressions(statement);
+        processVariables(expressions.getVariableInstructions(), expressions.getAssignments(),
+                expressions.getPostfixExpressions(), expressions.getPrefixExpressions());
         processLocalVariableDeclaration(statement);
-        processMethodInvocations(expressionExtractor.getMethodInvocations(statement));
-        processClassInstanceCreations(expressionExtractor.getClassInstanceCreations(statement));
-        processArrayCreations(expressionExtractor.getArrayCreations(statement));
-        processLiterals(expressionExtractor.getLiterals(statement));
+        processMethodInvocations(expressions.getMethodInvocations());
+        processClassInstanceCreations(expressions.getClassInstanceCreations());
+        processArrayCreations(expressions.getArrayCreations());
+        processLiterals(expressions.getLiterals());
         if (statement instanceof PsiThrowStatement) {
             processThrowStatement((PsiThrowStatement) statement);
         }
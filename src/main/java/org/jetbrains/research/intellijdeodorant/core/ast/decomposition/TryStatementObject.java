@@ -53,6 +53,19 @@ public class TryStatementObject extends CompositeStatementObject {
         return expressions;
     }
 
+    void compact() {
+        super.compact();
+        for (CatchClauseObject catchClause : catchClauses) {
+            catchClause.getBody().compact();
+            for (AbstractExpression expression : catchClause.getExpressions()) {
+                expression.compact();
+            }
+        }
+        if (finallyClause != null) {
+            finallyClause.compact();
+        }
+    }
+
     public List<String> stringRepresentation() {
         SmartList<String> stringRepresentation = new SmartList<>(super.stringRepresentation());
         for (CatchClauseObject catchClause : catchClauses) {
@@ -2,6 +2,8 @@ package org.jetbrains.research.intellijdeodorant.core.ast.decomposition.cfg;
 
 import com.intellij.psi.*;
 import com.sun.istack.NotNull;
+import org.jetbrains.research.intellijdeodorant.utils.PsiElementHandle;
+import org.jetbrains.research.intellijdeodorant.utils.PsiMethodHandle;
 
 import java.util.*;
 
@@ -9,17 +11,20 @@ import static org.jetbrains.research.intellijdeodorant.utils.PsiUtils.*;
 
 public class ASTSlice {
     @NotNull
-    private final SmartPsiElementPointer<PsiElement> sourceTypeDeclaration;
+    private final PsiMethodHandle sourceMethodDeclaration;
     @NotNull
-    private final SmartPsiElementPointer<PsiElement> sourceMethodDeclaration;
+    private PsiElementHandle<PsiStatement> variableCriterionDeclarationStatement;
     @NotNull
-    private SmartPsiElementPointer<PsiElement> variableCriterionDeclarationStatement;
-    @NotNull
-    private final SmartPsiElementPointer<PsiElement> extractedMethodInvocationInsertionStatement;
-    private SmartPsiElementPointer<PsiElement> localVariableCriterion;
+    private final PsiElementHandle<PsiStatement> extractedMethodInvocationInsertionStatement;
+    private PsiElementHandle<PsiVariable> localVariableCriterion;
+    //name of the variable criterion when it is a field, which is looked up in the class if the file has changed
+    private String fieldCriterionName;
+    //created when the slice is opened or extracted, to follow the method and the criterion through later edits
+    private volatile SmartPsiElementPointer<PsiElement> sourceMethodPointer;
+    private volatile SmartPsiElementPointer<PsiElement> localVariableCriterionPointer;
     private final Set<PDGNode> sliceNodes;
-    private final Set<SmartPsiElementPointer<PsiElement>> sliceStatements;
-    private final Set<SmartPsiElementPointer<PsiElement>> removableStatements;
+    private final Set<PsiElementHandle<PsiStatement>> sliceStatements;
+    private final Set<PsiElementHandle<PsiStatement>> removableStatements;
     private final BasicBlock boundaryBlock;
     private final int originalMethodLinesCount;
     private final int originalMethodStatementsCount;
@@ -27,29 +32,30 @@ public class ASTSlice {
     private final String qualifiedMethodName;
 
     public ASTSlice(PDGSliceUnion pdgSliceUnion) {
-        this.sourceMethodDeclaration = toPointer(pdgSliceUnion.getMethod().getMethodDeclaration());
-        this.sourceTypeDeclaration = toPointer(sourceMethodDeclaration.getElement().getParent());
+        this.sourceMethodDeclaration = pdgSliceUnion.getMethodHandle();
         this.sliceNodes = pdgSliceUnion.getSliceNodes();
         this.sliceStatements = new LinkedHashSet<>();
         for (PDGNode node : sliceNodes) {
-            sliceStatements.add(toPointer(node.getASTStatement()));
+            sliceStatements.add(PsiElementHandle.of(node.getASTStatement(), sourceMethodDeclaration));
         }
         this.removableStatements = new LinkedHashSet<>();
         for (PDGNode node : pdgSliceUnion.getRemovableNodes()) {
-            removableStatements.add(toPointer(node.getASTStatement()));
+            removableStatements.add(PsiElementHandle.of(node.getASTStatement(), sourceMethodDeclaration));
         }
         Set<PsiVariable> variableDeclarationsAndAccessedFields = pdgSliceUnion.getVariableDeclarationsAndAccessedFieldsInMethod();
         AbstractVariable criterion = pdgSliceUnion.getLocalVariableCriterion();
         for (PsiVariable variableDeclaration : variableDeclarationsAndAccessedFields) {
             if (variableDeclaration.equals(criterion.getOrigin())) {
-                this.localVariableCriterion = toPointer(variableDeclaration);
+                setLocalVariableCriterion(variableDeclaration);
                 break;
             }
         }
         PDGNode declarationOfVariableCriterionNode = pdgSliceUnion.getDeclarationOfVariableCriterion();
         if (declarationOfVariableCriterionNode != null)
-            this.variableCriterionDeclarationStatement = toPointer(declarationOfVariableCriterionNode.getASTStatement());
-        this.extractedMethodInvocationInsertionStatement = toPointer(pdgSliceUnion.getExtractedMethodInvocationInsertionNode().getASTStatement());
+            this.variableCriterionDeclarationStatement = PsiElementHandle.of(declarationOfVariableCriterionNode.getASTStatement(),
+                    sourceMethodDeclaration);
+        this.extractedMethodInvocationInsertionStatement = PsiElementHandle.of(
+                pdgSliceUnion.getExtractedMethodInvocationInsertionNode().getASTStatement(), sourceMethodDeclaration);
         this.boundaryBlock = pdgSliceUnion.getBoundaryBlock();
         this.originalMethodLinesCount = getNumberOfLinesInMethod(pdgSliceUnion.getMethod().getMethodDeclaration());
         this.originalMethodStatementsCount = getMethodStatementCount(pdgSliceUnion.getMethod().getMethodDeclaration());
@@ -58,29 +64,30 @@ public class ASTSlice {
     }
 
     public ASTSlice(PDGObjectSliceUnion pdgObjectSliceUnion) {
-        this.sourceMethodDeclaration = toPointer(pdgObjectSliceUnion.getMethod().getMethodDeclaration());
-        this.sourceTypeDeclaration = toPointer(sourceMethodDeclaration.getElement().getParent());
+        this.sourceMethodDeclaration = pdgObjectSliceUnion.getMethodHandle();
         this.sliceNodes = pdgObjectSliceUnion.getSliceNodes();
         this.sliceStatements = new LinkedHashSet<>();
         for (PDGNode node : sliceNodes) {
-            sliceStatements.add(toPointer(node.getASTStatement()));
+            sliceStatements.add(PsiElementHandle.of(node.getASTStatement(), sourceMethodDeclaration));
         }
         this.removableStatements = new LinkedHashSet<>();
         for (PDGNode node : pdgObjectSliceUnion.getRemovableNodes()) {
-            removableStatements.add(toPointer(node.getASTStatement()));
+            removableStatements.add(PsiElementHandle.of(node.getASTStatement(), sourceMethodDeclaration));
         }
         Set<PsiVariable> variableDeclarationsAndAccessedFields = pdgObjectSliceUnion.getVariableDeclarationsAndAccessedFieldsInMethod();
         AbstractVariable criterion = pdgObjectSliceUnion.getObjectReference();
         for (PsiVariable variableDeclaration : variableDeclarationsAndAccessedFields) {
             if (variableDeclaration.equals(criterion.getOrigin())) {
-                this.localVariableCriterion = toPointer(variableDeclaration);
+                setLocalVariableCriterion(variableDeclaration);
                 break;
             }
         }
         PDGNode declarationOfObjectReferenceNode = pdgObjectSliceUnion.getDeclarationOfObjectReference();
         if (declarationOfObjectReferenceNode != null)
-            this.variableCriterionDeclarationStatement = toPointer(declarationOfObjectReferenceNode.getASTStatement());
-        this.extractedMethodInvocationInsertionStatement = toPointer(pdgObjectSliceUnion.getExtractedMethodInvocationInsertionNode().getASTStatement());
+            this.variableCriterionDeclarationStatement = PsiElementHandle.of(declarationOfObjectReferenceNode.getASTStatement(),
+                    sourceMethodDeclaration);
+        this.extractedMethodInvocationInsertionStatement = PsiElementHandle.of(
+                pdgObjectSliceUnion.getExtractedMethodInvocationInsertionNode().getASTStatement(), sourceMethodDeclaration);
         this.boundaryBlock = pdgObjectSliceUnion.getBoundaryBlock();
         this.originalMethodLinesCount = getNumberOfLinesInMethod(pdgObjectSliceUnion.getMethod().getMethodDeclaration());
         this.originalMethodStatementsCount = getMethodStatementCount(pdgObjectSliceUnion.getMethod().getMethodDeclaration());
@@ -88,6 +95,32 @@ public class ASTSlice {
         this.qualifiedMethodName = getHumanReadableName(pdgObjectSliceUnion.getMethod().getMethodDeclaration());
     }
 
+    private void setLocalVariableCriterion(PsiVariable variableDeclaration) {
+        if (variableDeclaration instanceof PsiField) {
+            this.localVariableCriterion = PsiElementHandle.of(variableDeclaration);
+            this.fieldCriterionName = variableDeclaration.getName();
+        } else {
+            this.localVariableCriterion = PsiElementHandle.of(variableDeclaration, sourceMethodDeclaration);
+        }
+    }
+
+    /**
+     * Creates smart pointers to the method and the variable criterion, so that they are still found after the method
+     * has been edited. They are created only for the slices that are opened or extracted, not for every candidate.
+     */
+    public void createSmartPointers() {
+        if (sourceMethodPointer == null) {
+            PsiVariable variable = getLocalVariableCriterion();
+            if (variable != null) {
+                localVariableCriterionPointer = toPointer(variable);
+            }
+            PsiMethod method = sourceMethodDeclaration.getElement();
+            if (method != null) {
+                sourceMethodPointer = toPointer(method);
+            }
+        }
+    }
+
     public boolean isVariableCriterionDeclarationStatementIsDeeperNestedThanExtractedMethodInvocationInsertionStatement() {
         PsiStatement variableCriterionDeclarationStatement = getVariableCriterionDeclarationStatement();
         if (variableCriterionDeclarationStatement != null) {
@@ -113,35 +146,51 @@ public class ASTSlice {
     }
 
     public PsiClass getSourceTypeDeclaration() {
-        return (PsiClass) sourceTypeDeclaration.getElement();
+        PsiMethod method = getSourceMethodDeclaration();
+        return method == null ? null : method.getContainingClass();
     }
 
     public PsiMethod getSourceMethodDeclaration() {
-        return (PsiMethod) sourceMethodDeclaration.getElement();
+        SmartPsiElementPointer<PsiElement> pointer = sourceMethodPointer;
+        if (pointer != null) {
+            return (PsiMethod) pointer.getElement();
+        }
+        return sourceMethodDeclaration.getElement();
     }
 
     public PsiVariable getLocalVariableCriterion() {
-        return (PsiVariable) localVariableCriterion.getElement();
+        SmartPsiElementPointer<PsiElement> pointer = localVariableCriterionPointer;
+        if (pointer != null) {
+            return (PsiVariable) pointer.getElement();
+        }
+        PsiVariable variable = localVariableCriterion == null ? null : localVariableCriterion.getElement();
+        if (variable == null && fieldCriterionName != null) {
+            PsiClass sourceTypeDeclaration = getSourceTypeDeclaration();
+            if (sourceTypeDeclaration != null) {
+                variable = sourceTypeDeclaration.findFieldByName(fieldCriterionName, true);
+            }
+        }
+        return variable;
     }
 
     public Set<PDGNode> getSliceNodes() {
         return sliceNodes;
     }
 
-    public Set<SmartPsiElementPointer<PsiElement>> getSliceStatements() {
+    public Set<PsiElementHandle<PsiStatement>> getSliceStatements() {
         return sliceStatements;
     }
 
-    private Set<SmartPsiElementPointer<PsiElement>> getRemovableStatements() {
+    private Set<PsiElementHandle<PsiStatement>> getRemovableStatements() {
         return removableStatements;
     }
 
     private PsiStatement getVariableCriterionDeclarationStatement() {
-        return variableCriterionDeclarationStatement == null ? null : (PsiStatement) variableCriterionDeclarationStatement.getElement();
+        return variableCriterionDeclarationStatement == null ? null : variableCriterionDeclarationStatement.getElement();
     }
 
     private PsiStatement getExtractedMethodInvocationInsertionStatement() {
-        return (PsiStatement) extractedMethodInvocationInsertionStatement.getElement();
+        return extractedMethodInvocationInsertionStatement.getElement();
     }
 
     public BasicBlock getBoundaryBlock() {
@@ -176,15 +225,15 @@ public class ASTSlice {
     }
 
     /**
-     * Checks all {@link PsiStatement} from slice for availability.
+     * Checks all {@link PsiStatement} from slice for availability. The statements are found again after edits
+     * elsewhere in the file, as long as the method itself has not changed.
      *
      * @return true if all {@link PsiStatement} are valid, false otherwise.
      */
     public boolean areSliceStatementsValid() {
-        for (SmartPsiElementPointer<PsiElement> psiElementSmartPsiElementPointer : this.getSliceStatements()) {
-            if (psiElementSmartPsiElementPointer.getElement() == null ||
-                    psiElementSmartPsiElementPointer.getElement() instanceof PsiStatement
-                            && !psiElementSmartPsiElementPointer.getElement().isValid()) {
+        for (PsiElementHandle<PsiStatement> sliceStatement : this.getSliceStatements()) {
+            PsiStatement statement = sliceStatement.getElement();
+            if (statement == null || !statement.isValid()) {
                 return false;
             }
         }
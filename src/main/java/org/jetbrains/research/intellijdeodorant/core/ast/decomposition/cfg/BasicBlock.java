@@ -4,7 +4,6 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class BasicBlock {
-    private static int blockNum = 0;
     private final int id;
     private final CFGNode leader;
     private final List<CFGNode> nodes;
@@ -12,9 +11,8 @@ public class BasicBlock {
     private BasicBlock previousBasicBlock;
     private BasicBlock nextBasicBlock;
 
-    public BasicBlock(CFGNode node) {
-        blockNum++;
-        this.id = blockNum;
+    public BasicBlock(CFGNode node, int id) {
+        this.id = id;
         this.leader = node;
         node.setBasicBlock(this);
         this.nodes = new ArrayList<>();
@@ -77,10 +75,6 @@ public class BasicBlock {
         this.nextBasicBlock = nextBasicBlock;
     }
 
-    public static void resetBlockNum() {
-        blockNum = 0;
-    }
-
     public String toString() {
         return leader.toString() + nodes.toString();
     }
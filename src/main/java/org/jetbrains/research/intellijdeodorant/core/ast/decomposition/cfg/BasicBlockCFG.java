@@ -1,6 +1,7 @@
 package org.jetbrains.research.intellijdeodorant.core.ast.decomposition.cfg;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -11,6 +12,8 @@ import java.util.TreeSet;
 class BasicBlockCFG {
     private final List<BasicBlock> basicBlocks;
     private final Map<BasicBlock, Set<BasicBlock>> forwardReachableBlocks;
+    //indexes of the forward reachable blocks of each block, by block index
+    private BitSet[] reachabilityMatrix;
 
     BasicBlockCFG(CFG cfg) {
         this.basicBlocks = new ArrayList<>();
@@ -33,7 +36,7 @@ class BasicBlockCFG {
                     basicBlock.addTryNode(tryNode);
                 }
             } else if (cfgNode.isLeader()) {
-                BasicBlock basicBlock = new BasicBlock(cfgNode);
+                BasicBlock basicBlock = new BasicBlock(cfgNode, basicBlocks.size() + 1);
                 if (!basicBlocks.isEmpty()) {
                     BasicBlock previousBlock = basicBlocks.get(basicBlocks.size() - 1);
                     previousBlock.setNextBasicBlock(basicBlock);
@@ -55,7 +58,6 @@ class BasicBlockCFG {
                 }
             }
         }
-        BasicBlock.resetBlockNum();
     }
 
     public List<BasicBlock> getBasicBlocks() {
@@ -80,4 +82,33 @@ class BasicBlockCFG {
         forwardReachableBlocks.put(basicBlock, reachableBlocks);
         return reachableBlocks;
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the indexes of the blocks that are forward reachable from the block, including its own index.
+     * The index of a block is its position in {@link #getBasicBlocks()}.
+     */
+    BitSet forwardReachableBlockIndexes(BasicBlock basicBlock) {
+        if (reachabilityMatrix == null) {
+            reachabilityMatrix = new BitSet[basicBlocks.size()];
+        }
+        return computeForwardReachableBlockIndexes(basicBlock);
+    }
+
+    private BitSet computeForwardReachableBlockIndexes(BasicBlock basicBlock) {
+        int index = basicBlock.getId() - 1;
+        if (reachabilityMatrix[index] != null)
+            return reachabilityMatrix[index];
+        BitSet reachableBlocks = new BitSet(basicBlocks.size());
+        reachableBlocks.set(index);
+        CFGNode lastNode = basicBlock.getLastNode();
+        for (GraphEdge edge : lastNode.outgoingEdges) {
+            Flow flow = (Flow) edge;
+            if (!flow.isLoopbackFlow()) {
+                CFGNode dstNode = (CFGNode) flow.dst;
+                reachableBlocks.or(computeForwardReachableBlockIndexes(dstNode.getBasicBlock()));
+            }
+        }
+        reachabilityMatrix[index] = reachableBlocks;
+        return reachableBlocks;
+    }
+}
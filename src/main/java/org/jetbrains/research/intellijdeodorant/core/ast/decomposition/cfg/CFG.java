@@ -16,6 +16,7 @@ public class CFG extends Graph {
     private final Map<CFGBranchSwitchNode, List<CFGNode>> switchBreakMap;
     private final Map<CFGBlockNode, List<CFGNode>> directlyNestedNodesInBlocks;
     private BasicBlockCFG basicBlockCFG;
+    private int nodeNum;
 
     public CFG(AbstractMethodDeclaration method) {
         this.method = method;
@@ -26,11 +27,18 @@ public class CFG extends Graph {
         if (methodBody != null) {
             CompositeStatementObject composite = methodBody.getCompositeStatement();
             process(new ArrayList<>(), composite);
-            GraphNode.resetNodeNum();
             this.basicBlockCFG = new BasicBlockCFG(this);
         }
     }
 
+    /**
+     * Assigns the next id of this graph to the node. Ids start from 1 for every CFG.
+     */
+    private <T extends CFGNode> T numberNode(T node) {
+        node.id = ++nodeNum;
+        return node;
+    }
+
     public AbstractMethodDeclaration getMethod() {
         return method;
     }
@@ -49,7 +57,7 @@ public class CFG extends Graph {
 
     private List<CFGNode> process(List<CFGNode> previousNodes, CompositeStatementObject composite) {
         if (composite instanceof TryStatementObject) {
-            CFGTryNode tryNode = new CFGTryNode(composite);
+            CFGTryNode tryNode = numberNode(new CFGTryNode(composite));
             directlyNestedNodeInBlock(tryNode);
             findBlockNodeControlParent(tryNode);
             directlyNestedNodesInBlocks.put(tryNode, new ArrayList<>());
@@ -58,7 +66,7 @@ public class CFG extends Graph {
                 composite = (CompositeStatementObject) firstStatement;
             }
         } else if (composite instanceof SynchronizedStatementObject) {
-            CFGSynchronizedNode synchronizedNode = new CFGSynchronizedNode(composite);
+            CFGSynchronizedNode synchronizedNode = numberNode(new CFGSynchronizedNode(composite));
             directlyNestedNodeInBlock(synchronizedNode);
             findBlockNodeControlParent(synchronizedNode);
             directlyNestedNodesInBlocks.put(synchronizedNode, new ArrayList<>());
@@ -125,7 +133,7 @@ public class CFG extends Graph {
     }
 
     private List<CFGNode> processSynchronizedStatement(List<CFGNode> previousNodes, CompositeStatementObject compositeStatement) {
-        CFGSynchronizedNode synchronizedNode = new CFGSynchronizedNode(compositeStatement);
+        CFGSynchronizedNode synchronizedNode = numberNode(new CFGSynchronizedNode(compositeStatement));
         directlyNestedNodeInBlock(synchronizedNode);
         findBlockNodeControlParent(synchronizedNode);
         nodes.add(synchronizedNode);
@@ -145,7 +153,7 @@ public class CFG extends Graph {
         TryStatementObject tryStatement = (TryStatementObject) compositeStatement;
         if (!tryStatement.hasResources()) {
             //if a try node does not have resources, it is treated as a block and is omitted
-            CFGTryNode tryNode = new CFGTryNode(compositeStatement);
+            CFGTryNode tryNode = numberNode(new CFGTryNode(compositeStatement));
             //nodes.add(tryNode);
             directlyNestedNodeInBlock(tryNode);
             findBlockNodeControlParent(tryNode);
@@ -158,7 +166,7 @@ public class CFG extends Graph {
             }
         } else {
             //if a try node has resources, it is treated as a non-composite node
-            CFGTryNode tryNode = new CFGTryNode(compositeStatement);
+            CFGTryNode tryNode = numberNode(new CFGTryNode(compositeStatement));
             directlyNestedNodeInBlock(tryNode);
             findBlockNodeControlParent(tryNode);
             nodes.add(tryNode);
@@ -200,7 +208,7 @@ public class CFG extends Graph {
     private List<CFGNode> processDoStatement(List<CFGNode> previousNodes, CompositeStatementObject compositeStatement) {
         List<CFGNode> tmpNodes = previousNodes;
         previousNodes = process(previousNodes, compositeStatement);
-        CFGBranchNode currentNode = new CFGBranchDoLoopNode(compositeStatement);
+        CFGBranchNode currentNode = numberNode(new CFGBranchDoLoopNode(compositeStatement));
         nodes.add(currentNode);
         directlyNestedNodeInBlock(currentNode);
         createTopDownFlow(previousNodes, currentNode);
@@ -218,7 +226,7 @@ public class CFG extends Graph {
     }
 
     private List<CFGNode> processLoopStatement(List<CFGNode> previousNodes, CompositeStatementObject compositeStatement) {
-        CFGBranchNode currentNode = new CFGBranchLoopNode(compositeStatement);
+        CFGBranchNode currentNode = numberNode(new CFGBranchLoopNode(compositeStatement));
         nodes.add(currentNode);
         directlyNestedNodeInBlock(currentNode);
         createTopDownFlow(previousNodes, currentNode);
@@ -446,17 +454,17 @@ public class CFG extends Graph {
         CFGNode currentNode;
         PsiElement astStatement = statement.getStatement();
         if (astStatement instanceof PsiReturnStatement)
-            currentNode = new CFGExitNode(statement);
+            currentNode = numberNode(new CFGExitNode(statement));
         else if (astStatement instanceof PsiSwitchLabelStatement)
-            currentNode = new CFGSwitchCaseNode(statement);
+            currentNode = numberNode(new CFGSwitchCaseNode(statement));
         else if (astStatement instanceof PsiBreakStatement)
-            currentNode = new CFGBreakNode(statement);
+            currentNode = numberNode(new CFGBreakNode(statement));
         else if (astStatement instanceof PsiContinueStatement)
-            currentNode = new CFGContinueNode(statement);
+            currentNode = numberNode(new CFGContinueNode(statement));
         else if (astStatement instanceof PsiThrowStatement)
-            currentNode = new CFGThrowNode(statement);
+            currentNode = numberNode(new CFGThrowNode(statement));
         else
-            currentNode = new CFGNode(statement);
+            currentNode = numberNode(new CFGNode(statement));
         directlyNestedNodeInBlock(currentNode);
         return currentNode;
     }
@@ -499,7 +507,7 @@ public class CFG extends Graph {
     }
 
     private List<CFGNode> processSwitchStatement(List<CFGNode> previousNodes, CompositeStatementObject compositeStatement, int action) {
-        CFGBranchSwitchNode currentNode = new CFGBranchSwitchNode(compositeStatement);
+        CFGBranchSwitchNode currentNode = numberNode(new CFGBranchSwitchNode(compositeStatement));
         handleAction(currentNode, action);
         nodes.add(currentNode);
         directlyNestedNodeInBlock(currentNode);
@@ -521,7 +529,7 @@ public class CFG extends Graph {
     }
 
     private List<CFGNode> processIfStatement(List<CFGNode> previousNodes, CompositeStatementObject compositeStatement, int action) {
-        CFGBranchIfNode currentNode = new CFGBranchIfNode(compositeStatement);
+        CFGBranchIfNode currentNode = numberNode(new CFGBranchIfNode(compositeStatement));
         handleAction(currentNode, action);
         nodes.add(currentNode);
         directlyNestedNodeInBlock(currentNode);
@@ -0,0 +1,261 @@
+package org.jetbrains.research.intellijdeodorant.core.ast.decomposition.cfg;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Computes the data, anti and output dependences of a PDG over an indexed copy of the control flow of its nodes.
+ * <p>
+ * The loop-carried marker of a dependence is the loop of the first path that reaches its target in a depth-first
+ * search from its source, so the search order is kept: every node is searched once for each variable it defines
+ * or uses, in the order of its flows, and the same search gives the data, output and anti dependences of the node.
+ * The nodes and the variables are indexed once per PDG, and the nodes that define and use each variable are kept
+ * in bit sets, so the searches do not look up the variables of the nodes or allocate visited sets.
+ */
+class DataDependenceAnalysis {
+    private static final int NOT_LOOP_CARRIED = 0;
+    private static final int KEEP_LOOP = -1;
+
+    private final PDGMethodEntryNode entryNode;
+    private final List<PDGNode> nodes;
+    private final List<AbstractVariable> variables = new ArrayList<>();
+    private final Map<AbstractVariable, Integer> variableIndexes = new HashMap<>();
+    //loop of each loop marker, the marker 0 stands for a dependence that is not loop-carried
+    private final List<CFGBranchNode> loops = new ArrayList<>();
+    private final Map<CFGBranchNode, Integer> loopMarkers = new HashMap<>();
+    private final int[][] definedVariables;
+    private final int[][] usedVariables;
+    private final int[][] successors;
+    //loop marker that the flow to the successor assigns to the search, or KEEP_LOOP
+    private final int[][] successorLoopMarkers;
+    private final List<BitSet> definingNodes = new ArrayList<>();
+    private final List<BitSet> usingNodes = new ArrayList<>();
+    //search state, reused by all the searches
+    private final int[] visited;
+    private int search;
+    private final int[] stack;
+    private int[] reachedNodes = new int[16];
+    private int[] reachedLoopMarkers = new int[16];
+    private int reachedCount;
+
+    DataDependenceAnalysis(PDGMethodEntryNode entryNode, Collection<GraphNode> pdgNodes) {
+        this.entryNode = entryNode;
+        this.nodes = new ArrayList<>(pdgNodes.size());
+        Map<PDGNode, Integer> nodeIndexes = new HashMap<>();
+        for (GraphNode node : pdgNodes) {
+            PDGNode pdgNode = (PDGNode) node;
+            nodeIndexes.put(pdgNode, nodes.size());
+            nodes.add(pdgNode);
+        }
+        int nodesCount = nodes.size();
+        this.definedVariables = new int[nodesCount][];
+        this.usedVariables = new int[nodesCount][];
+        this.successors = new int[nodesCount][];
+        this.successorLoopMarkers = new int[nodesCount][];
+        for (AbstractVariable variable : entryNode.definedVariables) {
+            indexVariable(variable);
+        }
+        for (int i = 0; i < nodesCount; i++) {
+            PDGNode pdgNode = nodes.get(i);
+            definedVariables[i] = indexVariables(pdgNode.definedVariables);
+            usedVariables[i] = indexVariables(pdgNode.usedVariables);
+            for (int variable : definedVariables[i]) {
+                definingNodes.get(variable).set(i);
+            }
+            for (int variable : usedVariables[i]) {
+                usingNodes.get(variable).set(i);
+            }
+            List<GraphEdge> outgoingEdges = new ArrayList<>(pdgNode.getCFGNode().outgoingEdges);
+            int[] nodeSuccessors = new int[outgoingEdges.size()];
+            int[] nodeLoopMarkers = new int[outgoingEdges.size()];
+            int count = 0;
+            //as in the search, a loopback flow changes the loop for the following flows of the node as well
+            int loopMarker = KEEP_LOOP;
+            for (GraphEdge edge : outgoingEdges) {
+                Flow flow = (Flow) edge;
+                if (flow.isLoopbackFlow()) {
+                    if (flow.dst instanceof CFGBranchLoopNode)
+                        loopMarker = getLoopMarker((CFGBranchLoopNode) flow.dst);
+                    if (flow.src instanceof CFGBranchDoLoopNode)
+                        loopMarker = getLoopMarker((CFGBranchDoLoopNode) flow.src);
+                }
+                PDGNode dstPDGNode = ((CFGNode) flow.dst).getPDGNode();
+                Integer dstIndex = dstPDGNode == null ? null : nodeIndexes.get(dstPDGNode);
+                if (dstIndex != null) {
+                    nodeSuccessors[count] = dstIndex;
+                    nodeLoopMarkers[count] = loopMarker;
+                    count++;
+                }
+            }
+            successors[i] = Arrays.copyOf(nodeSuccessors, count);
+            successorLoopMarkers[i] = Arrays.copyOf(nodeLoopMarkers, count);
+        }
+        this.visited = new int[nodesCount];
+        this.stack = new int[3 * Math.max(nodesCount, 1)];
+    }
+
+    /**
+     * Creates the dependences and passes them to the consumer, in the order in which the searches from the entry node
+     * and from every node in turn find them.
+     */
+    void createDependences(Consumer<PDGDependence> dependenceConsumer) {
+        if (nodes.isEmpty()) {
+            return;
+        }
+        for (AbstractVariable variable : entryNode.definedVariables) {
+            int variableIndex = variableIndexes.get(variable);
+            reachedCount = 0;
+            //the entry node flows into the first node
+            reach(0, NOT_LOOP_CARRIED);
+            if (!definingNodes.get(variableIndex).get(0)) {
+                search(0, variableIndex);
+            }
+            createDataDependences(entryNode, variable, variableIndex, getReached(), dependenceConsumer);
+        }
+        Map<Integer, int[][]> searches = new HashMap<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            PDGNode srcNode = nodes.get(i);
+            searches.clear();
+            for (int variableIndex : definedVariables[i]) {
+                int[][] reached = search(i, variableIndex, searches);
+                AbstractVariable variable = variables.get(variableIndex);
+                createDataDependences(srcNode, variable, variableIndex, reached, dependenceConsumer);
+                for (int j = 0; j < reached[0].length; j++) {
+                    if (definingNodes.get(variableIndex).get(reached[0][j])) {
+                        dependenceConsumer.accept(new PDGOutputDependence(srcNode, nodes.get(reached[0][j]), variable,
+                                getLoop(reached[1][j])));
+                    }
+                }
+            }
+            for (int variableIndex : usedVariables[i]) {
+                int[][] reached = search(i, variableIndex, searches);
+                AbstractVariable variable = variables.get(variableIndex);
+                for (int j = 0; j < reached[0].length; j++) {
+                    if (definingNodes.get(variableIndex).get(reached[0][j])) {
+                        dependenceConsumer.accept(new PDGAntiDependence(srcNode, nodes.get(reached[0][j]), variable,
+                                getLoop(reached[1][j])));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the nodes reached by the search from the node for the variable and their loop markers,
+     * searching only once for a variable that the node both defines and uses.
+     */
+    private int[][] search(int node, int variable, Map<Integer, int[][]> searches) {
+        int[][] reached = searches.get(variable);
+        if (reached == null) {
+            reachedCount = 0;
+            search(node, variable);
+            reached = getReached();
+            searches.put(variable, reached);
+        }
+        return reached;
+    }
+
+    private void createDataDependences(PDGNode srcNode, AbstractVariable variable, int variableIndex, int[][] reached,
+                                       Consumer<PDGDependence> dependenceConsumer) {
+        boolean declaresVariable = srcNode.declaresLocalVariable(variable);
+        for (int j = 0; j < reached[0].length; j++) {
+            PDGNode dstNode = nodes.get(reached[0][j]);
+            if (usingNodes.get(variableIndex).get(reached[0][j])) {
+                dependenceConsumer.accept(new PDGDataDependence(srcNode, dstNode, variable, getLoop(reached[1][j])));
+            } else if (definingNodes.get(variableIndex).get(reached[0][j]) && declaresVariable && !srcNode.equals(dstNode)) {
+                //def-order data dependence
+                dependenceConsumer.accept(new PDGDataDependence(srcNode, dstNode, variable, getLoop(reached[1][j])));
+            }
+        }
+    }
+
+    /**
+     * Searches the flows from the node depth-first, in their order, and records every flow target with the loop
+     * marker of the path. The search does not continue through the nodes that define the variable,
+     * and visits every node once.
+     */
+    private void search(int startNode, int variable) {
+        search++;
+        BitSet killingNodes = definingNodes.get(variable);
+        //each frame holds the node, the loop marker of the path and the index of its next flow
+        int top = 0;
+        visited[startNode] = search;
+        stack[0] = startNode;
+        stack[1] = NOT_LOOP_CARRIED;
+        stack[2] = 0;
+        while (top >= 0) {
+            int node = stack[top];
+            int flow = stack[top + 2];
+            if (flow == successors[node].length) {
+                top -= 3;
+                continue;
+            }
+            stack[top + 2] = flow + 1;
+            if (successorLoopMarkers[node][flow] != KEEP_LOOP) {
+                stack[top + 1] = successorLoopMarkers[node][flow];
+            }
+            int loopMarker = stack[top + 1];
+            int successor = successors[node][flow];
+            reach(successor, loopMarker);
+            if (!killingNodes.get(successor) && visited[successor] != search) {
+                visited[successor] = search;
+                top += 3;
+                stack[top] = successor;
+                stack[top + 1] = loopMarker;
+                stack[top + 2] = 0;
+            }
+        }
+    }
+
+    /**
+     * Returns the nodes recorded by the last search and their loop markers.
+     */
+    private int[][] getReached() {
+        return new int[][]{Arrays.copyOf(reachedNodes, reachedCount), Arrays.copyOf(reachedLoopMarkers, reachedCount)};
+    }
+
+    private void reach(int node, int loopMarker) {
+        if (reachedCount == reachedNodes.length) {
+            reachedNodes = Arrays.copyOf(reachedNodes, reachedCount * 2);
+            reachedLoopMarkers = Arrays.copyOf(reachedLoopMarkers, reachedCount * 2);
+        }
+        reachedNodes[reachedCount] = node;
+        reachedLoopMarkers[reachedCount] = loopMarker;
+        reachedCount++;
+    }
+
+    private int getLoopMarker(CFGBranchNode loop) {
+        Integer marker = loopMarkers.get(loop);
+        if (marker == null) {
+            loops.add(loop);
+            marker = loops.size();
+            loopMarkers.put(loop, marker);
+        }
+        return marker;
+    }
+
+    private CFGBranchNode getLoop(int loopMarker) {
+        return loopMarker == NOT_LOOP_CARRIED ? null : loops.get(loopMarker - 1);
+    }
+
+    private int[] indexVariables(Set<AbstractVariable> nodeVariables) {
+        int[] indexes = new int[nodeVariables.size()];
+        int i = 0;
+        for (AbstractVariable variable : nodeVariables) {
+            indexes[i++] = indexVariable(variable);
+        }
+        return indexes;
+    }
+
+    private int indexVariable(AbstractVariable variable) {
+        Integer index = variableIndexes.get(variable);
+        if (index == null) {
+            index = variables.size();
+            variables.add(variable);
+            variableIndexes.put(variable, index);
+            definingNodes.add(new BitSet());
+            usingNodes.add(new BitSet());
+        }
+        return index;
+    }
+}
@@ -1,19 +1,18 @@
 package org.jetbrains.research.intellijdeodorant.core.ast.decomposition.cfg;
 
+import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
 public class GraphNode {
-    private static int nodeNum = 0;
     protected int id;
-    protected final Set<GraphEdge> incomingEdges;
-    protected final Set<GraphEdge> outgoingEdges;
+    //the edge sets are allocated when the first edge is added
+    protected Set<GraphEdge> incomingEdges;
+    protected Set<GraphEdge> outgoingEdges;
 
     GraphNode() {
-        nodeNum++;
-        this.id = nodeNum;
-        this.incomingEdges = new LinkedHashSet<>();
-        this.outgoingEdges = new LinkedHashSet<>();
+        this.incomingEdges = Collections.emptySet();
+        this.outgoingEdges = Collections.emptySet();
     }
 
     public int getId() {
@@ -21,14 +20,14 @@ public class GraphNode {
     }
 
     void addIncomingEdge(GraphEdge edge) {
+        if (incomingEdges.isEmpty())
+            incomingEdges = new LinkedHashSet<>(4);
         incomingEdges.add(edge);
     }
 
     void addOutgoingEdge(GraphEdge edge) {
+        if (outgoingEdges.isEmpty())
+            outgoingEdges = new LinkedHashSet<>(4);
         outgoingEdges.add(edge);
     }
-
-    static void resetNodeNum() {
-        nodeNum = 0;
-    }
 }
@@ -1,8 +1,8 @@
 package org.jetbrains.research.intellijdeodorant.core.ast.decomposition.cfg;
 
 import com.intellij.psi.*;
-import org.jetbrains.annotations.NotNull;
 import org.jetbrains.research.intellijdeodorant.core.ast.*;
+import org.jetbrains.research.intellijdeodorant.utils.PsiMethodHandle;
 
 import java.util.*;
 
@@ -12,8 +12,19 @@ public class PDG extends Graph {
     private final Map<CFGBranchNode, Set<CFGNode>> nestingMap;
     private final Set<VariableDeclarationObject> variableDeclarationsInMethod;
     private final Set<FieldObject> fieldsAccessedInMethod;
-    private final Map<PDGNode, Set<BasicBlock>> dominatedBlockMap;
+    private final Map<PDGNode, BitSet> dominatedBlockMap;
+    //boundary blocks of the nodes of each block, computed for all the blocks at once
+    private Map<BasicBlock, Set<BasicBlock>> boundaryBlockMap;
     private final PsiFile psiFile;
+    private PDGAdjacency adjacency;
+    private PDGSliceIndex sliceIndex;
+    private PsiMethodHandle methodHandle;
+    //nodes defining and using each variable, in the order of the nodes
+    private Map<AbstractVariable, Set<PDGNode>> definingNodeMap;
+    private Map<AbstractVariable, Set<PDGNode>> usingNodeMap;
+    //nodes defining the attributes of each reference
+    private Map<PlainVariable, Map<CompositeVariable, LinkedHashSet<PDGNode>>> definedAttributeMap;
+    private Map<CFGNode, PDGBlockNode> enclosingBlockNodeMap;
 
     public PDG(CFG cfg, PsiFile psiFile, Set<FieldObject> accessedFields) {
         this.cfg = cfg;
@@ -42,10 +53,42 @@ public class PDG extends Graph {
             createDataDependencies();
         }
         this.dominatedBlockMap = new LinkedHashMap<>();
-        GraphNode.resetNodeNum();
         handleSwitchCaseNodes();
         handleJumpNodes();
         handleThrowExceptionNodes();
+        createIndexes();
+    }
+
+    /**
+     * Indexes the nodes by the variables they define and use and by their enclosing block nodes,
+     * and the dependences by their nodes, once all the dependences have been created.
+     */
+    private void createIndexes() {
+        this.definingNodeMap = new HashMap<>();
+        this.usingNodeMap = new HashMap<>();
+        this.definedAttributeMap = new HashMap<>();
+        for (GraphNode node : nodes) {
+            PDGNode pdgNode = (PDGNode) node;
+            for (AbstractVariable definedVariable : pdgNode.definedVariables) {
+                definingNodeMap.computeIfAbsent(definedVariable, variable -> new LinkedHashSet<>()).add(pdgNode);
+                if (definedVariable instanceof CompositeVariable) {
+                    CompositeVariable compositeVariable = (CompositeVariable) definedVariable;
+                    definedAttributeMap.computeIfAbsent(compositeVariable.getInitialVariable(), reference -> new LinkedHashMap<>())
+                            .computeIfAbsent(compositeVariable, variable -> new LinkedHashSet<>()).add(pdgNode);
+                }
+            }
+            for (AbstractVariable usedVariable : pdgNode.usedVariables) {
+                usingNodeMap.computeIfAbsent(usedVariable, variable -> new LinkedHashSet<>()).add(pdgNode);
+            }
+        }
+        this.enclosingBlockNodeMap = new HashMap<>();
+        Map<CFGBlockNode, List<CFGNode>> directlyNestedNodesInBlocks = cfg.getDirectlyNestedNodesInBlocks();
+        for (CFGBlockNode blockNode : directlyNestedNodesInBlocks.keySet()) {
+            for (CFGNode nestedNode : directlyNestedNodesInBlocks.get(blockNode)) {
+                enclosingBlockNodeMap.putIfAbsent(nestedNode, (PDGBlockNode) blockNode.getPDGNode());
+            }
+        }
+        this.adjacency = new PDGAdjacency(this);
     }
 
     public PDGMethodEntryNode getEntryNode() {
@@ -77,14 +120,7 @@ public class PDG extends Graph {
     }
 
     private PDGBlockNode isDirectlyNestedWithinBlockNode(PDGNode node) {
-        Map<CFGBlockNode, List<CFGNode>> directlyNestedNodesInBlocks = cfg.getDirectlyNestedNodesInBlocks();
-        for (CFGBlockNode blockNode : directlyNestedNodesInBlocks.keySet()) {
-            List<CFGNode> nestedNodes = directlyNestedNodesInBlocks.get(blockNode);
-            if (nestedNodes.contains(node.getCFGNode())) {
-                return (PDGBlockNode) blockNode.getPDGNode();
-            }
-        }
-        return null;
+        return enclosingBlockNodeMap.get(node.getCFGNode());
     }
 
     public Set<PsiVariable> getVariableDeclarationsAndAccessedFieldsInMethod() {
@@ -100,22 +136,10 @@ public class PDG extends Graph {
 
     Map<CompositeVariable, LinkedHashSet<PDGNode>> getDefinedAttributesOfReference(PlainVariable reference) {
         Map<CompositeVariable, LinkedHashSet<PDGNode>> definedPropertiesMap = new LinkedHashMap<>();
-        for (GraphNode node : nodes) {
-            PDGNode pdgNode = (PDGNode) node;
-            for (AbstractVariable definedVariable : pdgNode.definedVariables) {
-                if (definedVariable instanceof CompositeVariable) {
-                    CompositeVariable compositeVariable = (CompositeVariable) definedVariable;
-                    if (compositeVariable.getInitialVariable().equals(reference)) {
-                        if (definedPropertiesMap.containsKey(compositeVariable)) {
-                            LinkedHashSet<PDGNode> nodeCriteria = definedPropertiesMap.get(compositeVariable);
-                            nodeCriteria.add(pdgNode);
-                        } else {
-                            LinkedHashSet<PDGNode> nodeCriteria = new LinkedHashSet<>();
-                            nodeCriteria.add(pdgNode);
-                            definedPropertiesMap.put(compositeVariable, nodeCriteria);
-                        }
-                    }
-                }
+        Map<CompositeVariable, LinkedHashSet<PDGNode>> definedAttributes = definedAttributeMap.get(reference);
+        if (definedAttributes != null) {
+            for (CompositeVariable compositeVariable : definedAttributes.keySet()) {
+                definedPropertiesMap.put(compositeVariable, new LinkedHashSet<>(definedAttributes.get(compositeVariable)));
             }
         }
         return definedPropertiesMap;
@@ -123,15 +147,26 @@ public class PDG extends Graph {
 
     Set<PDGNode> getAssignmentNodesOfVariableCriterion(AbstractVariable localVariableCriterion) {
         Set<PDGNode> nodeCriteria = new LinkedHashSet<>();
-        for (GraphNode node : nodes) {
-            PDGNode pdgNode = (PDGNode) node;
-            if (pdgNode.definesLocalVariable(localVariableCriterion) &&
-                    !pdgNode.declaresLocalVariable(localVariableCriterion))
+        for (PDGNode pdgNode : getDefiningNodes(localVariableCriterion)) {
+            if (!pdgNode.declaresLocalVariable(localVariableCriterion))
                 nodeCriteria.add(pdgNode);
         }
         return nodeCriteria;
     }
 
+    Set<PDGNode> getDefiningNodes(AbstractVariable variable) {
+        return Collections.unmodifiableSet(definingNodeMap.getOrDefault(variable, Collections.emptySet()));
+    }
+
+    Set<PDGNode> getUsingNodes(AbstractVariable variable) {
+        return Collections.unmodifiableSet(usingNodeMap.getOrDefault(variable, Collections.emptySet()));
+    }
+
+    List<PDGDependence> getIncomingDependences(PDGNode node, PDGDependenceType type) {
+        int id = adjacency.getId(node);
+        return id < 0 ? Collections.emptyList() : adjacency.getIncomingDependences(type).get(id);
+    }
+
     private void handleThrowExceptionNodes() {
         for (GraphNode node : this.nodes) {
             PDGNode pdgNode = (PDGNode) node;
@@ -485,31 +520,19 @@ public class PDG extends Graph {
     }
 
     private void createDataDependencies() {
-        PDGNode firstPDGNode = (PDGNode) nodes.toArray()[0];
-        createDataDependenciesFromEntryNode(firstPDGNode);
-        for (GraphNode node : nodes) {
-            PDGNode pdgNode = (PDGNode) node;
-            for (AbstractVariable variableInstruction : pdgNode.definedVariables) {
-                dataDependenceSearch(pdgNode, variableInstruction, pdgNode, new LinkedHashSet<>(), null);
-                outputDependenceSearch(pdgNode, variableInstruction, pdgNode, new LinkedHashSet<>(), null);
-            }
-            for (AbstractVariable variableInstruction : pdgNode.usedVariables) {
-                antiDependenceSearch(pdgNode, variableInstruction, pdgNode, new LinkedHashSet<>(), null);
-            }
-        }
+        new DataDependenceAnalysis(entryNode, nodes).createDependences(edges::add);
     }
 
-    private void createDataDependenciesFromEntryNode(PDGNode pdgNode) {
+    private void createDataDependenciesFromEntryNode(PDGBlockNode blockNode) {
+        //the block node has no flows, so only its direct dependences on the parameters are created
         for (AbstractVariable variableInstruction : entryNode.definedVariables) {
-            if (pdgNode.usesLocalVariable(variableInstruction)) {
-                PDGDataDependence dataDependence = new PDGDataDependence(entryNode, pdgNode, variableInstruction, null);
+            if (blockNode.usesLocalVariable(variableInstruction)) {
+                PDGDataDependence dataDependence = new PDGDataDependence(entryNode, blockNode, variableInstruction, null);
                 edges.add(dataDependence);
             }
-            if (!pdgNode.definesLocalVariable(variableInstruction)) {
-                dataDependenceSearch(entryNode, variableInstruction, pdgNode, new LinkedHashSet<>(), null);
-            } else if (entryNode.declaresLocalVariable(variableInstruction)) {
+            if (blockNode.definesLocalVariable(variableInstruction) && entryNode.declaresLocalVariable(variableInstruction)) {
                 //create def-order data dependence edge
-                PDGDataDependence dataDependence = new PDGDataDependence(entryNode, pdgNode, variableInstruction, null);
+                PDGDataDependence dataDependence = new PDGDataDependence(entryNode, blockNode, variableInstruction, null);
                 edges.add(dataDependence);
             }
         }
@@ -538,97 +561,6 @@ public class PDG extends Graph {
         }
     }
 
-    private void dataDependenceSearch(PDGNode initialNode, AbstractVariable variableInstruction,
-                                      PDGNode currentNode, Set<PDGNode> visitedNodes, CFGBranchNode loop) {
-        if (visitedNodes.contains(currentNode))
-            return;
-        else
-            visitedNodes.add(currentNode);
-        CFGNode currentCFGNode = currentNode.getCFGNode();
-        for (GraphEdge edge : currentCFGNode.outgoingEdges) {
-            Flow flow = (Flow) edge;
-            CFGNode srcCFGNode = (CFGNode) flow.src;
-            CFGNode dstCFGNode = (CFGNode) flow.dst;
-            if (flow.isLoopbackFlow()) {
-                if (dstCFGNode instanceof CFGBranchLoopNode)
-                    loop = (CFGBranchLoopNode) dstCFGNode;
-                if (srcCFGNode instanceof CFGBranchDoLoopNode)
-                    loop = (CFGBranchDoLoopNode) srcCFGNode;
-            }
-            PDGNode dstPDGNode = dstCFGNode.getPDGNode();
-            if (dstPDGNode != null) {
-                if (dstPDGNode.usesLocalVariable(variableInstruction)) {
-                    PDGDataDependence dataDependence = new PDGDataDependence(initialNode, dstPDGNode, variableInstruction, loop);
-                    edges.add(dataDependence);
-                }
-                if (!dstPDGNode.definesLocalVariable(variableInstruction)) {
-                    dataDependenceSearch(initialNode, variableInstruction, dstPDGNode, visitedNodes, loop);
-                } else if (initialNode.declaresLocalVariable(variableInstruction) && !initialNode.equals(dstPDGNode)) {
-                    //create def-order data dependence edge
-                    PDGDataDependence dataDependence = new PDGDataDependence(initialNode, dstPDGNode, variableInstruction, loop);
-                    edges.add(dataDependence);
-                }
-            }
-        }
-    }
-
-    private void antiDependenceSearch(PDGNode initialNode, AbstractVariable variableInstruction,
-                                      @NotNull PDGNode currentNode, Set<PDGNode> visitedNodes, CFGBranchNode loop) {
-        if (visitedNodes.contains(currentNode))
-            return;
-        else
-            visitedNodes.add(currentNode);
-        CFGNode currentCFGNode = currentNode.getCFGNode();
-        for (GraphEdge edge : currentCFGNode.outgoingEdges) {
-            Flow flow = (Flow) edge;
-            CFGNode srcCFGNode = (CFGNode) flow.src;
-            CFGNode dstCFGNode = (CFGNode) flow.dst;
-            if (flow.isLoopbackFlow()) {
-                if (dstCFGNode instanceof CFGBranchLoopNode)
-                    loop = (CFGBranchLoopNode) dstCFGNode;
-                if (srcCFGNode instanceof CFGBranchDoLoopNode)
-                    loop = (CFGBranchDoLoopNode) srcCFGNode;
-            }
-            PDGNode dstPDGNode = dstCFGNode.getPDGNode();
-            if (dstPDGNode != null) {
-                if (dstPDGNode.definesLocalVariable(variableInstruction)) {
-                    PDGAntiDependence antiDependence = new PDGAntiDependence(initialNode, dstPDGNode, variableInstruction, loop);
-                    edges.add(antiDependence);
-                } else {
-                    antiDependenceSearch(initialNode, variableInstruction, dstPDGNode, visitedNodes, loop);
-                }
-            }
-        }
-    }
-
-    private void outputDependenceSearch(PDGNode initialNode, AbstractVariable variableInstruction,
-                                        PDGNode currentNode, Set<PDGNode> visitedNodes, CFGBranchNode loop) {
-        if (visitedNodes.contains(currentNode))
-            return;
-        else
-            visitedNodes.add(currentNode);
-        CFGNode currentCFGNode = currentNode.getCFGNode();
-        for (GraphEdge edge : currentCFGNode.outgoingEdges) {
-            Flow flow = (Flow) edge;
-            CFGNode srcCFGNode = (CFGNode) flow.src;
-            CFGNode dstCFGNode = (CFGNode) flow.dst;
-            if (flow.isLoopbackFlow()) {
-                if (dstCFGNode instanceof CFGBranchLoopNode)
-                    loop = (CFGBranchLoopNode) dstCFGNode;
-                if (srcCFGNode instanceof CFGBranchDoLoopNode)
-                    loop = (CFGBranchDoLoopNode) srcCFGNode;
-            }
-            if (dstCFGNode != null) {
-                PDGNode dstPDGNode = dstCFGNode.getPDGNode();
-                if (dstPDGNode.definesLocalVariable(variableInstruction)) {
-                    PDGOutputDependence outputDependence = new PDGOutputDependence(initialNode, dstPDGNode, variableInstruction, loop);
-                    edges.add(outputDependence);
-                } else
-                    outputDependenceSearch(initialNode, variableInstruction, dstPDGNode, visitedNodes, loop);
-            }
-        }
-    }
-
     private List<BasicBlock> getBasicBlocks() {
         return cfg.getBasicBlocks();
     }
@@ -650,18 +582,21 @@ public class PDG extends Graph {
         return null;
     }
 
-    private Set<BasicBlock> dominatedBlocks(BasicBlock block) {
+    //returns the indexes of the blocks dominated by the node that directly dominates the leader of the block
+    private BitSet dominatedBlocks(BasicBlock block) {
         PDGNode pdgNode = directlyDominates(block);
-        if (dominatedBlockMap.containsKey(pdgNode)) {
-            return dominatedBlockMap.get(pdgNode);
-        } else {
-            Set<BasicBlock> dominatedBlocks = null;
+        BitSet dominatedBlocks = dominatedBlockMap.get(pdgNode);
+        if (dominatedBlocks == null) {
+            dominatedBlocks = new BitSet();
             if (pdgNode != null) {
-                dominatedBlocks = dominatedBlocks(pdgNode);
+                for (BasicBlock dominatedBlock : dominatedBlocks(pdgNode)) {
+                    if (dominatedBlock != null)
+                        dominatedBlocks.set(dominatedBlock.getId() - 1);
+                }
             }
             dominatedBlockMap.put(pdgNode, dominatedBlocks);
-            return dominatedBlocks;
         }
+        return dominatedBlocks;
     }
 
     private Set<BasicBlock> dominatedBlocks(PDGNode branchNode) {
@@ -681,17 +616,20 @@ public class PDG extends Graph {
     }
 
     Set<BasicBlock> boundaryBlocks(PDGNode node) {
-        Set<BasicBlock> boundaryBlocks = new LinkedHashSet<>();
-        BasicBlock srcBlock = node.getBasicBlock();
-        for (BasicBlock block : getBasicBlocks()) {
-            Set<BasicBlock> forwardReachableBlocks = forwardReachableBlocks(block);
-            Set<BasicBlock> dominatedBlocks = dominatedBlocks(block);
-            Set<BasicBlock> intersection = new LinkedHashSet<>(forwardReachableBlocks);
-            intersection.retainAll(dominatedBlocks);
-            if (intersection.contains(srcBlock))
-                boundaryBlocks.add(block);
+        if (boundaryBlockMap == null) {
+            boundaryBlockMap = new HashMap<>();
+            BasicBlockCFG basicBlockCFG = cfg.getBasicBlockCFG();
+            List<BasicBlock> basicBlocks = getBasicBlocks();
+            for (BasicBlock block : basicBlocks) {
+                BitSet intersection = (BitSet) basicBlockCFG.forwardReachableBlockIndexes(block).clone();
+                intersection.and(dominatedBlocks(block));
+                for (int i = intersection.nextSetBit(0); i >= 0; i = intersection.nextSetBit(i + 1)) {
+                    boundaryBlockMap.computeIfAbsent(basicBlocks.get(i), srcBlock -> new LinkedHashSet<>()).add(block);
+                }
+            }
         }
-        return boundaryBlocks;
+        Set<BasicBlock> boundaryBlocks = boundaryBlockMap.get(node.getBasicBlock());
+        return boundaryBlocks == null ? new LinkedHashSet<>() : new LinkedHashSet<>(boundaryBlocks);
     }
 
     Set<PDGNode> blockBasedRegion(BasicBlock block) {
@@ -706,6 +644,27 @@ public class PDG extends Graph {
         return regionNodes;
     }
 
+    PDGAdjacency getAdjacency() {
+        return adjacency;
+    }
+
+    PDGSliceIndex getSliceIndex() {
+        if (sliceIndex == null) {
+            sliceIndex = new PDGSliceIndex(this);
+        }
+        return sliceIndex;
+    }
+
+    /**
+     * Returns the handle of the method declaration, shared by all the slices of the method.
+     */
+    PsiMethodHandle getMethodHandle() {
+        if (methodHandle == null) {
+            methodHandle = PsiMethodHandle.of(getMethod().getMethodDeclaration());
+        }
+        return methodHandle;
+    }
+
     Set<AbstractVariable> getReturnedVariables() {
         Set<AbstractVariable> returnedVariables = new LinkedHashSet<>();
         for (GraphNode node : nodes) {
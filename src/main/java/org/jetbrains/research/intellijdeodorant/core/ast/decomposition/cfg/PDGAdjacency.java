@@ -0,0 +1,138 @@
+package org.jetbrains.research.intellijdeodorant.core.ast.decomposition.cfg;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact adjacency of a PDG, for the traversals that do not need the node and edge objects.
+ * <p>
+ * The nodes get dense ids, the method entry node being 0 and the other nodes following in the order of the PDG.
+ * The incoming and outgoing dependences of every type are kept in compressed sparse row form:
+ * the dependences of node {@code n} are at the positions from {@code offsets[n]} to {@code offsets[n + 1]}
+ * of the arrays of their other ends, of their loops and of the dependences themselves.
+ */
+class PDGAdjacency {
+    static final int NOT_LOOP_CARRIED = -1;
+    //the loop of the dependence is not a node of the PDG
+    static final int UNKNOWN_LOOP = -2;
+
+    private final PDGNode[] nodes;
+    private final Map<PDGNode, Integer> nodeIds;
+    private final Dependences[] incomingDependences;
+    private final Dependences[] outgoingDependences;
+
+    PDGAdjacency(PDG pdg) {
+        this.nodes = new PDGNode[pdg.nodes.size() + 1];
+        this.nodeIds = new HashMap<>(nodes.length * 2);
+        nodes[0] = pdg.getEntryNode();
+        nodeIds.put(nodes[0], 0);
+        int id = 1;
+        for (GraphNode node : pdg.nodes) {
+            nodes[id] = (PDGNode) node;
+            nodeIds.put(nodes[id], id);
+            id++;
+        }
+        PDGDependenceType[] types = PDGDependenceType.values();
+        int[][] incomingCounts = new int[types.length][nodes.length + 1];
+        int[][] outgoingCounts = new int[types.length][nodes.length + 1];
+        for (GraphEdge edge : pdg.edges) {
+            PDGDependence dependence = (PDGDependence) edge;
+            int type = dependence.getType().ordinal();
+            int src = getId((PDGNode) dependence.src);
+            int dst = getId((PDGNode) dependence.dst);
+            if (src >= 0 && dst >= 0) {
+                incomingCounts[type][dst + 1]++;
+                outgoingCounts[type][src + 1]++;
+            }
+        }
+        this.incomingDependences = new Dependences[types.length];
+        this.outgoingDependences = new Dependences[types.length];
+        for (int type = 0; type < types.length; type++) {
+            incomingDependences[type] = new Dependences(incomingCounts[type]);
+            outgoingDependences[type] = new Dependences(outgoingCounts[type]);
+        }
+        for (GraphEdge edge : pdg.edges) {
+            PDGDependence dependence = (PDGDependence) edge;
+            int type = dependence.getType().ordinal();
+            int src = getId((PDGNode) dependence.src);
+            int dst = getId((PDGNode) dependence.dst);
+            if (src >= 0 && dst >= 0) {
+                int loop = getLoop(dependence);
+                incomingDependences[type].add(dst, src, loop, dependence);
+                outgoingDependences[type].add(src, dst, loop, dependence);
+            }
+        }
+    }
+
+    int getNodeCount() {
+        return nodes.length;
+    }
+
+    /**
+     * Returns the id of the node, or -1 if it is not a node of the PDG.
+     */
+    int getId(PDGNode node) {
+        Integer id = nodeIds.get(node);
+        return id == null ? -1 : id;
+    }
+
+    PDGNode getNode(int id) {
+        return nodes[id];
+    }
+
+    Dependences getIncomingDependences(PDGDependenceType type) {
+        return incomingDependences[type.ordinal()];
+    }
+
+    Dependences getOutgoingDependences(PDGDependenceType type) {
+        return outgoingDependences[type.ordinal()];
+    }
+
+    private int getLoop(PDGDependence dependence) {
+        if (dependence instanceof PDGAbstractDataDependence) {
+            PDGAbstractDataDependence dataDependence = (PDGAbstractDataDependence) dependence;
+            if (dataDependence.isLoopCarried()) {
+                int loop = getId(dataDependence.getLoop().getPDGNode());
+                return loop >= 0 ? loop : UNKNOWN_LOOP;
+            }
+        }
+        return NOT_LOOP_CARRIED;
+    }
+
+    /**
+     * Dependences of one type and direction, grouped by node.
+     */
+    static class Dependences {
+        final int[] offsets;
+        //node at the other end of each dependence
+        final int[] nodes;
+        //loop of each dependence, or NOT_LOOP_CARRIED
+        final int[] loops;
+        final PDGDependence[] dependences;
+        private final int[] sizes;
+
+        private Dependences(int[] counts) {
+            this.offsets = counts;
+            for (int i = 1; i < offsets.length; i++) {
+                offsets[i] += offsets[i - 1];
+            }
+            this.nodes = new int[offsets[offsets.length - 1]];
+            this.loops = new int[nodes.length];
+            this.dependences = new PDGDependence[nodes.length];
+            this.sizes = new int[offsets.length - 1];
+        }
+
+        List<PDGDependence> get(int node) {
+            return Arrays.asList(Arrays.copyOfRange(dependences, offsets[node], offsets[node + 1]));
+        }
+
+        private void add(int node, int otherNode, int loop, PDGDependence dependence) {
+            int position = offsets[node] + sizes[node]++;
+            nodes[position] = otherNode;
+            loops[position] = loop;
+            dependences[position] = dependence;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiNewExpression;
 import com.intellij.psi.PsiVariable;
 import org.jetbrains.research.intellijdeodorant.core.ast.AbstractMethodDeclaration;
+import org.jetbrains.research.intellijdeodorant.utils.PsiMethodHandle;
 
 import java.util.LinkedHashSet;
 import java.util.Map;
@@ -214,6 +215,10 @@ public class PDGObjectSliceUnion {
         return method;
     }
 
+    PsiMethodHandle getMethodHandle() {
+        return pdg.getMethodHandle();
+    }
+
     public PsiFile getIFile() {
         return iFile;
     }
@@ -0,0 +1,145 @@
+package org.jetbrains.research.intellijdeodorant.core.ast.decomposition.cfg;
+
+import java.util.*;
+
+/**
+ * Index of a PDG for computing backward slices as bit set closures over its {@link PDGAdjacency}.
+ * <p>
+ * The region of every boundary block and the slices computed in it are memoised, so all the slice criteria
+ * of a method share the slices of the nodes they have in common.
+ */
+class PDGSliceIndex {
+    private final PDG pdg;
+    private final PDGAdjacency adjacency;
+    private final PDGAdjacency.Dependences dataDependences;
+    private final PDGAdjacency.Dependences controlDependences;
+    private final Map<BasicBlock, Region> regions = new HashMap<>();
+
+    PDGSliceIndex(PDG pdg) {
+        this.pdg = pdg;
+        this.adjacency = pdg.getAdjacency();
+        this.dataDependences = adjacency.getIncomingDependences(PDGDependenceType.DATA);
+        this.controlDependences = adjacency.getIncomingDependences(PDGDependenceType.CONTROL);
+    }
+
+    Region getRegion(BasicBlock boundaryBlock) {
+        return regions.computeIfAbsent(boundaryBlock, Region::new);
+    }
+
+    /**
+     * Nodes that are forward reachable from a boundary block, with the slices computed among them.
+     */
+    class Region {
+        private final Set<PDGNode> regionNodes;
+        private final BitSet nodeBits = new BitSet();
+        //memoised slice of each node, the slices of the nodes in a slice are included in it
+        private final BitSet[] slices = new BitSet[adjacency.getNodeCount()];
+
+        private Region(BasicBlock boundaryBlock) {
+            this.regionNodes = pdg.blockBasedRegion(boundaryBlock);
+            for (PDGNode node : regionNodes) {
+                int id = adjacency.getId(node);
+                if (id >= 0) {
+                    nodeBits.set(id);
+                }
+            }
+        }
+
+        Set<PDGNode> getNodes() {
+            return regionNodes;
+        }
+
+        boolean contains(PDGNode node) {
+            return regionNodes.contains(node);
+        }
+
+        boolean contains(PDGDependence dependence) {
+            if (!contains((PDGNode) dependence.src) || !contains((PDGNode) dependence.dst)) {
+                return false;
+            }
+            if (dependence instanceof PDGAbstractDataDependence) {
+                PDGAbstractDataDependence dataDependence = (PDGAbstractDataDependence) dependence;
+                return !dataDependence.isLoopCarried() || contains(dataDependence.getLoop().getPDGNode());
+            }
+            return true;
+        }
+
+        /**
+         * Returns the node and the nodes it depends on through data and control dependences within the region.
+         */
+        Set<PDGNode> getSlice(PDGNode node) {
+            int id = adjacency.getId(node);
+            if (id < 0) {
+                return new LinkedHashSet<>(Collections.singleton(node));
+            }
+            return toNodes(getSlice(id));
+        }
+
+        /**
+         * Returns the union of the slices of the nodes.
+         */
+        Set<PDGNode> getSlice(Collection<PDGNode> sliceNodes) {
+            BitSet slice = new BitSet();
+            Set<PDGNode> nodesOutsidePDG = new LinkedHashSet<>();
+            for (PDGNode node : sliceNodes) {
+                int id = adjacency.getId(node);
+                if (id < 0) {
+                    nodesOutsidePDG.add(node);
+                } else {
+                    slice.or(getSlice(id));
+                }
+            }
+            Set<PDGNode> result = toNodes(slice);
+            result.addAll(nodesOutsidePDG);
+            return result;
+        }
+
+        private BitSet getSlice(int node) {
+            if (slices[node] != null) {
+                return slices[node];
+            }
+            BitSet slice = new BitSet();
+            slice.set(node);
+            if (nodeBits.get(node)) {
+                ArrayDeque<Integer> stack = new ArrayDeque<>();
+                stack.push(node);
+                while (!stack.isEmpty()) {
+                    int current = stack.pop();
+                    addSources(current, dataDependences, slice, stack);
+                    addSources(current, controlDependences, slice, stack);
+                }
+            }
+            slices[node] = slice;
+            return slice;
+        }
+
+        /**
+         * Adds the sources of the dependences of the node within the region to the slice,
+         * and pushes the ones whose slices are not known yet.
+         */
+        private void addSources(int node, PDGAdjacency.Dependences dependences, BitSet slice, Deque<Integer> stack) {
+            for (int j = dependences.offsets[node]; j < dependences.offsets[node + 1]; j++) {
+                int source = dependences.nodes[j];
+                int loop = dependences.loops[j];
+                if (slice.get(source) || !nodeBits.get(source)
+                        || (loop != PDGAdjacency.NOT_LOOP_CARRIED && (loop < 0 || !nodeBits.get(loop)))) {
+                    continue;
+                }
+                if (slices[source] != null) {
+                    slice.or(slices[source]);
+                } else {
+                    slice.set(source);
+                    stack.push(source);
+                }
+            }
+        }
+
+        private Set<PDGNode> toNodes(BitSet slice) {
+            Set<PDGNode> sliceNodes = new LinkedHashSet<>();
+            for (int i = slice.nextSetBit(0); i >= 0; i = slice.nextSetBit(i + 1)) {
+                sliceNodes.add(adjacency.getNode(i));
+            }
+            return sliceNodes;
+        }
+    }
+}
@@ -1,106 +1,188 @@
 package org.jetbrains.research.intellijdeodorant.core.ast.decomposition.cfg;
 
+import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiVariable;
 
-import java.util.ArrayList;
-import java.util.LinkedHashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 
+/**
+ * Sets of reference variables that point to the same object.
+ * <p>
+ * The variables are identified by integer ids that are shared by all the copies of the set,
+ * and a copy shares the alias sets with the original until one of them is modified.
+ */
 class ReachingAliasSet {
-    private final List<LinkedHashSet<PsiVariable>> aliasSets;
+    private final VariableIds variableIds;
+    //variables of each alias set in the order they were added, the arrays are never modified
+    private int[][] aliasSets;
+    //index of the alias set of each variable, or -1
+    private int[] aliasSetIndexes;
+    private boolean shared;
 
     ReachingAliasSet() {
-        this.aliasSets = new ArrayList<>();
+        this(new VariableIds(), new int[0][], new int[0]);
     }
 
-    private ReachingAliasSet(List<LinkedHashSet<PsiVariable>> aliasSets) {
+    private ReachingAliasSet(VariableIds variableIds, int[][] aliasSets, int[] aliasSetIndexes) {
+        this.variableIds = variableIds;
         this.aliasSets = aliasSets;
+        this.aliasSetIndexes = aliasSetIndexes;
     }
 
     void insertAlias(PsiVariable leftHandSideReference, PsiVariable rightHandSideReference) {
-        boolean rightHandSideReferenceFound = false;
-        for (LinkedHashSet<PsiVariable> aliasSet : aliasSets) {
-            if (aliasSet.contains(rightHandSideReference)) {
-                rightHandSideReferenceFound = true;
-                aliasSet.add(leftHandSideReference);
-            }
+        int leftHandSideId = variableIds.getOrAdd(leftHandSideReference);
+        int rightHandSideId = variableIds.getOrAdd(rightHandSideReference);
+        if (leftHandSideId == rightHandSideId) {
+            return;
         }
-        if (!rightHandSideReferenceFound) {
-            LinkedHashSet<PsiVariable> aliasSet = new LinkedHashSet<>();
-            aliasSet.add(leftHandSideReference);
-            aliasSet.add(rightHandSideReference);
-            aliasSets.add(aliasSet);
-        }
-        List<LinkedHashSet<PsiVariable>> aliasSetsToBeRemoved = new ArrayList<>();
-        for (LinkedHashSet<PsiVariable> aliasSet : aliasSets) {
-            if (aliasSet.contains(leftHandSideReference)) {
-                if (!aliasSet.contains(rightHandSideReference))
-                    aliasSet.remove(leftHandSideReference);
-                if (aliasSet.size() == 1)
-                    aliasSetsToBeRemoved.add(aliasSet);
-            }
+        int rightHandSideSetIndex = getAliasSetIndex(rightHandSideId);
+        int leftHandSideSetIndex = getAliasSetIndex(leftHandSideId);
+        if (rightHandSideSetIndex >= 0 && rightHandSideSetIndex == leftHandSideSetIndex) {
+            return;
+        }
+        prepareForModification();
+        if (leftHandSideSetIndex >= 0) {
+            removeFromAliasSet(leftHandSideId, leftHandSideSetIndex);
+            rightHandSideSetIndex = getAliasSetIndex(rightHandSideId);
         }
-        for (LinkedHashSet<PsiVariable> aliasSet : aliasSetsToBeRemoved) {
-            aliasSets.remove(aliasSet);
+        if (rightHandSideSetIndex >= 0) {
+            int[] aliasSet = aliasSets[rightHandSideSetIndex];
+            int[] newAliasSet = Arrays.copyOf(aliasSet, aliasSet.length + 1);
+            newAliasSet[aliasSet.length] = leftHandSideId;
+            aliasSets[rightHandSideSetIndex] = newAliasSet;
+            setAliasSetIndex(leftHandSideId, rightHandSideSetIndex);
+        } else {
+            aliasSets = Arrays.copyOf(aliasSets, aliasSets.length + 1);
+            aliasSets[aliasSets.length - 1] = new int[]{leftHandSideId, rightHandSideId};
+            setAliasSetIndex(leftHandSideId, aliasSets.length - 1);
+            setAliasSetIndex(rightHandSideId, aliasSets.length - 1);
         }
     }
 
     void removeAlias(PsiVariable leftHandSideReference) {
-        List<LinkedHashSet<PsiVariable>> aliasSetsToBeRemoved = new ArrayList<>();
-        for (LinkedHashSet<PsiVariable> aliasSet : aliasSets) {
-            if (aliasSet.contains(leftHandSideReference)) {
-                aliasSet.remove(leftHandSideReference);
-                if (aliasSet.size() == 1)
-                    aliasSetsToBeRemoved.add(aliasSet);
-            }
-        }
-        for (LinkedHashSet<PsiVariable> aliasSet : aliasSetsToBeRemoved) {
-            aliasSets.remove(aliasSet);
+        int leftHandSideId = variableIds.get(leftHandSideReference);
+        int leftHandSideSetIndex = getAliasSetIndex(leftHandSideId);
+        if (leftHandSideSetIndex >= 0) {
+            prepareForModification();
+            removeFromAliasSet(leftHandSideId, leftHandSideSetIndex);
         }
     }
 
     boolean containsAlias(AbstractVariable variable) {
-        for (LinkedHashSet<PsiVariable> aliasSet : aliasSets) {
-            for (PsiVariable alias : aliasSet) {
-                if (alias.equals(variable.getOrigin()))
-                    return true;
-            }
-        }
-        return false;
+        return getAliasSetIndex(variableIds.get(variable.getOrigin())) >= 0;
     }
 
     Set<PsiVariable> getAliases(AbstractVariable variable) {
-        for (LinkedHashSet<PsiVariable> aliasSet : aliasSets) {
-            boolean containsVariable = false;
-            for (PsiVariable alias : aliasSet) {
-                if (alias.equals(variable.getOrigin())) {
-                    containsVariable = true;
-                    break;
-                }
+        int variableId = variableIds.get(variable.getOrigin());
+        int aliasSetIndex = getAliasSetIndex(variableId);
+        if (aliasSetIndex < 0) {
+            return null;
+        }
+        Set<PsiVariable> aliases = new LinkedHashSet<>();
+        for (int alias : aliasSets[aliasSetIndex]) {
+            if (alias != variableId)
+                aliases.add(variableIds.getVariable(alias));
+        }
+        return aliases;
+    }
+
+    ReachingAliasSet copy() {
+        shared = true;
+        ReachingAliasSet copy = new ReachingAliasSet(variableIds, aliasSets, aliasSetIndexes);
+        copy.shared = true;
+        return copy;
+    }
+
+    private int getAliasSetIndex(int variableId) {
+        return variableId >= 0 && variableId < aliasSetIndexes.length ? aliasSetIndexes[variableId] : -1;
+    }
+
+    private void setAliasSetIndex(int variableId, int aliasSetIndex) {
+        if (variableId >= aliasSetIndexes.length) {
+            int length = aliasSetIndexes.length;
+            aliasSetIndexes = Arrays.copyOf(aliasSetIndexes, Math.max(variableId + 1, length * 2));
+            Arrays.fill(aliasSetIndexes, length, aliasSetIndexes.length, -1);
+        }
+        aliasSetIndexes[variableId] = aliasSetIndex;
+    }
+
+    /**
+     * Removes the variable from its alias set, and the alias set itself if a single variable is left in it.
+     */
+    private void removeFromAliasSet(int variableId, int aliasSetIndex) {
+        int[] aliasSet = aliasSets[aliasSetIndex];
+        aliasSetIndexes[variableId] = -1;
+        if (aliasSet.length > 2) {
+            int[] newAliasSet = new int[aliasSet.length - 1];
+            int i = 0;
+            for (int alias : aliasSet) {
+                if (alias != variableId)
+                    newAliasSet[i++] = alias;
             }
-            if (containsVariable) {
-                Set<PsiVariable> aliases = new LinkedHashSet<>();
-                for (PsiVariable alias : aliasSet) {
-                    if (!alias.equals(variable.getOrigin()))
-                        aliases.add(alias);
-                }
-                return aliases;
+            aliasSets[aliasSetIndex] = newAliasSet;
+            return;
+        }
+        for (int alias : aliasSet) {
+            aliasSetIndexes[alias] = -1;
+        }
+        int[][] newAliasSets = new int[aliasSets.length - 1][];
+        System.arraycopy(aliasSets, 0, newAliasSets, 0, aliasSetIndex);
+        System.arraycopy(aliasSets, aliasSetIndex + 1, newAliasSets, aliasSetIndex, newAliasSets.length - aliasSetIndex);
+        aliasSets = newAliasSets;
+        for (int i = aliasSetIndex; i < aliasSets.length; i++) {
+            for (int alias : aliasSets[i]) {
+                aliasSetIndexes[alias] = i;
             }
         }
-        return null;
     }
 
-    ReachingAliasSet copy() {
-        List<LinkedHashSet<PsiVariable>> aliasSetsCopy = new ArrayList<>();
-        for (LinkedHashSet<PsiVariable> aliasSet : aliasSets) {
-            LinkedHashSet<PsiVariable> aliasSetCopy = new LinkedHashSet<>(aliasSet);
-            aliasSetsCopy.add(aliasSetCopy);
+    /**
+     * Stops sharing the alias sets with the other copies before they are modified.
+     */
+    private void prepareForModification() {
+        if (shared) {
+            aliasSets = aliasSets.clone();
+            aliasSetIndexes = aliasSetIndexes.clone();
+            shared = false;
         }
-        return new ReachingAliasSet(aliasSetsCopy);
     }
 
     public String toString() {
-        return aliasSets.toString();
+        List<List<PsiVariable>> aliasSetsList = new ArrayList<>(aliasSets.length);
+        for (int[] aliasSet : aliasSets) {
+            List<PsiVariable> aliasSetList = new ArrayList<>(aliasSet.length);
+            for (int alias : aliasSet) {
+                aliasSetList.add(variableIds.getVariable(alias));
+            }
+            aliasSetsList.add(aliasSetList);
+        }
+        return aliasSetsList.toString();
+    }
+
+    /**
+     * Ids of the variables that have been added to any copy of an alias set.
+     */
+    private static class VariableIds {
+        private final List<PsiVariable> variables = new ArrayList<>();
+        private final Map<PsiElement, Integer> ids = new HashMap<>();
+
+        private int get(PsiElement variable) {
+            Integer id = ids.get(variable);
+            return id == null ? -1 : id;
+        }
+
+        private int getOrAdd(PsiVariable variable) {
+            Integer id = ids.get(variable);
+            if (id == null) {
+                id = variables.size();
+                variables.add(variable);
+                ids.put(variable, id);
+            }
+            return id;
+        }
+
+        private PsiVariable getVariable(int id) {
+            return variables.get(id);
+        }
     }
 }
@@ -0,0 +1,12 @@
+package org.jetbrains.research.intellijdeodorant.core.ast.util;
+
+import com.intellij.psi.PsiExpression;
+
+/**
+ * Receives the expressions visited by {@link ExpressionExtractor} and keeps the ones it is interested in.
+ */
+abstract class ExpressionCollector {
+    abstract void add(PsiExpression expression);
+
+    abstract void addUnconditionally(PsiExpression expression);
+}
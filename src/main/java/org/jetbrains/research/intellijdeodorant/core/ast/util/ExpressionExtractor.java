@@ -3,297 +3,299 @@ package org.jetbrains.research.intellijdeodorant.core.ast.util;
 import com.intellij.psi.*;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 public class ExpressionExtractor {
 
-    private ExpressionInstanceChecker instanceChecker;
+    // returns the variable instructions, method invocations, class instance creations, array creations, literals,
+    // assignments, postfix and prefix expressions, collected in a single traversal
+    public ExtractedExpressions getAllExpressions(PsiStatement statement) {
+        ExtractedExpressions expressions = new ExtractedExpressions();
+        collectExpressions(statement, expressions);
+        return expressions;
+    }
+
+    // returns the variable instructions, method invocations, class instance creations, array creations, literals,
+    // assignments, postfix and prefix expressions, collected in a single traversal
+    public ExtractedExpressions getAllExpressions(PsiExpression expression) {
+        ExtractedExpressions expressions = new ExtractedExpressions();
+        collectExpressions(expression, expressions);
+        return expressions;
+    }
 
     // returns a List of Variable objects
     public List<PsiExpression> getVariableInstructions(PsiStatement statement) {
-        instanceChecker = new InstanceOfVariable();
-        return getExpressions(statement);
+        return getExpressions(statement, new InstanceOfVariable());
     }
 
     // returns a List of Variable objects
     public List<PsiExpression> getVariableInstructions(PsiStatement[] statement) {
-        instanceChecker = new InstanceOfVariable();
-        return getExpressions(statement);
+        return getExpressions(statement, new InstanceOfVariable());
     }
 
     // returns a List of Variable objects
     public List<PsiExpression> getVariableInstructions(PsiExpression expression) {
-        instanceChecker = new InstanceOfVariable();
-        return getExpressions(expression);
+        return getExpressions(expression, new InstanceOfVariable());
     }
 
     // returns a List of Variable objects
     public List<PsiExpression> getVariableInstructions(PsiExpression[] expression) {
-        instanceChecker = new InstanceOfVariable();
-        return getExpressions(expression);
+        return getExpressions(expression, new InstanceOfVariable());
     }
 
 
     // returns a List of MethodInvocation and SuperMethodInvocation objects
     public List<PsiExpression> getMethodInvocations(PsiStatement statement) {
-        instanceChecker = new InstanceOfMethodInvocation();
-        return getExpressions(statement);
+        return getExpressions(statement, new InstanceOfMethodInvocation());
     }
 
     // returns a List of SuperMethodInvocation objects
     public List<PsiExpression> getSuperMethodInvocations(PsiElement statement) {
-        instanceChecker = new InstanceOfSuperMethodInvocation();
-        return getExpressions(statement);
+        return getExpressions(statement, new InstanceOfSuperMethodInvocation());
     }
 
     // returns a List of MethodInvocation and SuperMethodInvocation objects
     public List<PsiExpression> getMethodInvocations(PsiExpression expression) {
-        instanceChecker = new InstanceOfMethodInvocation();
-        return getExpressions(expression);
+        return getExpressions(expression, new InstanceOfMethodInvocation());
     }
 
     // returns a List of SuperFieldAccess objects
     public List<PsiExpression> getSuperFieldAccesses(PsiElement statement) {
-        instanceChecker = new InstanceOfSuperFieldAccess();
-        return getExpressions(statement);
+        return getExpressions(statement, new InstanceOfSuperFieldAccess());
     }
 
     // returns a List of ClassInstanceCreation objects
     public List<PsiExpression> getClassInstanceCreations(PsiElement statement) {
-        instanceChecker = new InstanceOfClassInstanceCreation();
-        return getExpressions(statement);
+        return getExpressions(statement, new InstanceOfClassInstanceCreation());
     }
 
     // returns a List of ClassInstanceCreation objects
     public List<PsiExpression> getClassInstanceCreations(PsiStatement[] statement) {
-        instanceChecker = new InstanceOfClassInstanceCreation();
-        return getExpressions(statement);
+        return getExpressions(statement, new InstanceOfClassInstanceCreation());
     }
 
 
     // returns a List of ClassInstanceCreation objects
     public List<PsiExpression> getClassInstanceCreations(PsiExpression expression) {
-        instanceChecker = new InstanceOfClassInstanceCreation();
-        return getExpressions(expression);
+        return getExpressions(expression, new InstanceOfClassInstanceCreation());
     }
 
     // returns a List of ArrayCreation objects
     public List<PsiExpression> getArrayCreations(PsiStatement statement) {
-        instanceChecker = new InstanceOfArrayCreation();
-        return getExpressions(statement);
+        return getExpressions(statement, new InstanceOfArrayCreation());
     }
 
     // returns a List of ArrayCreation objects
     public List<PsiExpression> getArrayCreations(PsiExpression expression) {
-        instanceChecker = new InstanceOfArrayCreation();
-        return getExpressions(expression);
+        return getExpressions(expression, new InstanceOfArrayCreation());
     }
 
     // returns a List of ArrayAccess objects
     public List<PsiExpression> getArrayAccesses(PsiExpression expression) {
-        instanceChecker = new InstanceOfArrayAccess();
-        return getExpressions(expression);
+        return getExpressions(expression, new InstanceOfArrayAccess());
     }
 
     // returns a List of ThisExpression objects
     public List<PsiExpression> getThisExpressions(PsiExpression expression) {
-        instanceChecker = new InstanceOfThisExpression();
-        return getExpressions(expression);
+        return getExpressions(expression, new InstanceOfThisExpression());
     }
 
     // returns a List of Type, String, Boolean, Character, Number, and Null Literal objects
     public List<PsiExpression> getLiterals(PsiStatement statement) {
-        instanceChecker = new InstanceOfLiteral();
-        return getExpressions(statement);
+        return getExpressions(statement, new InstanceOfLiteral());
     }
 
     // returns a List of Type, String, Boolean, Character, Number, and Null Literal objects
     public List<PsiExpression> getLiterals(PsiExpression expression) {
-        instanceChecker = new InstanceOfLiteral();
-        return getExpressions(expression);
+        return getExpressions(expression, new InstanceOfLiteral());
     }
 
     // returns a List of CastExpression objects
     public List<PsiExpression> getCastExpressions(PsiStatement statement) {
-        instanceChecker = new InstanceOfCastExpression();
-        return getExpressions(statement);
+        return getExpressions(statement, new InstanceOfCastExpression());
     }
 
     // returns a List of InfixExpression objects
     public List<PsiExpression> getInfixExpressions(PsiStatement statement) {
-        instanceChecker = new InstanceOfInfixExpression();
-        return getExpressions(statement);
+        return getExpressions(statement, new InstanceOfInfixExpression());
     }
 
     // returns a List of Assignment objects
     public List<PsiExpression> getAssignments(PsiStatement statement) {
-        instanceChecker = new InstanceOfAssignment();
-        return getExpressions(statement);
+        return getExpressions(statement, new InstanceOfAssignment());
     }
 
     // returns a List of Assignment objects
     public List<PsiExpression> getAssignments(PsiExpression expression) {
-        instanceChecker = new InstanceOfAssignment();
-        return getExpressions(expression);
+        return getExpressions(expression, new InstanceOfAssignment());
     }
 
     // returns a List of PostfixExpression objects
     public List<PsiExpression> getPostfixExpressions(PsiStatement statement) {
-        instanceChecker = new InstanceOfPostfixExpression();
-        return getExpressions(statement);
+        return getExpressions(statement, new InstanceOfPostfixExpression());
     }
 
     // returns a List of PostfixExpression objects
     public List<PsiExpression> getPostfixExpressions(PsiStatement[] statement) {
-        instanceChecker = new InstanceOfPostfixExpression();
-        return getExpressions(statement);
+        return getExpressions(statement, new InstanceOfPostfixExpression());
     }
 
     // returns a List of PostfixExpression objects
     public List<PsiExpression> getPostfixExpressions(PsiExpression expression) {
-        instanceChecker = new InstanceOfPostfixExpression();
-        return getExpressions(expression);
+        return getExpressions(expression, new InstanceOfPostfixExpression());
     }
 
     // returns a List of PrefixExpression objects
     public List<PsiExpression> getPrefixExpressions(PsiStatement statement) {
-        instanceChecker = new InstanceOfPrefixExpression();
-        return getExpressions(statement);
+        return getExpressions(statement, new InstanceOfPrefixExpression());
     }
 
     // returns a List of PrefixExpression objects
     public List<PsiExpression> getPrefixExpressions(PsiStatement[] statement) {
-        instanceChecker = new InstanceOfPrefixExpression();
-        return getExpressions(statement);
+        return getExpressions(statement, new InstanceOfPrefixExpression());
     }
 
     // returns a List of PrefixExpression objects
     public List<PsiExpression> getPrefixExpressions(PsiExpression expression) {
-        instanceChecker = new InstanceOfPrefixExpression();
-        return getExpressions(expression);
+        return getExpressions(expression, new InstanceOfPrefixExpression());
+    }
+
+    private List<PsiExpression> getExpressions(PsiElement[] elements, ExpressionInstanceChecker instanceChecker) {
+        SingleCategoryCollector collector = new SingleCategoryCollector(instanceChecker);
+        collectExpressions(elements, collector);
+        return collector.expressionList;
     }
 
-    private List<PsiExpression> getExpressions(PsiElement[] elements) {
-        List<PsiExpression> result = new ArrayList<>();
+    private List<PsiExpression> getExpressions(PsiElement element, ExpressionInstanceChecker instanceChecker) {
+        SingleCategoryCollector collector = new SingleCategoryCollector(instanceChecker);
+        collectExpressions(element, collector);
+        return collector.expressionList;
+    }
+
+    private List<PsiExpression> getExpressions(PsiExpression expression, ExpressionInstanceChecker instanceChecker) {
+        SingleCategoryCollector collector = new SingleCategoryCollector(instanceChecker);
+        collectExpressions(expression, collector);
+        return collector.expressionList;
+    }
+
+    private void collectExpressions(PsiElement[] elements, ExpressionCollector collector) {
         for (PsiElement element : elements) {
             if (element instanceof PsiExpression) {
-                result.addAll(getExpressions((PsiExpression) element));
+                collectExpressions((PsiExpression) element, collector);
             } else {
-                result.addAll(getExpressions(element));
+                collectExpressions(element, collector);
             }
         }
-
-        return result;
     }
 
-    private List<PsiExpression> getExpressions(PsiElement element) {
-        List<PsiExpression> expressionList = new ArrayList<>();
+    private void collectExpressions(PsiElement element, ExpressionCollector collector) {
         if (element instanceof PsiCodeBlock) {
             PsiCodeBlock psiCodeBlock = (PsiCodeBlock) element;
             PsiStatement[] blockStatements = psiCodeBlock.getStatements();
             for (PsiStatement blockStatement : blockStatements)
-                expressionList.addAll(getExpressions(blockStatement));
+                collectExpressions(blockStatement, collector);
         } else if (element instanceof PsiBlockStatement) {
             PsiBlockStatement psiBlockStatement = (PsiBlockStatement) element;
             PsiCodeBlock psiCodeBlock = psiBlockStatement.getCodeBlock();
             PsiStatement[] blockStatements = psiCodeBlock.getStatements();
             for (PsiStatement blockStatement : blockStatements)
-                expressionList.addAll(getExpressions(blockStatement));
+                collectExpressions(blockStatement, collector);
         } else if (element instanceof PsiIfStatement) {
             PsiIfStatement ifStatement = (PsiIfStatement) element;
             PsiExpression expression = ifStatement.getCondition();
-            expressionList.addAll(getExpressions(expression));
-            expressionList.addAll(getExpressions(ifStatement.getThenBranch()));
+            collectExpressions(expression, collector);
+            collectExpressions(ifStatement.getThenBranch(), collector);
             if (ifStatement.getElseBranch() != null) {
-                expressionList.addAll(getExpressions(ifStatement.getElseBranch()));
+                collectExpressions(ifStatement.getElseBranch(), collector);
             }
         } else if (element instanceof PsiForStatement) {
             PsiForStatement forStatement = (PsiForStatement) element;
             PsiStatement initializer = forStatement.getInitialization();
-            expressionList.addAll(getExpressions(initializer));
+            collectExpressions(initializer, collector);
             PsiExpression expression = forStatement.getCondition();
             if (expression != null)
-                expressionList.addAll(getExpressions(expression));
+                collectExpressions(expression, collector);
             PsiStatement updater = forStatement.getUpdate();
-            expressionList.addAll(getExpressions(updater));
-            expressionList.addAll(getExpressions(forStatement.getBody()));
+            collectExpressions(updater, collector);
+            collectExpressions(forStatement.getBody(), collector);
         } else if (element instanceof PsiForeachStatement) {
             PsiForeachStatement enhancedForStatement = (PsiForeachStatement) element;
             PsiExpression expression = enhancedForStatement.getIteratedValue();
-            expressionList.addAll(getExpressions(expression));
-            expressionList.addAll(getExpressions(enhancedForStatement.getBody()));
-            expressionList.addAll(getExpressions(enhancedForStatement.getIterationParameter().getInitializer()));
+            collectExpressions(expression, collector);
+            collectExpressions(enhancedForStatement.getBody(), collector);
+            collectExpressions(enhancedForStatement.getIterationParameter().getInitializer(), collector);
         } else if (element instanceof PsiWhileStatement) {
             PsiWhileStatement whileStatement = (PsiWhileStatement) element;
             PsiExpression expression = whileStatement.getCondition();
-            expressionList.addAll(getExpressions(expression));
-            expressionList.addAll(getExpressions(whileStatement.getBody()));
+            collectExpressions(expression, collector);
+            collectExpressions(whileStatement.getBody(), collector);
         } else if (element instanceof PsiDoWhileStatement) {
             PsiDoWhileStatement doStatement = (PsiDoWhileStatement) element;
             PsiExpression expression = doStatement.getCondition();
-            expressionList.addAll(getExpressions(expression));
-            expressionList.addAll(getExpressions(doStatement.getBody()));
+            collectExpressions(expression, collector);
+            collectExpressions(doStatement.getBody(), collector);
         } else if (element instanceof PsiExpressionStatement) {
             PsiExpressionStatement expressionStatement = (PsiExpressionStatement) element;
             PsiExpression expression = expressionStatement.getExpression();
-            expressionList.addAll(getExpressions(expression));
+            collectExpressions(expression, collector);
         } else if (element instanceof PsiSwitchStatement) {
             PsiSwitchStatement switchStatement = (PsiSwitchStatement) element;
             PsiExpression expression = switchStatement.getExpression();
-            expressionList.addAll(getExpressions(expression));
+            collectExpressions(expression, collector);
             PsiCodeBlock statementBody = switchStatement.getBody();
             if (statementBody != null) {
                 PsiStatement[] statements = statementBody.getStatements();
                 for (PsiStatement psiStatement : statements)
-                    expressionList.addAll(getExpressions(psiStatement));
+                    collectExpressions(psiStatement, collector);
             }
         } else if (element instanceof PsiAssertStatement) {
             PsiAssertStatement assertStatement = (PsiAssertStatement) element;
             PsiExpression expression = assertStatement.getAssertCondition();
-            expressionList.addAll(getExpressions(expression));
+            collectExpressions(expression, collector);
             PsiExpression message = assertStatement.getAssertDescription();
             if (message != null)
-                expressionList.addAll(getExpressions(message));
+                collectExpressions(message, collector);
         } else if (element instanceof PsiLabeledStatement) {
             PsiLabeledStatement labeledStatement = (PsiLabeledStatement) element;
-            expressionList.addAll(getExpressions(labeledStatement.getStatement()));
+            collectExpressions(labeledStatement.getStatement(), collector);
         } else if (element instanceof PsiReturnStatement) {
             PsiReturnStatement returnStatement = (PsiReturnStatement) element;
             PsiExpression expression = returnStatement.getReturnValue();
-            expressionList.addAll(getExpressions(expression));
+            collectExpressions(expression, collector);
         } else if (element instanceof PsiSynchronizedStatement) {
             PsiSynchronizedStatement synchronizedStatement = (PsiSynchronizedStatement) element;
             PsiExpression expression = synchronizedStatement.getLockExpression();
-            expressionList.addAll(getExpressions(expression));
+            collectExpressions(expression, collector);
             PsiCodeBlock statementBody = synchronizedStatement.getBody();
             if (statementBody != null) {
                 PsiStatement[] statements = statementBody.getStatements();
                 for (PsiStatement psiStatement : statements) {
-                    expressionList.addAll(getExpressions(psiStatement));
+                    collectExpressions(psiStatement, collector);
                 }
             }
         } else if (element instanceof PsiThrowStatement) {
             PsiThrowStatement throwStatement = (PsiThrowStatement) element;
             PsiExpression expression = throwStatement.getException();
-            expressionList.addAll(getExpressions(expression));
+            collectExpressions(expression, collector);
         } else if (element instanceof PsiTryStatement) {
             PsiTryStatement tryStatement = (PsiTryStatement) element;
             PsiCodeBlock tryBody = tryStatement.getTryBlock();
             if (tryBody != null) {
                 PsiStatement[] tryStatements = tryBody.getStatements();
                 for (PsiStatement psiStatement : tryStatements) {
-                    expressionList.addAll(getExpressions(psiStatement));
+                    collectExpressions(psiStatement, collector);
                 }
             }
             PsiCodeBlock[] catchClauses = tryStatement.getCatchBlocks();
             for (PsiCodeBlock catchClause : catchClauses) {
-                List<PsiStatement> statements = Arrays.asList(catchClause.getStatements());
-                statements.forEach(s -> expressionList.addAll(getExpressions(s)));
+                for (PsiStatement psiStatement : catchClause.getStatements()) {
+                    collectExpressions(psiStatement, collector);
+                }
             }
             if (tryStatement.getFinallyBlock() != null) {
-                List<PsiStatement> finallyBlock = Arrays.asList(tryStatement.getFinallyBlock().getStatements());
-                finallyBlock.forEach(f -> expressionList.addAll(getExpressions(f)));
+                for (PsiStatement psiStatement : tryStatement.getFinallyBlock().getStatements()) {
+                    collectExpressions(psiStatement, collector);
+                }
             }
         } else if (element instanceof PsiConstructorCall) {
             PsiConstructorCall constructorInvocation = (PsiConstructorCall) element;
@@ -301,156 +303,134 @@ public class ExpressionExtractor {
             if (arguments != null) {
                 PsiExpression[] psiExpressions = arguments.getExpressions();
                 for (PsiExpression argument : psiExpressions)
-                    expressionList.addAll(getExpressions(argument));
+                    collectExpressions(argument, collector);
             }
         } else if (element instanceof PsiSuperExpression) {
             PsiSuperExpression superInvocation = (PsiSuperExpression) element;
-            expressionList.add(superInvocation);
+            collector.addUnconditionally(superInvocation);
         } else if (element instanceof PsiDeclarationStatement) {
             PsiDeclarationStatement variableDeclarationStatement = (PsiDeclarationStatement) element;
             PsiElement[] declaredElements = variableDeclarationStatement.getDeclaredElements();
             for (PsiElement psiElement : declaredElements) {
                 if (psiElement instanceof PsiVariable) {
-                    expressionList.addAll(getExpressions(((PsiVariable) psiElement).getInitializer()));
+                    collectExpressions(((PsiVariable) psiElement).getInitializer(), collector);
                 }
             }
         } else if (element instanceof PsiExpressionListStatement) {
             PsiExpressionListStatement listStatement = (PsiExpressionListStatement) element;
             for (PsiExpression psiExpression : listStatement.getExpressionList().getExpressions()) {
-                expressionList.addAll(getExpressions(psiExpression));
+                collectExpressions(psiExpression, collector);
             }
         }
-        return expressionList;
     }
 
-    private List<PsiExpression> getExpressions(PsiExpression expression) {
-        List<PsiExpression> expressionList = new ArrayList<>();
+    private void collectExpressions(PsiExpression expression, ExpressionCollector collector) {
         if (expression instanceof PsiMethodCallExpression) {
             PsiMethodCallExpression methodInvocation = (PsiMethodCallExpression) expression;
-            expressionList.addAll(getExpressions(methodInvocation.getMethodExpression().getQualifierExpression()));
+            collectExpressions(methodInvocation.getMethodExpression().getQualifierExpression(), collector);
             PsiExpressionList arguments = methodInvocation.getArgumentList();
             for (PsiExpression argument : arguments.getExpressions())
-                expressionList.addAll(getExpressions(argument));
-            if (instanceChecker.instanceOf(methodInvocation))
-                expressionList.add(methodInvocation);
+                collectExpressions(argument, collector);
+            collector.add(methodInvocation);
         } else if (expression instanceof PsiAssignmentExpression) {
             PsiAssignmentExpression assignment = (PsiAssignmentExpression) expression;
-            expressionList.addAll(getExpressions(assignment.getLExpression()));
-            expressionList.addAll(getExpressions(assignment.getRExpression()));
-            if (instanceChecker.instanceOf(assignment))
-                expressionList.add(assignment);
+            collectExpressions(assignment.getLExpression(), collector);
+            collectExpressions(assignment.getRExpression(), collector);
+            collector.add(assignment);
         } else if (expression instanceof PsiTypeCastExpression) {
             PsiTypeCastExpression castExpression = (PsiTypeCastExpression) expression;
-            expressionList.addAll(getExpressions(castExpression.getOperand()));
-            if (instanceChecker.instanceOf(castExpression))
-                expressionList.add(castExpression);
+            collectExpressions(castExpression.getOperand(), collector);
+            collector.add(castExpression);
         } else if (expression instanceof PsiNewExpression) {
             PsiNewExpression classInstanceCreation = (PsiNewExpression) expression;
             if (classInstanceCreation.getQualifier() != null)
-                expressionList.addAll(getExpressions(classInstanceCreation.getQualifier()));
+                collectExpressions(classInstanceCreation.getQualifier(), collector);
             if (classInstanceCreation.getArgumentList() != null) {
                 PsiExpression[] arguments = classInstanceCreation.getArgumentList().getExpressions();
                 for (PsiExpression argument : arguments)
-                    expressionList.addAll(getExpressions(argument));
+                    collectExpressions(argument, collector);
             }
             if (classInstanceCreation.isArrayCreation()) {
                 PsiExpression[] arrayDimensions = classInstanceCreation.getArrayDimensions();
                 for (PsiExpression arrayDimension: arrayDimensions) {
-                    expressionList.addAll(getExpressions(arrayDimension));
+                    collectExpressions(arrayDimension, collector);
                 }
             }
-            if (instanceChecker.instanceOf(classInstanceCreation))
-                expressionList.add(classInstanceCreation);
+            collector.add(classInstanceCreation);
             PsiAnonymousClass anonymousClassDeclaration = classInstanceCreation.getAnonymousClass();
             if (anonymousClassDeclaration != null) {
-                expressionList.addAll(getExpressions(anonymousClassDeclaration));
+                collectExpressions(anonymousClassDeclaration, collector);
             }
         } else if (expression instanceof PsiConditionalExpression) {
             PsiConditionalExpression conditionalExpression = (PsiConditionalExpression) expression;
-            expressionList.addAll(getExpressions(conditionalExpression.getCondition()));
-            expressionList.addAll(getExpressions(conditionalExpression.getThenExpression()));
-            expressionList.addAll(getExpressions(conditionalExpression.getElseExpression()));
-            if (instanceChecker.instanceOf(conditionalExpression))
-                expressionList.add(conditionalExpression);
+            collectExpressions(conditionalExpression.getCondition(), collector);
+            collectExpressions(conditionalExpression.getThenExpression(), collector);
+            collectExpressions(conditionalExpression.getElseExpression(), collector);
+            collector.add(conditionalExpression);
         } else if (expression instanceof PsiBinaryExpression) {
             PsiBinaryExpression infixExpression = (PsiBinaryExpression) expression;
-            expressionList.addAll(getExpressions(infixExpression.getLOperand()));
-            expressionList.addAll(getExpressions(infixExpression.getROperand()));
-            if (instanceChecker.instanceOf(infixExpression))
-                expressionList.add(infixExpression);
+            collectExpressions(infixExpression.getLOperand(), collector);
+            collectExpressions(infixExpression.getROperand(), collector);
+            collector.add(infixExpression);
         } else if (expression instanceof PsiInstanceOfExpression) {
             PsiInstanceOfExpression instanceofExpression = (PsiInstanceOfExpression) expression;
-            expressionList.addAll(getExpressions(instanceofExpression.getOperand()));
-            if (instanceChecker.instanceOf(instanceofExpression))
-                expressionList.add(instanceofExpression);
+            collectExpressions(instanceofExpression.getOperand(), collector);
+            collector.add(instanceofExpression);
         } else if (expression instanceof PsiParenthesizedExpression) {
             PsiParenthesizedExpression parenthesizedExpression = (PsiParenthesizedExpression) expression;
-            expressionList.addAll(getExpressions(parenthesizedExpression.getExpression()));
-            if (instanceChecker.instanceOf(parenthesizedExpression))
-                expressionList.add(parenthesizedExpression);
+            collectExpressions(parenthesizedExpression.getExpression(), collector);
+            collector.add(parenthesizedExpression);
         } else if (expression instanceof PsiPostfixExpression) {
             PsiPostfixExpression postfixExpression = (PsiPostfixExpression) expression;
-            expressionList.addAll(getExpressions(postfixExpression.getOperand()));
-            if (instanceChecker.instanceOf(postfixExpression))
-                expressionList.add(postfixExpression);
+            collectExpressions(postfixExpression.getOperand(), collector);
+            collector.add(postfixExpression);
         } else if (expression instanceof PsiPrefixExpression) {
             PsiPrefixExpression prefixExpression = (PsiPrefixExpression) expression;
-            expressionList.addAll(getExpressions(prefixExpression.getOperand()));
-            if (instanceChecker.instanceOf(prefixExpression))
-                expressionList.add(prefixExpression);
+            collectExpressions(prefixExpression.getOperand(), collector);
+            collector.add(prefixExpression);
         } else if (expression instanceof PsiSuperExpression) {
             PsiSuperExpression superInvocation = (PsiSuperExpression) expression;
-            if (instanceChecker.instanceOf(superInvocation))
-                expressionList.add(superInvocation);
+            collector.add(superInvocation);
         } else if (expression instanceof PsiArrayAccessExpression) {
             PsiArrayAccessExpression arrayAccess = (PsiArrayAccessExpression) expression;
-            expressionList.addAll(getExpressions(arrayAccess.getArrayExpression()));
-            expressionList.addAll(getExpressions(arrayAccess.getIndexExpression()));
-            if (instanceChecker.instanceOf(arrayAccess))
-                expressionList.add(arrayAccess);
+            collectExpressions(arrayAccess.getArrayExpression(), collector);
+            collectExpressions(arrayAccess.getIndexExpression(), collector);
+            collector.add(arrayAccess);
         } else if (expression instanceof PsiArrayInitializerExpression) {
             PsiArrayInitializerExpression arrayInitializer = (PsiArrayInitializerExpression) expression;
             PsiExpression[] expressions = arrayInitializer.getInitializers();
             for (PsiExpression arrayInitializerExpression : expressions)
-                expressionList.addAll(getExpressions(arrayInitializerExpression));
-            if (instanceChecker.instanceOf(arrayInitializer))
-                expressionList.add(arrayInitializer);
+                collectExpressions(arrayInitializerExpression, collector);
+            collector.add(arrayInitializer);
         } else if (expression instanceof PsiReferenceExpression) {
             PsiReferenceExpression simpleName = (PsiReferenceExpression) expression;
-            expressionList.addAll(getExpressions(simpleName.getQualifierExpression()));
-            if (instanceChecker.instanceOf(simpleName))
-                expressionList.add(simpleName);
+            collectExpressions(simpleName.getQualifierExpression(), collector);
+            collector.add(simpleName);
         } else if (expression instanceof PsiQualifiedExpression) {
             PsiQualifiedExpression qualifiedName = (PsiQualifiedExpression) expression;
-            if (instanceChecker.instanceOf(qualifiedName))
-                expressionList.add(qualifiedName);
+            collector.add(qualifiedName);
         } else if (expression instanceof PsiLiteralExpression) {
             PsiLiteralExpression typeLiteral = (PsiLiteralExpression) expression;
-            if (instanceChecker.instanceOf(typeLiteral))
-                expressionList.add(typeLiteral);
+            collector.add(typeLiteral);
         } else if (expression instanceof PsiPolyadicExpression) {
             PsiPolyadicExpression polyadicExpression = (PsiPolyadicExpression) expression;
             PsiExpression[] psiExpressions = polyadicExpression.getOperands();
             for (PsiExpression psiExpression : psiExpressions) {
-                expressionList.addAll(getExpressions(psiExpression));
+                collectExpressions(psiExpression, collector);
             }
-            if (instanceChecker.instanceOf(polyadicExpression))
-                expressionList.add(polyadicExpression);
+            collector.add(polyadicExpression);
         } else if (expression instanceof PsiLambdaExpression) {
             PsiLambdaExpression lambdaExpression = (PsiLambdaExpression) expression;
             if (lambdaExpression.getBody() instanceof PsiExpression) {
-                expressionList.addAll(getExpressions(lambdaExpression.getBody()));
+                collectExpressions(lambdaExpression.getBody(), collector);
             } else if (lambdaExpression.getBody() instanceof PsiCodeBlock) {
-                expressionList.addAll(getExpressions(lambdaExpression.getBody()));
+                collectExpressions(lambdaExpression.getBody(), collector);
             }
-            if (instanceChecker.instanceOf(lambdaExpression))
-                expressionList.add(lambdaExpression);
+            collector.add(lambdaExpression);
         }
-        return expressionList;
     }
 
-    private List<PsiExpression> getExpressions(PsiAnonymousClass anonymousClassDeclaration) {
-        List<PsiExpression> expressionList = new ArrayList<>();
+    private void collectExpressions(PsiAnonymousClass anonymousClassDeclaration, ExpressionCollector collector) {
         PsiMethod[] bodyDeclarations = anonymousClassDeclaration.getMethods();
         for (PsiMethod bodyDeclaration : bodyDeclarations) {
             if (bodyDeclaration != null) {
@@ -458,11 +438,30 @@ public class ExpressionExtractor {
                 if (body != null) {
                     PsiStatement[] statements = body.getStatements();
                     for (PsiStatement statement : statements) {
-                        expressionList.addAll(getExpressions(statement));
+                        collectExpressions(statement, collector);
                     }
                 }
             }
         }
-        return expressionList;
     }
-}
\ No newline at end of file
+
+    private static class SingleCategoryCollector extends ExpressionCollector {
+        private final ExpressionInstanceChecker instanceChecker;
+        private final List<PsiExpression> expressionList = new ArrayList<>();
+
+        private SingleCategoryCollector(ExpressionInstanceChecker instanceChecker) {
+            this.instanceChecker = instanceChecker;
+        }
+
+        @Override
+        void add(PsiExpression expression) {
+            if (instanceChecker.instanceOf(expression))
+                expressionList.add(expression);
+        }
+
+        @Override
+        void addUnconditionally(PsiExpression expression) {
+            expressionList.add(expression);
+        }
+    }
+}
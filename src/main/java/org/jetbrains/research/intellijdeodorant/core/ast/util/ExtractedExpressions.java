@@ -0,0 +1,97 @@
+package org.jetbrains.research.intellijdeodorant.core.ast.util;
+
+import com.intellij.psi.PsiExpression;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Expressions of a statement or an expression grouped by their kind.
+ * Each list is the same as the one returned by the corresponding method of {@link ExpressionExtractor},
+ * and cannot be modified.
+ */
+public class ExtractedExpressions extends ExpressionCollector {
+    private static final ExpressionInstanceChecker VARIABLE = new InstanceOfVariable();
+    private static final ExpressionInstanceChecker METHOD_INVOCATION = new InstanceOfMethodInvocation();
+    private static final ExpressionInstanceChecker CLASS_INSTANCE_CREATION = new InstanceOfClassInstanceCreation();
+    private static final ExpressionInstanceChecker ARRAY_CREATION = new InstanceOfArrayCreation();
+    private static final ExpressionInstanceChecker LITERAL = new InstanceOfLiteral();
+    private static final ExpressionInstanceChecker ASSIGNMENT = new InstanceOfAssignment();
+    private static final ExpressionInstanceChecker POSTFIX_EXPRESSION = new InstanceOfPostfixExpression();
+    private static final ExpressionInstanceChecker PREFIX_EXPRESSION = new InstanceOfPrefixExpression();
+
+    private final List<PsiExpression> variableInstructions = new ArrayList<>();
+    private final List<PsiExpression> methodInvocations = new ArrayList<>();
+    private final List<PsiExpression> classInstanceCreations = new ArrayList<>();
+    private final List<PsiExpression> arrayCreations = new ArrayList<>();
+    private final List<PsiExpression> literals = new ArrayList<>();
+    private final List<PsiExpression> assignments = new ArrayList<>();
+    private final List<PsiExpression> postfixExpressions = new ArrayList<>();
+    private final List<PsiExpression> prefixExpressions = new ArrayList<>();
+
+    ExtractedExpressions() {
+    }
+
+    @Override
+    void add(PsiExpression expression) {
+        addIf(VARIABLE, expression, variableInstructions);
+        addIf(METHOD_INVOCATION, expression, methodInvocations);
+        addIf(CLASS_INSTANCE_CREATION, expression, classInstanceCreations);
+        addIf(ARRAY_CREATION, expression, arrayCreations);
+        addIf(LITERAL, expression, literals);
+        addIf(ASSIGNMENT, expression, assignments);
+        addIf(POSTFIX_EXPRESSION, expression, postfixExpressions);
+        addIf(PREFIX_EXPRESSION, expression, prefixExpressions);
+    }
+
+    @Override
+    void addUnconditionally(PsiExpression expression) {
+        variableInstructions.add(expression);
+        methodInvocations.add(expression);
+        classInstanceCreations.add(expression);
+        arrayCreations.add(expression);
+        literals.add(expression);
+        assignments.add(expression);
+        postfixExpressions.add(expression);
+        prefixExpressions.add(expression);
+    }
+
+    private static void addIf(ExpressionInstanceChecker instanceChecker, PsiExpression expression, List<PsiExpression> expressions) {
+        if (instanceChecker.instanceOf(expression)) {
+            expressions.add(expression);
+        }
+    }
+
+    public List<PsiExpression> getVariableInstructions() {
+        return Collections.unmodifiableList(variableInstructions);
+    }
+
+    public List<PsiExpression> getMethodInvocations() {
+        return Collections.unmodifiableList(methodInvocations);
+    }
+
+    public List<PsiExpression> getClassInstanceCreations() {
+        return Collections.unmodifiableList(classInstanceCreations);
+    }
+
+    public List<PsiExpression> getArrayCreations() {
+        return Collections.unmodifiableList(arrayCreations);
+    }
+
+    public List<PsiExpression> getLiterals() {
+        return Collections.unmodifiableList(literals);
+    }
+
+    public List<PsiExpression> getAssignments() {
+        return Collections.unmodifiableList(assignments);
+    }
+
+    public List<PsiExpression> getPostfixExpressions() {
+        return Collections.unmodifiableList(postfixExpressions);
+    }
+
+    public List<PsiExpression> getPrefixExpressions() {
+        return Collections.unmodifiableList(prefixExpressions);
+    }
+}
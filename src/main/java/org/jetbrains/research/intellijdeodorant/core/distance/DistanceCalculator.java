@@ -1,26 +1,37 @@
 package org.jetbrains.research.intellijdeodorant.core.distance;
 
-import java.util.HashSet;
-import java.util.Set;
-
 class DistanceCalculator {
 
-    public static double getDistance(Set<String> set1, Set<String> set2) {
-        if (set1.isEmpty() && set2.isEmpty())
+    /**
+     * Computes the Jaccard distance between two entity sets stored as words of bit sets
+     * (see {@link java.util.BitSet#toLongArray()}) without allocating intermediate sets.
+     */
+    public static double getDistance(long[] set1, long[] set2) {
+        int intersectionSize = 0;
+        int unionSize = 0;
+        int commonLength = Math.min(set1.length, set2.length);
+        for (int i = 0; i < commonLength; i++) {
+            intersectionSize += Long.bitCount(set1[i] & set2[i]);
+            unionSize += Long.bitCount(set1[i] | set2[i]);
+        }
+        long[] longerSet = set1.length > set2.length ? set1 : set2;
+        for (int i = commonLength; i < longerSet.length; i++) {
+            unionSize += Long.bitCount(longerSet[i]);
+        }
+        if (unionSize == 0)
             return 1.0;
-        return 1.0 - (double) intersection(set1, set2).size() / (double) union(set1, set2).size();
-    }
-
-    private static Set<String> union(Set<String> set1, Set<String> set2) {
-        Set<String> set = new HashSet<>();
-        set.addAll(set1);
-        set.addAll(set2);
-        return set;
+        return 1.0 - (double) intersectionSize / (double) unionSize;
     }
 
-    public static Set<String> intersection(Set<String> set1, Set<String> set2) {
-        Set<String> set = new HashSet<>(set1);
-        set.retainAll(set2);
-        return set;
+    /**
+     * Counts the common entities of two entity sets stored as words of bit sets.
+     */
+    public static int intersectionSize(long[] set1, long[] set2) {
+        int intersectionSize = 0;
+        int commonLength = Math.min(set1.length, set2.length);
+        for (int i = 0; i < commonLength; i++) {
+            intersectionSize += Long.bitCount(set1[i] & set2[i]);
+        }
+        return intersectionSize;
     }
 }
@@ -9,10 +9,13 @@ import com.intellij.util.SmartList;
 import org.jetbrains.research.intellijdeodorant.IntelliJDeodorantBundle;
 import org.jetbrains.research.intellijdeodorant.core.ast.*;
 import org.jetbrains.research.intellijdeodorant.core.ast.association.Association;
+import org.jetbrains.research.intellijdeodorant.core.statistics.Instrumentation;
+import org.jetbrains.research.intellijdeodorant.utils.ReadActionUtils;
 import org.jetbrains.research.intellijdeodorant.utils.math.Cluster;
 import org.jetbrains.research.intellijdeodorant.utils.math.Clustering;
 
 import java.util.*;
+import java.util.function.Consumer;
 
 public class DistanceMatrix {
     private final Map<String, Integer> entityIndexMap;
@@ -21,8 +24,15 @@ public class DistanceMatrix {
     private final List<MyClass> classList;
     //holds the entity set of each entity
     private final Map<String, Set<String>> entityMap;
-    //holds the entity set of each class
-    private final Map<String, Set<String>> classMap;
+    private final EntityDictionary entityDictionary;
+    //holds the entity set of each method as words of a bit set of entity ids
+    private final Map<String, long[]> methodEntityBitSetMap;
+    //holds the entity set of each class as words of a bit set of entity ids
+    private final Map<String, long[]> classEntityBitSetMap;
+    //holds the index of the class that declares each entity accessed by a member, or -1 for the classes outside of the system
+    private final Map<String, Integer> entityOwnerIndexMap;
+    //holds the index of the superclass of each class, or -1 if the superclass is outside of the system
+    private int[] superclassIndexes;
     private final MySystem system;
     private final int maximumNumberOfSourceClassMembersAccessedByMoveMethodCandidate = 2;
     private static final int maximumNumberOfSourceClassMembersAccessedByExtractClassCandidate = 2;
@@ -34,8 +44,15 @@ public class DistanceMatrix {
         entityList = new ArrayList<>();
         classList = new ArrayList<>();
         entityMap = new LinkedHashMap<>();
-        classMap = new LinkedHashMap<>();
-        generateDistances();
+        entityDictionary = new EntityDictionary();
+        methodEntityBitSetMap = new HashMap<>();
+        classEntityBitSetMap = new HashMap<>();
+        entityOwnerIndexMap = new HashMap<>();
+        try (Instrumentation.Phase ignored = Instrumentation.startPhase("distance.matrix")) {
+            generateDistances();
+            generateAccessIndex();
+        }
+        Instrumentation.count("entities", entityList.size());
     }
 
     private void generateDistances() {
@@ -54,27 +71,37 @@ public class DistanceMatrix {
             while (methodIterator.hasNext()) {
                 MyMethod method = methodIterator.next();
                 entityList.add(method);
-                entityMap.put(method.toString(), method.getEntitySet());
+                Set<String> methodEntitySet = method.getEntitySet();
+                entityMap.put(method.toString(), methodEntitySet);
+                methodEntityBitSetMap.put(method.toString(), entityDictionary.toBitSet(methodEntitySet).toLongArray());
             }
             classList.add(myClass);
-            classMap.put(myClass.getName(), myClass.getEntitySet());
+            classEntityBitSetMap.put(myClass.getName(), entityDictionary.toBitSet(myClass.getEntitySet()).toLongArray());
         }
 
-        String[] entityNames = new String[entityList.size()];
-        String[] classNames = new String[classList.size()];
+        for (int i = 0; i < entityList.size(); i++) {
+            entityIndexMap.put(entityList.get(i).toString(), i);
+        }
+        for (int j = 0; j < classList.size(); j++) {
+            classIndexMap.putIfAbsent(classList.get(j).getName(), j);
+        }
+    }
 
-        int i = 0;
-        for (Entity entity : entityList) {
-            entityNames[i] = entity.toString();
-            entityIndexMap.put(entityNames[i], i);
-            int j = 0;
-            for (MyClass myClass : classList) {
-                classNames[j] = myClass.getName();
-                if (!classIndexMap.containsKey(classNames[j]))
-                    classIndexMap.put(classNames[j], j);
-                j++;
+    private void generateAccessIndex() {
+        superclassIndexes = new int[classList.size()];
+        for (int i = 0; i < classList.size(); i++) {
+            String superclass = classList.get(i).getSuperclass();
+            Integer superclassIndex = superclass != null ? classIndexMap.get(superclass) : null;
+            superclassIndexes[i] = superclassIndex != null ? superclassIndex : -1;
+        }
+        for (Set<String> entitySet : entityMap.values()) {
+            for (String entity : entitySet) {
+                if (!entityOwnerIndexMap.containsKey(entity)) {
+                    int delimiterIndex = entity.indexOf("::");
+                    Integer ownerIndex = delimiterIndex != -1 ? classIndexMap.get(entity.substring(0, delimiterIndex)) : null;
+                    entityOwnerIndexMap.put(entity, ownerIndex != null ? ownerIndex : -1);
+                }
             }
-            i++;
         }
     }
 
@@ -118,28 +145,9 @@ public class DistanceMatrix {
                                             MyClass mySourceClass = classList.get(classIndexMap.get(sourceClass));
                                             MyClass myTargetClass = classList.get(classIndexMap.get(targetClass));
                                             MoveMethodCandidateRefactoring candidate = new MoveMethodCandidateRefactoring(system, mySourceClass, myTargetClass, method);
-                                            Map<PsiMethodCallExpression, PsiMethod> additionalMethodsToBeMoved = candidate.getAdditionalMethodsToBeMoved();
-                                            Collection<PsiMethod> values = additionalMethodsToBeMoved.values();
-                                            Set<String> methodEntitySet = entityMap.get(method.toString());
-                                            Set<String> sourceClassEntitySet = classMap.get(sourceClass);
-                                            Set<String> targetClassEntitySet = classMap.get(targetClass);
-                                            Set<String> intersectionWithSourceClass = DistanceCalculator.intersection(methodEntitySet, sourceClassEntitySet);
-                                            Set<String> intersectionWithTargetClass = DistanceCalculator.intersection(methodEntitySet, targetClassEntitySet);
-                                            Set<String> entitiesToRemoveFromIntersectionWithSourceClass = new LinkedHashSet<>();
-                                            if (!values.isEmpty()) {
-                                                for (String s : intersectionWithSourceClass) {
-                                                    int entityPosition = entityIndexMap.get(s);
-                                                    Entity e = entityList.get(entityPosition);
-                                                    if (e instanceof MyMethod) {
-                                                        MyMethod myInvokedMethod = (MyMethod) e;
-                                                        if (values.contains(myInvokedMethod.getMethodObject().getMethodDeclaration())) {
-                                                            entitiesToRemoveFromIntersectionWithSourceClass.add(s);
-                                                        }
-                                                    }
-                                                }
-                                                intersectionWithSourceClass.removeAll(entitiesToRemoveFromIntersectionWithSourceClass);
-                                            }
-                                            if (intersectionWithTargetClass.size() >= intersectionWithSourceClass.size()) {
+                                            Collection<PsiMethod> values = candidate.getAdditionalMethodsToBeMoved().values();
+                                            if (countAccessedEntities(method, targetClass, Collections.emptyList())
+                                                    >= countAccessedEntities(method, sourceClass, values)) {
                                                 if (candidate.isApplicable()) {
                                                     int sourceClassDependencies = candidate.getDistinctSourceDependencies();
                                                     int targetClassDependencies = candidate.getDistinctTargetDependencies();
@@ -162,14 +170,14 @@ public class DistanceMatrix {
     }
 
     private boolean targetClassInheritedByAnotherCandidateTargetClass(String targetClass, Set<String> candidateTargetClasses) {
+        int targetClassIndex = classIndexMap.get(targetClass);
         for (String candidateTargetClass : candidateTargetClasses) {
             if (!candidateTargetClass.equals(targetClass)) {
-                MyClass currentSuperclass = classList.get(classIndexMap.get(candidateTargetClass));
-                String superclass;
-                while ((superclass = currentSuperclass.getSuperclass()) != null) {
-                    if (superclass.equals(targetClass))
+                int superclassIndex = superclassIndexes[classIndexMap.get(candidateTargetClass)];
+                while (superclassIndex != -1) {
+                    if (superclassIndex == targetClassIndex)
                         return true;
-                    currentSuperclass = classList.get(classIndexMap.get(superclass));
+                    superclassIndex = superclassIndexes[superclassIndex];
                 }
             }
         }
@@ -177,11 +185,18 @@ public class DistanceMatrix {
     }
 
     public List<MoveMethodCandidateRefactoring> getMoveMethodCandidateRefactoringsByAccess(Set<String> classNamesToBeExamined, ProgressIndicator indicator) {
+        try (Instrumentation.Phase ignored = Instrumentation.startPhase("move.method.candidates")) {
+            return identifyMoveMethodCandidateRefactoringsByAccess(classNamesToBeExamined, indicator);
+        }
+    }
+
+    private List<MoveMethodCandidateRefactoring> identifyMoveMethodCandidateRefactoringsByAccess(Set<String> classNamesToBeExamined, ProgressIndicator indicator) {
         List<MoveMethodCandidateRefactoring> candidateRefactoringList = new ArrayList<>();
         indicator.setText(IntelliJDeodorantBundle.message("feature.envy.identification.indicator"));
         indicator.setFraction(0.0);
         int entityCount = entityList.size();
         int processedEntities = 0;
+        int[] accessCounts = new int[classList.size()];
         for (Entity entity : entityList) {
             processedEntities += 1;
             if (entity instanceof MyMethod) {
@@ -189,107 +204,131 @@ public class DistanceMatrix {
                 if (classNamesToBeExamined.contains(sourceClass)) {
                     MyMethod method = (MyMethod) entity;
                     Set<String> entitySetI = entityMap.get(entity.toString());
-                    Map<String, ArrayList<String>> accessMap = computeAccessMap(entitySetI);
-                    List<MoveMethodCandidateRefactoring> conceptuallyBoundRefactorings = identifyConceptualBindings(method, accessMap.keySet());
-                    if (!conceptuallyBoundRefactorings.isEmpty()) {
-                        candidateRefactoringList.addAll(conceptuallyBoundRefactorings);
-                    } else {
-                        TreeMap<Integer, ArrayList<String>> sortedByAccessMap = new TreeMap<>();
-                        for (String targetClass : accessMap.keySet()) {
-                            int numberOfAccessedEntities = accessMap.get(targetClass).size();
-                            if (sortedByAccessMap.containsKey(numberOfAccessedEntities)) {
-                                ArrayList<String> list = sortedByAccessMap.get(numberOfAccessedEntities);
-                                list.add(targetClass);
-                            } else {
-                                ArrayList<String> list = new ArrayList<>();
-                                list.add(targetClass);
-                                sortedByAccessMap.put(numberOfAccessedEntities, list);
-                            }
-                        }
+                    Map<String, Integer> accessMap = computeAccessMap(entitySetI, accessCounts);
+                    candidateRefactoringList.addAll(ReadActionUtils.computeInReadAction(() ->
+                            identifyMoveMethodCandidateRefactorings(method, sourceClass, accessMap)));
+                }
+            }
+            indicator.setFraction((double) processedEntities / entityCount);
+        }
+        indicator.setFraction(1.0);
+        return candidateRefactoringList;
+    }
 
-                        boolean candidateFound = false;
-                        boolean sourceClassIsTarget = false;
-                        while (!candidateFound && !sourceClassIsTarget && !sortedByAccessMap.isEmpty()) {
-                            ArrayList<String> targetClasses = sortedByAccessMap.get(sortedByAccessMap.lastKey());
-                            for (String targetClass : targetClasses) {
-                                if (sourceClass.equals(targetClass)) {
-                                    sourceClassIsTarget = true;
+    /**
+     * Evaluates the candidate target classes of the method, which are the classes whose entities the method accesses.
+     */
+    private List<MoveMethodCandidateRefactoring> identifyMoveMethodCandidateRefactorings(MyMethod method, String sourceClass,
+                                                                                       Map<String, Integer> accessMap) {
+        List<MoveMethodCandidateRefactoring> candidates = new ArrayList<>();
+        List<MoveMethodCandidateRefactoring> conceptuallyBoundRefactorings = identifyConceptualBindings(method, accessMap.keySet());
+        if (!conceptuallyBoundRefactorings.isEmpty()) {
+            candidates.addAll(conceptuallyBoundRefactorings);
+        } else {
+            TreeMap<Integer, ArrayList<String>> sortedByAccessMap = new TreeMap<>();
+            for (String targetClass : accessMap.keySet()) {
+                int numberOfAccessedEntities = accessMap.get(targetClass);
+                if (sortedByAccessMap.containsKey(numberOfAccessedEntities)) {
+                    ArrayList<String> list = sortedByAccessMap.get(numberOfAccessedEntities);
+                    list.add(targetClass);
+                } else {
+                    ArrayList<String> list = new ArrayList<>();
+                    list.add(targetClass);
+                    sortedByAccessMap.put(numberOfAccessedEntities, list);
+                }
+            }
+
+            boolean candidateFound = false;
+            boolean sourceClassIsTarget = false;
+            while (!candidateFound && !sourceClassIsTarget && !sortedByAccessMap.isEmpty()) {
+                ArrayList<String> targetClasses = sortedByAccessMap.get(sortedByAccessMap.lastKey());
+                for (String targetClass : targetClasses) {
+                    if (sourceClass.equals(targetClass)) {
+                        sourceClassIsTarget = true;
+                    } else {
+                        MyClass mySourceClass = classList.get(classIndexMap.get(sourceClass));
+                        MyClass myTargetClass = classList.get(classIndexMap.get(targetClass));
+                        MoveMethodCandidateRefactoring candidate = new MoveMethodCandidateRefactoring(system, mySourceClass, myTargetClass, method);
+                        Collection<PsiMethod> values = candidate.getAdditionalMethodsToBeMoved().values();
+                        if (countAccessedEntities(method, targetClass, Collections.emptyList())
+                                >= countAccessedEntities(method, sourceClass, values)) {
+                            if (candidate.isApplicable() && !targetClassInheritedByAnotherCandidateTargetClass(targetClass, accessMap.keySet())) {
+                                int sourceClassDependencies = candidate.getDistinctSourceDependencies();
+                                int targetClassDependencies = candidate.getDistinctTargetDependencies();
+                                if (sourceClassDependencies <= maximumNumberOfSourceClassMembersAccessedByMoveMethodCandidate
+                                        && sourceClassDependencies < targetClassDependencies) {
+                                    candidates.add(candidate);
                                 } else {
-                                    MyClass mySourceClass = classList.get(classIndexMap.get(sourceClass));
-                                    MyClass myTargetClass = classList.get(classIndexMap.get(targetClass));
-                                    MoveMethodCandidateRefactoring candidate = new MoveMethodCandidateRefactoring(system, mySourceClass, myTargetClass, method);
-                                    Map<PsiMethodCallExpression, PsiMethod> additionalMethodsToBeMoved = candidate.getAdditionalMethodsToBeMoved();
-                                    Collection<PsiMethod> values = additionalMethodsToBeMoved.values();
-                                    Set<String> methodEntitySet = entityMap.get(method.toString());
-                                    Set<String> sourceClassEntitySet = classMap.get(sourceClass);
-                                    Set<String> targetClassEntitySet = classMap.get(targetClass);
-                                    Set<String> intersectionWithSourceClass = DistanceCalculator.intersection(methodEntitySet, sourceClassEntitySet);
-                                    Set<String> intersectionWithTargetClass = DistanceCalculator.intersection(methodEntitySet, targetClassEntitySet);
-                                    Set<String> entitiesToRemoveFromIntersectionWithSourceClass = new LinkedHashSet<>();
-                                    if (!values.isEmpty()) {
-                                        for (String s : intersectionWithSourceClass) {
-                                            int entityPosition = entityIndexMap.get(s);
-                                            Entity e = entityList.get(entityPosition);
-                                            if (e instanceof MyMethod) {
-                                                MyMethod invokedMethod = (MyMethod) e;
-                                                if (values.contains(invokedMethod.getMethodObject().getMethodDeclaration())) {
-                                                    entitiesToRemoveFromIntersectionWithSourceClass.add(s);
-                                                }
-                                            }
-                                        }
-                                        intersectionWithSourceClass.removeAll(entitiesToRemoveFromIntersectionWithSourceClass);
-                                    }
-                                    if (intersectionWithTargetClass.size() >= intersectionWithSourceClass.size()) {
-                                        if (candidate.isApplicable() && !targetClassInheritedByAnotherCandidateTargetClass(targetClass, accessMap.keySet())) {
-                                            int sourceClassDependencies = candidate.getDistinctSourceDependencies();
-                                            int targetClassDependencies = candidate.getDistinctTargetDependencies();
-                                            if (sourceClassDependencies <= maximumNumberOfSourceClassMembersAccessedByMoveMethodCandidate
-                                                    && sourceClassDependencies < targetClassDependencies) {
-                                                candidateRefactoringList.add(candidate);
-                                            }
-                                            candidateFound = true;
-                                        }
-                                    }
+                                    Instrumentation.count("move.method.rejected.dependencies");
                                 }
+                                candidateFound = true;
+                            } else {
+                                Instrumentation.count("move.method.rejected.not.applicable");
                             }
-                            sortedByAccessMap.remove(sortedByAccessMap.lastKey());
+                        } else {
+                            Instrumentation.count("move.method.rejected.source.accesses");
                         }
                     }
                 }
+                sortedByAccessMap.remove(sortedByAccessMap.lastKey());
             }
-            indicator.setFraction((double) processedEntities / entityCount);
         }
-        indicator.setFraction(1.0);
-        return candidateRefactoringList;
+        return candidates;
     }
 
-    private Map<String, ArrayList<String>> computeAccessMap(Set<String> entitySetI) {
-        Map<String, ArrayList<String>> accessMap = new LinkedHashMap<>();
+    /**
+     * Counts the entities of the class that the method accesses, except for the methods that are moved along with it.
+     * Only the names of the common entities are looked up, and only if there are methods to be moved.
+     */
+    private int countAccessedEntities(MyMethod method, String className, Collection<PsiMethod> methodsToBeMoved) {
+        long[] methodEntitySet = methodEntityBitSetMap.get(method.toString());
+        long[] classEntitySet = classEntityBitSetMap.get(className);
+        int accessedEntities = DistanceCalculator.intersectionSize(methodEntitySet, classEntitySet);
+        if (!methodsToBeMoved.isEmpty()) {
+            int commonLength = Math.min(methodEntitySet.length, classEntitySet.length);
+            for (int i = 0; i < commonLength; i++) {
+                long commonEntities = methodEntitySet[i] & classEntitySet[i];
+                while (commonEntities != 0) {
+                    int id = i * Long.SIZE + Long.numberOfTrailingZeros(commonEntities);
+                    Entity e = entityList.get(entityIndexMap.get(entityDictionary.getEntity(id)));
+                    if (e instanceof MyMethod
+                            && methodsToBeMoved.contains(((MyMethod) e).getMethodObject().getMethodDeclaration())) {
+                        accessedEntities--;
+                    }
+                    commonEntities &= commonEntities - 1;
+                }
+            }
+        }
+        return accessedEntities;
+    }
+
+    /**
+     * Counts the accessed entities of each class in the order in which the classes are first accessed.
+     * The entities of an accessed superclass are counted for its subclass as well.
+     *
+     * @param accessCounts zeroed array with an element for each class, it is zeroed again before returning.
+     */
+    private Map<String, Integer> computeAccessMap(Set<String> entitySetI, int[] accessCounts) {
+        List<Integer> accessedClassIndexes = new ArrayList<>();
         for (String e : entitySetI) {
-            String[] tokens = e.split("::");
-            String classOrigin = tokens[0];
-            String entityName = tokens[1];
-            if (accessMap.containsKey(classOrigin)) {
-                ArrayList<String> list = accessMap.get(classOrigin);
-                list.add(entityName);
-            } else {
-                ArrayList<String> list = new ArrayList<>();
-                list.add(entityName);
-                if (classMap.containsKey(classOrigin)) accessMap.put(classOrigin, list);
+            int classIndex = entityOwnerIndexMap.get(e);
+            if (classIndex != -1 && accessCounts[classIndex]++ == 0) {
+                accessedClassIndexes.add(classIndex);
             }
         }
 
-        for (String key1 : accessMap.keySet()) {
-            ClassObject classObject = ASTReader.getSystemObject().getClassObject(key1);
-            if (classObject != null && classObject.getSuperclass() != null) {
-                for (String key2 : accessMap.keySet()) {
-                    if (classObject.getSuperclass().getClassType().equals(key2)) {
-                        ArrayList<String> list = accessMap.get(key1);
-                        list.addAll(accessMap.get(key2));
-                    }
-                }
+        for (int classIndex : accessedClassIndexes) {
+            int superclassIndex = superclassIndexes[classIndex];
+            if (superclassIndex != -1 && accessCounts[superclassIndex] > 0) {
+                accessCounts[classIndex] += accessCounts[superclassIndex];
             }
         }
+
+        Map<String, Integer> accessMap = new LinkedHashMap<>();
+        for (int classIndex : accessedClassIndexes) {
+            accessMap.put(classList.get(classIndex).getName(), accessCounts[classIndex]);
+            accessCounts[classIndex] = 0;
+        }
         return accessMap;
     }
 
@@ -297,14 +336,25 @@ public class DistanceMatrix {
         ArrayList<Entity> entities = new ArrayList<>();
         entities.addAll(sourceClass.getAttributeList());
         entities.addAll(sourceClass.getMethodList());
+        return getJaccardDistanceMatrix(entities);
+    }
+
+    /**
+     * Computes the Jaccard distances between the full entity sets of the given members of a class.
+     */
+    static double[][] getJaccardDistanceMatrix(List<? extends Entity> entities) {
+        EntityDictionary dictionary = new EntityDictionary();
+        long[][] entitySets = new long[entities.size()][];
+        for (int i = 0; i < entitySets.length; i++) {
+            entitySets[i] = dictionary.toBitSet(entities.get(i).getFullEntitySet()).toLongArray();
+        }
         double[][] jaccardDistanceMatrix = new double[entities.size()][entities.size()];
         for (int i = 0; i < jaccardDistanceMatrix.length; i++) {
-            for (int j = 0; j < jaccardDistanceMatrix.length; j++) {
-                if (i != j) {
-                    jaccardDistanceMatrix[i][j] = DistanceCalculator.getDistance(entities.get(i).getFullEntitySet(), entities.get(j).getFullEntitySet());
-                } else {
-                    jaccardDistanceMatrix[i][j] = 0.0;
-                }
+            jaccardDistanceMatrix[i][i] = 0.0;
+            for (int j = i + 1; j < jaccardDistanceMatrix.length; j++) {
+                double distance = DistanceCalculator.getDistance(entitySets[i], entitySets[j]);
+                jaccardDistanceMatrix[i][j] = distance;
+                jaccardDistanceMatrix[j][i] = distance;
             }
         }
         return jaccardDistanceMatrix;
@@ -312,6 +362,17 @@ public class DistanceMatrix {
 
     public List<ExtractClassCandidateRefactoring> getExtractClassCandidateRefactorings(Set<String> classNamesToBeExamined, ProgressIndicator indicator) {
         List<ExtractClassCandidateRefactoring> candidateList = new ArrayList<>();
+        getExtractClassCandidateRefactorings(classNamesToBeExamined, indicator, candidateList::addAll);
+        return candidateList;
+    }
+
+    /**
+     * Passes the candidates of each class to the consumer as soon as the class has been processed.
+     * Classes without candidates are not passed.
+     * The candidates of each class are evaluated in a separate read action.
+     */
+    public void getExtractClassCandidateRefactorings(Set<String> classNamesToBeExamined, ProgressIndicator indicator,
+                                                     Consumer<List<ExtractClassCandidateRefactoring>> classCandidatesConsumer) {
         Iterator<MyClass> classIt = system.getClassIterator();
         ArrayList<MyClass> oldClasses = new ArrayList<>();
 
@@ -326,30 +387,47 @@ public class DistanceMatrix {
         indicator.setFraction(0.0);
         for (MyClass sourceClass : oldClasses) {
             if (!sourceClass.getMethodList().isEmpty() && !sourceClass.getAttributeList().isEmpty()) {
-                double[][] distanceMatrix = getJaccardDistanceMatrix(sourceClass);
+                double[][] distanceMatrix;
+                try (Instrumentation.Phase ignored = Instrumentation.startPhase("jaccard.distances")) {
+                    distanceMatrix = getJaccardDistanceMatrix(sourceClass);
+                }
                 Clustering clustering = Clustering.getInstance(distanceMatrix);
                 ArrayList<Entity> entities = new ArrayList<>();
                 entities.addAll(sourceClass.getAttributeList());
                 entities.addAll(sourceClass.getMethodList());
-                HashSet<Cluster> clusters = clustering.clustering(entities);
-                int processedClusters = 0;
+                HashSet<Cluster> clusters;
+                try (Instrumentation.Phase ignored = Instrumentation.startPhase("clustering")) {
+                    clusters = clustering.clustering(entities);
+                }
+                Instrumentation.count("clusters", clusters.size());
+                List<ExtractClassCandidateRefactoring> candidateList = ReadActionUtils.computeInReadAction(() -> {
+                    List<ExtractClassCandidateRefactoring> candidates = new ArrayList<>();
+                    int processedClusters = 0;
 
-                for (Cluster cluster : clusters) {
-                    processedClusters += 1;
-                    indicator.setFraction(((double) processedClusters) / clusters.size());
-                    ExtractClassCandidateRefactoring candidate = new ExtractClassCandidateRefactoring(system, sourceClass, cluster.getEntities());
-                    if (candidate.isApplicable()) {
-                        int sourceClassDependencies = candidate.getDistinctSourceDependencies();
-                        int extractedClassDependencies = candidate.getDistinctTargetDependencies();
-                        if (sourceClassDependencies <= maximumNumberOfSourceClassMembersAccessedByExtractClassCandidate &&
-                                sourceClassDependencies < extractedClassDependencies) {
-                            candidateList.add(candidate);
+                    for (Cluster cluster : clusters) {
+                        processedClusters += 1;
+                        indicator.setFraction(((double) processedClusters) / clusters.size());
+                        ExtractClassCandidateRefactoring candidate = new ExtractClassCandidateRefactoring(system, sourceClass, cluster.getEntities());
+                        if (candidate.isApplicable()) {
+                            int sourceClassDependencies = candidate.getDistinctSourceDependencies();
+                            int extractedClassDependencies = candidate.getDistinctTargetDependencies();
+                            if (sourceClassDependencies <= maximumNumberOfSourceClassMembersAccessedByExtractClassCandidate &&
+                                    sourceClassDependencies < extractedClassDependencies) {
+                                candidates.add(candidate);
+                            } else {
+                                Instrumentation.count("extract.class.rejected.dependencies");
+                            }
+                        } else {
+                            Instrumentation.count("extract.class.rejected.not.applicable");
                         }
                     }
+                    return candidates;
+                });
+                if (!candidateList.isEmpty()) {
+                    classCandidatesConsumer.accept(candidateList);
                 }
             }
         }
         indicator.setFraction(1.0);
-        return candidateList;
     }
 }
@@ -0,0 +1,33 @@
+package org.jetbrains.research.intellijdeodorant.core.distance;
+
+import java.util.*;
+
+/**
+ * Assigns dense integer ids to entity names, so that entity sets can be stored as bit sets.
+ */
+class EntityDictionary {
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> entityNames = new ArrayList<>();
+
+    int getId(String entity) {
+        Integer id = ids.get(entity);
+        if (id == null) {
+            id = ids.size();
+            ids.put(entity, id);
+            entityNames.add(entity);
+        }
+        return id;
+    }
+
+    String getEntity(int id) {
+        return entityNames.get(id);
+    }
+
+    BitSet toBitSet(Set<String> entities) {
+        BitSet bitSet = new BitSet(ids.size() + entities.size());
+        for (String entity : entities) {
+            bitSet.set(getId(entity));
+        }
+        return bitSet;
+    }
+}
@@ -1,6 +1,8 @@
 package org.jetbrains.research.intellijdeodorant.core.distance;
 
 import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 public class ExtractClassCandidateGroup implements Comparable<ExtractClassCandidateGroup> {
     private final String source;
@@ -33,32 +35,50 @@ public class ExtractClassCandidateGroup implements Comparable<ExtractClassCandid
     public void groupConcepts() {
         ArrayList<ExtractClassCandidateRefactoring> tempCandidates = new ArrayList<>(candidates);
         tempCandidates.sort(new ClusterSizeComparator());
-        while (!tempCandidates.isEmpty()) {
-            Set<Entity> conceptEntities = new HashSet<>(tempCandidates.get(0).getExtractedEntities());
+        groupOverlappingClusters(tempCandidates, ExtractClassCandidateRefactoring::getExtractedEntities,
+                (conceptEntities, conceptClusters) -> {
+                    ExtractedConcept newConcept = new ExtractedConcept(conceptEntities);
+                    conceptClusters.forEach(newConcept::addConceptCluster);
+                    extractedConcepts.add(newConcept);
+                });
+        findConceptTerms();
+    }
+
+    /**
+     * Groups the clusters that share entities with each other, directly or through other clusters.
+     * Starting from the first remaining cluster, the clusters are added to its group until the entities of the group stop growing.
+     *
+     * @param conceptConsumer receives the entities and the clusters of every group.
+     */
+    static <T> void groupOverlappingClusters(List<T> clusters, Function<T, ? extends Collection<Entity>> entitiesOfCluster,
+                                             BiConsumer<Set<Entity>, List<T>> conceptConsumer) {
+        List<T> tempClusters = new ArrayList<>(clusters);
+        while (!tempClusters.isEmpty()) {
+            Set<Entity> conceptEntities = new HashSet<>(entitiesOfCluster.apply(tempClusters.get(0)));
             Set<Integer> indexSet = new LinkedHashSet<>();
             indexSet.add(0);
             int previousSize;
             do {
                 previousSize = conceptEntities.size();
-                for (int i = 1; i < tempCandidates.size(); i++) {
+                for (int i = 1; i < tempClusters.size(); i++) {
+                    Collection<Entity> clusterEntities = entitiesOfCluster.apply(tempClusters.get(i));
                     HashSet<Entity> copiedConceptEntities = new HashSet<>(conceptEntities);
-                    copiedConceptEntities.retainAll(tempCandidates.get(i).getExtractedEntities());
+                    copiedConceptEntities.retainAll(clusterEntities);
                     if (!copiedConceptEntities.isEmpty()) {
-                        conceptEntities.addAll(tempCandidates.get(i).getExtractedEntities());
+                        conceptEntities.addAll(clusterEntities);
                         indexSet.add(i);
                     }
                 }
             } while (previousSize < conceptEntities.size());
-            Set<ExtractClassCandidateRefactoring> candidatesToBeRemoved = new HashSet<>();
-            ExtractedConcept newConcept = new ExtractedConcept(conceptEntities);
+            List<T> conceptClusters = new ArrayList<>();
+            Set<T> clustersToBeRemoved = new HashSet<>();
             for (Integer j : indexSet) {
-                newConcept.addConceptCluster(tempCandidates.get(j));
-                candidatesToBeRemoved.add(tempCandidates.get(j));
+                conceptClusters.add(tempClusters.get(j));
+                clustersToBeRemoved.add(tempClusters.get(j));
             }
-            tempCandidates.removeAll(candidatesToBeRemoved);
-            extractedConcepts.add(newConcept);
+            tempClusters.removeAll(clustersToBeRemoved);
+            conceptConsumer.accept(conceptEntities, conceptClusters);
         }
-        findConceptTerms();
     }
 
     private void findConceptTerms() {
@@ -7,6 +7,7 @@ import com.intellij.psi.PsiMethod;
 import org.jetbrains.research.intellijdeodorant.core.GodClassVisualizationData;
 import org.jetbrains.research.intellijdeodorant.core.ast.FieldObject;
 import org.jetbrains.research.intellijdeodorant.core.ast.MethodObject;
+import org.jetbrains.research.intellijdeodorant.core.ast.SystemObject;
 import org.jetbrains.research.intellijdeodorant.core.ast.TypeObject;
 import org.jetbrains.research.intellijdeodorant.utils.TopicFinder;
 
@@ -283,4 +284,8 @@ public class ExtractClassCandidateRefactoring extends CandidateRefactoring imple
     public PsiJavaFile getSourceFile() {
         return sourceClass.getClassObject().getPsiFile();
     }
+
+    public SystemObject getSystemObject() {
+        return system.getSystemObject();
+    }
 }
\ No newline at end of file
@@ -1,6 +1,5 @@
 package org.jetbrains.research.intellijdeodorant.core.distance;
 
-import org.jetbrains.research.intellijdeodorant.core.ast.ASTReader;
 import org.jetbrains.research.intellijdeodorant.core.ast.FieldInstructionObject;
 import org.jetbrains.research.intellijdeodorant.core.ast.MethodInvocationObject;
 import org.jetbrains.research.intellijdeodorant.core.ast.SystemObject;
@@ -13,11 +12,10 @@ public abstract class MyAbstractStatement {
     private List<MyMethodInvocation> methodInvocationList;
     private List<MyAttributeInstruction> attributeInstructionList;
 
-    MyAbstractStatement(AbstractStatement statement) {
+    MyAbstractStatement(AbstractStatement statement, SystemObject system) {
         this.statement = statement;
         this.methodInvocationList = new ArrayList<>();
         this.attributeInstructionList = new ArrayList<>();
-        SystemObject system = ASTReader.getSystemObject();
         List<FieldInstructionObject> fieldInstructions = statement.getFieldInstructions();
         for (FieldInstructionObject fio : fieldInstructions) {
             if (system.getClassObject(fio.getOwnerClass()) != null && !fio.isStatic()) {
@@ -1,11 +1,12 @@
 package org.jetbrains.research.intellijdeodorant.core.distance;
 
+import org.jetbrains.research.intellijdeodorant.core.ast.SystemObject;
 import org.jetbrains.research.intellijdeodorant.core.ast.decomposition.AbstractStatement;
 
 class MyStatement extends MyAbstractStatement {
 
-	public MyStatement(AbstractStatement statement) {
-		super(statement);
+	public MyStatement(AbstractStatement statement, SystemObject system) {
+		super(statement, system);
 	}
 
 }
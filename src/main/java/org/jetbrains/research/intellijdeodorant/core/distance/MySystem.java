@@ -4,6 +4,7 @@ import org.jetbrains.research.intellijdeodorant.core.ast.*;
 import org.jetbrains.research.intellijdeodorant.core.ast.association.Association;
 import org.jetbrains.research.intellijdeodorant.core.ast.association.AssociationDetection;
 import org.jetbrains.research.intellijdeodorant.core.ast.decomposition.MethodBodyObject;
+import org.jetbrains.research.intellijdeodorant.core.statistics.Instrumentation;
 
 import java.util.*;
 
@@ -15,11 +16,13 @@ public class MySystem {
     public MySystem(SystemObject systemObject, boolean includeStaticMembers) {
         this.systemObject = systemObject;
         this.classMap = new HashMap<>();
-        this.associationDetection = new AssociationDetection(systemObject);
-        if (includeStaticMembers)
-            generateSystemWithStaticMembers();
-        else
-            generateSystem();
+        try (Instrumentation.Phase ignored = Instrumentation.startPhase("system")) {
+            this.associationDetection = new AssociationDetection(systemObject);
+            if (includeStaticMembers)
+                generateSystemWithStaticMembers();
+            else
+                generateSystem();
+        }
     }
 
     private void generateSystem() {
@@ -69,7 +72,7 @@ public class MySystem {
                         myMethod.setMethodObject(mo);
                         MethodBodyObject methodBodyObject = mo.getMethodBody();
                         if (methodBodyObject != null) {
-                            MyMethodBody myMethodBody = new MyMethodBody(methodBodyObject);
+                            MyMethodBody myMethodBody = new MyMethodBody(methodBodyObject, systemObject);
                             myMethod.setMethodBody(myMethodBody);
                         }
                         myClass.addMethod(myMethod);
@@ -137,7 +140,7 @@ public class MySystem {
                         myMethod.setMethodObject(mo);
                         MethodBodyObject methodBodyObject = mo.getMethodBody();
                         if (methodBodyObject != null) {
-                            MyMethodBody myMethodBody = new MyMethodBody(methodBodyObject);
+                            MyMethodBody myMethodBody = new MyMethodBody(methodBodyObject, systemObject);
                             myMethod.setMethodBody(myMethodBody);
                         }
                         myClass.addMethod(myMethod);
@@ -0,0 +1,94 @@
+package org.jetbrains.research.intellijdeodorant.core.statistics;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.jetbrains.research.intellijdeodorant.ide.refactoring.Refactoring.DELIMITER;
+
+/**
+ * Measurements of a single analysis run: phases in the order in which they were started and item counters.
+ */
+public class AnalysisStatistics {
+    private final String name;
+    private final long startTime = System.currentTimeMillis();
+    private final Map<String, PhaseStatistics> phases = new LinkedHashMap<>();
+    private final Map<String, AtomicLong> counters = new LinkedHashMap<>();
+    private volatile long duration = -1;
+
+    AnalysisStatistics(@NotNull String name) {
+        this.name = name;
+    }
+
+    @NotNull
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the time of the start of the run in milliseconds since the epoch.
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * Returns the duration of the run in milliseconds, or -1 if the run is not finished yet.
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    public synchronized List<PhaseStatistics> getPhases() {
+        return new ArrayList<>(phases.values());
+    }
+
+    public synchronized Map<String, Long> getCounters() {
+        Map<String, Long> values = new LinkedHashMap<>();
+        counters.forEach((counter, value) -> values.put(counter, value.get()));
+        return values;
+    }
+
+    synchronized PhaseStatistics getPhase(String phase) {
+        return phases.computeIfAbsent(phase, PhaseStatistics::new);
+    }
+
+    void count(String counter, long delta) {
+        AtomicLong value;
+        synchronized (this) {
+            value = counters.computeIfAbsent(counter, key -> new AtomicLong());
+        }
+        value.addAndGet(delta);
+    }
+
+    void finish() {
+        duration = System.currentTimeMillis() - startTime;
+    }
+
+    /**
+     * Writes the phases and the counters with the same delimiter as the exported refactorings.
+     */
+    public void write(@NotNull Writer writer) throws IOException {
+        writer.write("phase" + DELIMITER + "invocations" + DELIMITER + "elapsed time (ms)" + DELIMITER
+                + "wall time of all threads (ms)" + DELIMITER + "cpu time (ms)" + DELIMITER + "allocated bytes\n");
+        for (PhaseStatistics phase : getPhases()) {
+            writer.write(phase.getName() + DELIMITER + phase.getInvocations() + DELIMITER
+                    + TimeUnit.NANOSECONDS.toMillis(phase.getElapsedTime()) + DELIMITER
+                    + TimeUnit.NANOSECONDS.toMillis(phase.getWallTime()) + DELIMITER
+                    + TimeUnit.NANOSECONDS.toMillis(phase.getCpuTime()) + DELIMITER
+                    + phase.getAllocatedBytes() + '\n');
+        }
+        writer.write("counter" + DELIMITER + "value\n");
+        for (Map.Entry<String, Long> counter : getCounters().entrySet()) {
+            writer.write(counter.getKey() + DELIMITER + counter.getValue() + '\n');
+        }
+        writer.flush();
+    }
+}
@@ -0,0 +1,157 @@
+package org.jetbrains.research.intellijdeodorant.core.statistics;
+
+import com.intellij.openapi.application.Application;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.util.ProgressWrapper;
+import com.intellij.util.messages.Topic;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records the statistics of the analysis phases.
+ * <p>
+ * A run is started by the code that runs a detector (a panel or the headless runner) for the progress indicator
+ * of the detection, and the analysis code reports its phases and counters to the run of the progress indicator
+ * of the current thread, including the worker threads that run under a wrapper of that indicator.
+ * So the runs of several detections in progress at once are recorded separately.
+ * When no run is started, the phases and counters are not recorded, so the analysis can be used without instrumentation.
+ */
+public final class Instrumentation {
+    public static final Topic<Listener> TOPIC = Topic.create("IntelliJDeodorant analysis statistics", Listener.class);
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_TIME_SUPPORTED = THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported();
+    private static final boolean ALLOCATED_BYTES_SUPPORTED = THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean
+            && ((com.sun.management.ThreadMXBean) THREAD_MX_BEAN).isThreadAllocatedMemorySupported();
+
+    private static final Map<ProgressIndicator, AnalysisStatistics> runs = new ConcurrentHashMap<>();
+    private static volatile AnalysisStatistics lastRun;
+
+    private Instrumentation() {
+    }
+
+    /**
+     * Starts a new run that records the phases and counters of the analysis run under the progress indicator.
+     */
+    @NotNull
+    public static AnalysisStatistics startRun(@NotNull String name, @NotNull ProgressIndicator indicator) {
+        AnalysisStatistics run = new AnalysisStatistics(name);
+        runs.put(indicator, run);
+        return run;
+    }
+
+    /**
+     * Finishes the run and notifies the {@link #TOPIC} subscribers.
+     */
+    public static void finishRun(@NotNull AnalysisStatistics run) {
+        run.finish();
+        runs.values().remove(run);
+        lastRun = run;
+        Application application = ApplicationManager.getApplication();
+        if (application != null) {
+            application.getMessageBus().syncPublisher(TOPIC).statisticsUpdated(run);
+        }
+    }
+
+    /**
+     * Returns the statistics of the last finished run.
+     */
+    @Nullable
+    public static AnalysisStatistics getLastRun() {
+        return lastRun;
+    }
+
+    /**
+     * Starts measuring a phase, the measurement is recorded when the returned phase is closed:
+     * <pre>
+     * try (Instrumentation.Phase ignored = Instrumentation.startPhase("pdg")) {
+     *     ...
+     * }
+     * </pre>
+     */
+    @NotNull
+    public static Phase startPhase(@NotNull String name) {
+        AnalysisStatistics run = getCurrentRun();
+        return run == null ? Phase.NONE : new Phase(run.getPhase(name));
+    }
+
+    public static void count(@NotNull String counter) {
+        count(counter, 1);
+    }
+
+    public static void count(@NotNull String counter, long delta) {
+        AnalysisStatistics run = getCurrentRun();
+        if (run != null) {
+            run.count(counter, delta);
+        }
+    }
+
+    @Nullable
+    private static AnalysisStatistics getCurrentRun() {
+        if (runs.isEmpty()) {
+            return null;
+        }
+        ProgressIndicator indicator = ProgressManager.getInstance().getProgressIndicator();
+        while (indicator != null) {
+            AnalysisStatistics run = runs.get(indicator);
+            if (run != null || !(indicator instanceof ProgressWrapper)) {
+                return run;
+            }
+            indicator = ((ProgressWrapper) indicator).getOriginalProgressIndicator();
+        }
+        return null;
+    }
+
+    private static long getCpuTime() {
+        return CPU_TIME_SUPPORTED ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : 0;
+    }
+
+    private static long getAllocatedBytes() {
+        return ALLOCATED_BYTES_SUPPORTED
+                ? ((com.sun.management.ThreadMXBean) THREAD_MX_BEAN).getThreadAllocatedBytes(Thread.currentThread().getId())
+                : 0;
+    }
+
+    public interface Listener {
+        void statisticsUpdated(@NotNull AnalysisStatistics statistics);
+    }
+
+    /**
+     * A measurement of a single invocation of a phase. Must be closed on the thread on which it was started.
+     */
+    public static class Phase implements AutoCloseable {
+        private static final Phase NONE = new Phase(null);
+
+        private final PhaseStatistics statistics;
+        private final long startWallTime;
+        private final long startCpuTime;
+        private final long startAllocatedBytes;
+
+        private Phase(@Nullable PhaseStatistics statistics) {
+            this.statistics = statistics;
+            this.startWallTime = statistics == null ? 0 : System.nanoTime();
+            this.startCpuTime = statistics == null ? 0 : getCpuTime();
+            this.startAllocatedBytes = statistics == null ? 0 : getAllocatedBytes();
+            if (statistics != null) {
+                statistics.enter(startWallTime);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (statistics != null) {
+                long endWallTime = System.nanoTime();
+                statistics.add(endWallTime - startWallTime, getCpuTime() - startCpuTime,
+                        getAllocatedBytes() - startAllocatedBytes);
+                statistics.exit(endWallTime);
+            }
+        }
+    }
+}
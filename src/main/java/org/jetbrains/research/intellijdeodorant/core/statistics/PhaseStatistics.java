@@ -0,0 +1,79 @@
+package org.jetbrains.research.intellijdeodorant.core.statistics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accumulated measurements of all invocations of an analysis phase.
+ * If a phase is run on several threads at once, the wall time, the CPU time and the allocated bytes of all threads
+ * are summed up, while the elapsed time counts the time during which the phase was running on any thread once.
+ */
+public class PhaseStatistics {
+    private final String name;
+    private final AtomicLong invocations = new AtomicLong();
+    private final AtomicLong wallTime = new AtomicLong();
+    private final AtomicLong cpuTime = new AtomicLong();
+    private final AtomicLong allocatedBytes = new AtomicLong();
+    //invocations in progress, and the start of the period during which there has been one at least
+    private int activeInvocations;
+    private long activeStartTime;
+    private long elapsedTime;
+
+    PhaseStatistics(String name) {
+        this.name = name;
+    }
+
+    void add(long wallTime, long cpuTime, long allocatedBytes) {
+        this.invocations.incrementAndGet();
+        this.wallTime.addAndGet(wallTime);
+        this.cpuTime.addAndGet(cpuTime);
+        this.allocatedBytes.addAndGet(allocatedBytes);
+    }
+
+    synchronized void enter(long time) {
+        if (activeInvocations++ == 0) {
+            activeStartTime = time;
+        }
+    }
+
+    synchronized void exit(long time) {
+        if (--activeInvocations == 0) {
+            elapsedTime += time - activeStartTime;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getInvocations() {
+        return invocations.get();
+    }
+
+    /**
+     * Returns the wall time in nanoseconds, summed up over the threads that ran the phase.
+     */
+    public long getWallTime() {
+        return wallTime.get();
+    }
+
+    /**
+     * Returns the time in nanoseconds during which the phase was running on one thread at least.
+     */
+    public synchronized long getElapsedTime() {
+        return elapsedTime;
+    }
+
+    /**
+     * Returns the CPU time in nanoseconds, or 0 if it is not supported by the JVM.
+     */
+    public long getCpuTime() {
+        return cpuTime.get();
+    }
+
+    /**
+     * Returns the number of allocated bytes, or 0 if it is not supported by the JVM.
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes.get();
+    }
+}
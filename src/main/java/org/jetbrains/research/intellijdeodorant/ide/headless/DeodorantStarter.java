@@ -0,0 +1,215 @@
+package org.jetbrains.research.intellijdeodorant.ide.headless;
+
+import com.intellij.analysis.AnalysisScope;
+import com.intellij.ide.impl.ProjectUtil;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ApplicationStarter;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.module.ModuleManager;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.util.ProgressIndicatorBase;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.project.ProjectManager;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.research.intellijdeodorant.IntelliJDeodorantBundle;
+import org.jetbrains.research.intellijdeodorant.core.CompilationErrorsChecker;
+import org.jetbrains.research.intellijdeodorant.core.distance.ProjectInfo;
+import org.jetbrains.research.intellijdeodorant.core.statistics.AnalysisStatistics;
+import org.jetbrains.research.intellijdeodorant.core.statistics.Instrumentation;
+import org.jetbrains.research.intellijdeodorant.ide.refactoring.Refactoring;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Runs the detection of code smells without GUI, e.g. to check the code on CI:
+ * <pre>
+ * idea deodorant &lt;project path&gt; [--smells=feature-envy,long-method,god-class,type-checking]
+ *     [--format=json|csv] [--output=file] [--module=name] [--fail-on-smells] [--skip-error-check]
+ * </pre>
+ * The project is not analyzed if it has compilation errors, unless the check is skipped.
+ * The results are written to the standard output unless the output file is given, the timings and the statistics
+ * of the analysis phases are written to the standard error.
+ */
+public class DeodorantStarter implements ApplicationStarter {
+    static final int EXIT_OK = 0;
+    static final int EXIT_SMELLS_FOUND = 1;
+    static final int EXIT_USAGE_ERROR = 2;
+    static final int EXIT_FAILURE = 3;
+
+    @Override
+    public String getCommandName() {
+        return "deodorant";
+    }
+
+    @Override
+    public int getRequiredModality() {
+        return NOT_IN_EDT;
+    }
+
+    @Override
+    public void main(String[] args) {
+        int exitCode;
+        try {
+            Options options = Options.parse(Arrays.asList(args).subList(1, args.length));
+            exitCode = options == null ? EXIT_USAGE_ERROR : run(options);
+        } catch (Throwable e) {
+            e.printStackTrace();
+            exitCode = EXIT_FAILURE;
+        }
+        System.exit(exitCode);
+    }
+
+    private static int run(@NotNull Options options) throws IOException {
+        Map<String, Long> timings = new LinkedHashMap<>();
+        long start = System.currentTimeMillis();
+        Project[] openedProject = new Project[1];
+        ApplicationManager.getApplication().invokeAndWait(() ->
+                openedProject[0] = ProjectUtil.openOrImport(options.projectPath, null, false));
+        Project project = openedProject[0];
+        if (project == null) {
+            System.err.println(IntelliJDeodorantBundle.message("headless.error.project", options.projectPath));
+            return EXIT_FAILURE;
+        }
+        timings.put("open.project", System.currentTimeMillis() - start);
+
+        try {
+            start = System.currentTimeMillis();
+            DumbService.getInstance(project).waitForSmartMode();
+            timings.put("indexing", System.currentTimeMillis() - start);
+
+            AnalysisScope scope = createScope(project, options.moduleName);
+            if (scope == null) {
+                System.err.println(IntelliJDeodorantBundle.message("headless.error.module", options.moduleName));
+                return EXIT_USAGE_ERROR;
+            }
+
+            if (!options.skipErrorCheck) {
+                start = System.currentTimeMillis();
+                boolean hasErrors = hasCompilationErrors(project, scope);
+                timings.put("error.check", System.currentTimeMillis() - start);
+                if (hasErrors) {
+                    System.err.println(IntelliJDeodorantBundle.message("headless.error.compilation"));
+                    return EXIT_FAILURE;
+                }
+            }
+
+            int refactoringsCount = 0;
+            // all the smells are detected under one indicator, so that they are recorded to one run
+            ProgressIndicator indicator = new ProgressIndicatorBase();
+            AnalysisStatistics statistics = Instrumentation.startRun(project.getName(), indicator);
+            Map<Smell, List<? extends Refactoring>> detectedRefactorings = new LinkedHashMap<>();
+            try {
+                ProgressManager.getInstance().runProcess(() -> {
+                    for (Smell smell : options.smells) {
+                        long smellStart = System.currentTimeMillis();
+                        detectedRefactorings.put(smell, smell.detect(scope, indicator));
+                        timings.put(smell.getId(), System.currentTimeMillis() - smellStart);
+                    }
+                }, indicator);
+            } finally {
+                Instrumentation.finishRun(statistics);
+            }
+            try (Writer writer = createWriter(options.outputPath)) {
+                ReportWriter reportWriter = ReportWriter.create(options.format, writer);
+                for (Map.Entry<Smell, List<? extends Refactoring>> refactorings : detectedRefactorings.entrySet()) {
+                    refactoringsCount += refactorings.getValue().size();
+                    ReadAction.run(() -> reportWriter.writeRefactorings(refactorings.getKey(), refactorings.getValue()));
+                }
+                reportWriter.finish(timings, statistics);
+            }
+            timings.forEach((phase, time) -> System.err.println(phase + ": " + time + " ms"));
+            Writer errorWriter = new OutputStreamWriter(System.err, StandardCharsets.UTF_8);
+            statistics.write(errorWriter);
+            return options.failOnSmells && refactoringsCount > 0 ? EXIT_SMELLS_FOUND : EXIT_OK;
+        } finally {
+            ApplicationManager.getApplication().invokeAndWait(() -> ProjectManager.getInstance().closeAndDispose(project));
+        }
+    }
+
+    private static boolean hasCompilationErrors(@NotNull Project project, @NotNull AnalysisScope scope) {
+        CompilationErrorsChecker checker = CompilationErrorsChecker.getInstance(project);
+        CompilationErrorsChecker.Result result =
+                ReadAction.compute(() -> checker.check(new ProjectInfo(scope, false).getClasses()));
+        return result.hasErrors() || result.hasUnknownFiles() && !checker.compileAndWait(result);
+    }
+
+    private static AnalysisScope createScope(@NotNull Project project, String moduleName) {
+        if (moduleName == null) {
+            return new AnalysisScope(project);
+        }
+        Module module = ModuleManager.getInstance(project).findModuleByName(moduleName);
+        return module == null ? null : new AnalysisScope(module);
+    }
+
+    private static Writer createWriter(String outputPath) throws IOException {
+        OutputStream stream = outputPath == null
+                ? new FileOutputStream(FileDescriptor.out)
+                : new FileOutputStream(outputPath);
+        return new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+    }
+
+    private static class Options {
+        private String projectPath;
+        private String moduleName;
+        private String outputPath;
+        private ReportWriter.Format format = ReportWriter.Format.JSON;
+        private final Set<Smell> smells = EnumSet.allOf(Smell.class);
+        private boolean failOnSmells;
+        private boolean skipErrorCheck;
+
+        /**
+         * Returns {@code null} and prints the usage if the arguments are invalid.
+         */
+        private static Options parse(@NotNull List<String> args) {
+            Options options = new Options();
+            for (String arg : args) {
+                if (arg.startsWith("--smells=")) {
+                    options.smells.clear();
+                    for (String id : arg.substring("--smells=".length()).split(",")) {
+                        Smell smell = Smell.fromId(id.trim());
+                        if (smell == null) {
+                            return printUsage(IntelliJDeodorantBundle.message("headless.error.smell", id));
+                        }
+                        options.smells.add(smell);
+                    }
+                } else if (arg.startsWith("--format=")) {
+                    String format = arg.substring("--format=".length());
+                    try {
+                        options.format = ReportWriter.Format.valueOf(format.toUpperCase(Locale.ROOT));
+                    } catch (IllegalArgumentException e) {
+                        return printUsage(IntelliJDeodorantBundle.message("headless.error.format", format));
+                    }
+                } else if (arg.startsWith("--output=")) {
+                    options.outputPath = arg.substring("--output=".length());
+                } else if (arg.startsWith("--module=")) {
+                    options.moduleName = arg.substring("--module=".length());
+                } else if (arg.equals("--fail-on-smells")) {
+                    options.failOnSmells = true;
+                } else if (arg.equals("--skip-error-check")) {
+                    options.skipErrorCheck = true;
+                } else if (arg.startsWith("--") || options.projectPath != null) {
+                    return printUsage(IntelliJDeodorantBundle.message("headless.error.argument", arg));
+                } else {
+                    options.projectPath = new File(arg).getAbsolutePath();
+                }
+            }
+            if (options.projectPath == null || options.smells.isEmpty()) {
+                return printUsage(null);
+            }
+            return options;
+        }
+
+        private static Options printUsage(String error) {
+            if (error != null) {
+                System.err.println(error);
+            }
+            System.err.println(IntelliJDeodorantBundle.message("headless.usage"));
+            return null;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package org.jetbrains.research.intellijdeodorant.ide.headless;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.research.intellijdeodorant.core.statistics.AnalysisStatistics;
+import org.jetbrains.research.intellijdeodorant.core.statistics.PhaseStatistics;
+import org.jetbrains.research.intellijdeodorant.ide.refactoring.Refactoring;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the detected refactorings in a machine-readable format.
+ * Refactorings are written as soon as a smell has been detected, so the report of a large project is not kept in memory.
+ */
+abstract class ReportWriter {
+    protected final Writer writer;
+
+    private ReportWriter(@NotNull Writer writer) {
+        this.writer = writer;
+    }
+
+    static ReportWriter create(@NotNull Format format, @NotNull Writer writer) {
+        return format == Format.JSON ? new JsonReportWriter(writer) : new CsvReportWriter(writer);
+    }
+
+    abstract void writeRefactorings(@NotNull Smell smell, @NotNull List<? extends Refactoring> refactorings) throws IOException;
+
+    /**
+     * Completes the report.
+     *
+     * @param timings    durations of the steps of the runner in milliseconds.
+     * @param statistics measurements of the analysis phases.
+     */
+    abstract void finish(@NotNull Map<String, Long> timings, @NotNull AnalysisStatistics statistics) throws IOException;
+
+    enum Format {
+        JSON, CSV
+    }
+
+    /**
+     * Writes one line per record in the same format as the exported results, prefixed with the smell.
+     */
+    private static class CsvReportWriter extends ReportWriter {
+        private CsvReportWriter(@NotNull Writer writer) {
+            super(writer);
+        }
+
+        @Override
+        void writeRefactorings(@NotNull Smell smell, @NotNull List<? extends Refactoring> refactorings) throws IOException {
+            for (Refactoring refactoring : refactorings) {
+                for (String record : refactoring.getDescription().split("\n")) {
+                    if (!record.isEmpty()) {
+                        writer.write(smell.getId() + Refactoring.DELIMITER + record + '\n');
+                    }
+                }
+            }
+            writer.flush();
+        }
+
+        @Override
+        void finish(@NotNull Map<String, Long> timings, @NotNull AnalysisStatistics statistics) throws IOException {
+            writer.flush();
+        }
+    }
+
+    /**
+     * Writes a single object with the records of every smell, the timings and the statistics of the analysis phases.
+     */
+    private static class JsonReportWriter extends ReportWriter {
+        private boolean firstSmell = true;
+
+        private JsonReportWriter(@NotNull Writer writer) {
+            super(writer);
+        }
+
+        @Override
+        void writeRefactorings(@NotNull Smell smell, @NotNull List<? extends Refactoring> refactorings) throws IOException {
+            writer.write(firstSmell ? "{\"smells\":{" : ",");
+            firstSmell = false;
+            writer.write(quote(smell.getId()) + ":[");
+            boolean firstRecord = true;
+            for (Refactoring refactoring : refactorings) {
+                for (String record : refactoring.getDescription().split("\n")) {
+                    if (record.isEmpty()) {
+                        continue;
+                    }
+                    if (!firstRecord) {
+                        writer.write(",");
+                    }
+                    firstRecord = false;
+                    writer.write("\n[");
+                    String[] fields = record.split(Refactoring.DELIMITER, -1);
+                    for (int i = 0; i < fields.length; i++) {
+                        if (i > 0) {
+                            writer.write(",");
+                        }
+                        writer.write(quote(fields[i]));
+                    }
+                    writer.write("]");
+                }
+            }
+            writer.write("]");
+            writer.flush();
+        }
+
+        @Override
+        void finish(@NotNull Map<String, Long> timings, @NotNull AnalysisStatistics statistics) throws IOException {
+            writer.write(firstSmell ? "{\"smells\":{}" : "}");
+            writer.write(",\"timings\":");
+            writeValues(timings);
+            writer.write(",\"statistics\":{\"phases\":[");
+            boolean first = true;
+            for (PhaseStatistics phase : statistics.getPhases()) {
+                if (!first) {
+                    writer.write(",");
+                }
+                first = false;
+                writer.write("\n{\"name\":" + quote(phase.getName())
+                        + ",\"invocations\":" + phase.getInvocations()
+                        + ",\"elapsedTimeNanos\":" + phase.getElapsedTime()
+                        + ",\"threadsWallTimeNanos\":" + phase.getWallTime()
+                        + ",\"cpuTimeNanos\":" + phase.getCpuTime()
+                        + ",\"allocatedBytes\":" + phase.getAllocatedBytes() + "}");
+            }
+            writer.write("],\"counters\":");
+            writeValues(statistics.getCounters());
+            writer.write("}}\n");
+            writer.flush();
+        }
+
+        private void writeValues(@NotNull Map<String, Long> values) throws IOException {
+            writer.write("{");
+            boolean first = true;
+            for (Map.Entry<String, Long> value : values.entrySet()) {
+                if (!first) {
+                    writer.write(",");
+                }
+                first = false;
+                writer.write(quote(value.getKey()) + ":" + value.getValue());
+            }
+            writer.write("}");
+        }
+
+        private static String quote(String value) {
+            StringBuilder builder = new StringBuilder(value.length() + 2).append('"');
+            for (char c : value.toCharArray()) {
+                switch (c) {
+                    case '"':
+                        builder.append("\\\"");
+                        break;
+                    case '\\':
+                        builder.append("\\\\");
+                        break;
+                    case '\n':
+                        builder.append("\\n");
+                        break;
+                    case '\r':
+                        builder.append("\\r");
+                        break;
+                    case '\t':
+                        builder.append("\\t");
+                        break;
+                    default:
+                        if (c < 0x20) {
+                            builder.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            builder.append(c);
+                        }
+                }
+            }
+            return builder.append('"').toString();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package org.jetbrains.research.intellijdeodorant.ide.headless;
+
+import com.intellij.analysis.AnalysisScope;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiJavaFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.research.intellijdeodorant.JDeodorantFacade;
+import org.jetbrains.research.intellijdeodorant.core.ast.decomposition.cfg.ASTSliceGroup;
+import org.jetbrains.research.intellijdeodorant.core.distance.MoveMethodCandidateRefactoring;
+import org.jetbrains.research.intellijdeodorant.core.distance.ProjectInfo;
+import org.jetbrains.research.intellijdeodorant.ide.refactoring.Refactoring;
+import org.jetbrains.research.intellijdeodorant.ide.refactoring.RefactoringType;
+import org.jetbrains.research.intellijdeodorant.ide.refactoring.extractClass.ExtractClassRefactoringType;
+import org.jetbrains.research.intellijdeodorant.ide.refactoring.extractMethod.ExtractMethodCandidateGroup;
+import org.jetbrains.research.intellijdeodorant.ide.refactoring.moveMethod.MoveMethodRefactoring;
+import org.jetbrains.research.intellijdeodorant.ide.refactoring.typeStateChecking.TypeCheckRefactoringType;
+import org.jetbrains.research.intellijdeodorant.utils.PsiUtils;
+import org.jetbrains.research.intellijdeodorant.utils.ReadActionUtils;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Code smells that can be detected by {@link DeodorantStarter}.
+ * The refactorings are built in the same way as in the tool window panels, so their descriptions match the exported ones.
+ */
+enum Smell {
+    FEATURE_ENVY("feature-envy") {
+        @Override
+        List<? extends Refactoring> detect(@NotNull AnalysisScope scope, @NotNull ProgressIndicator indicator) {
+            ProjectInfo projectInfo = ReadActionUtils.computeInReadAction(() -> new ProjectInfo(scope, true));
+            Set<String> classNamesToBeExamined = ReadActionUtils.computeInReadAction(() -> {
+                Set<String> classNames = new HashSet<>();
+                for (PsiJavaFile file : PsiUtils.extractFiles(scope.getProject())) {
+                    if (scope.contains(file)) {
+                        Arrays.stream(file.getClasses()).map(PsiClass::getQualifiedName).forEach(classNames::add);
+                    }
+                }
+                return classNames;
+            });
+            List<MoveMethodCandidateRefactoring> candidates =
+                    JDeodorantFacade.getMoveMethodRefactoringOpportunities(projectInfo, indicator, classNamesToBeExamined);
+            return ReadActionUtils.computeInReadAction(() -> candidates.stream().filter(Objects::nonNull)
+                    .map(candidate -> new MoveMethodRefactoring(candidate.getSourceMethodDeclaration(),
+                            candidate.getTargetClass().getClassObject().getPsiClass(),
+                            candidate.getDistinctSourceDependencies(),
+                            candidate.getDistinctTargetDependencies()))
+                    .collect(Collectors.toList()));
+        }
+    },
+    LONG_METHOD("long-method") {
+        @Override
+        List<? extends Refactoring> detect(@NotNull AnalysisScope scope, @NotNull ProgressIndicator indicator) {
+            ProjectInfo projectInfo = ReadActionUtils.computeInReadAction(() -> new ProjectInfo(scope, false));
+            Set<ASTSliceGroup> candidates = JDeodorantFacade.getExtractMethodRefactoringOpportunities(projectInfo, indicator);
+            return ReadActionUtils.computeInReadAction(() -> candidates.stream().filter(Objects::nonNull)
+                    .filter(sliceGroup -> !sliceGroup.getCandidates().isEmpty())
+                    .map(sliceGroup -> new ExtractMethodCandidateGroup(sliceGroup.getCandidates()))
+                    .sorted(Comparator.comparing(ExtractMethodCandidateGroup::getDescription))
+                    .collect(Collectors.toList()));
+        }
+    },
+    GOD_CLASS("god-class") {
+        @Override
+        List<? extends Refactoring> detect(@NotNull AnalysisScope scope, @NotNull ProgressIndicator indicator) {
+            return getCandidates(new ExtractClassRefactoringType(), scope, indicator);
+        }
+    },
+    TYPE_CHECKING("type-checking") {
+        @Override
+        List<? extends Refactoring> detect(@NotNull AnalysisScope scope, @NotNull ProgressIndicator indicator) {
+            return getCandidates(new TypeCheckRefactoringType(scope.getProject()), scope, indicator);
+        }
+    };
+
+    private final String id;
+
+    Smell(String id) {
+        this.id = id;
+    }
+
+    @NotNull
+    String getId() {
+        return id;
+    }
+
+    /**
+     * Detects the smell in the given scope. Must not be called under a read action: the analysis takes
+     * its own short read actions, which give way to write actions.
+     */
+    abstract List<? extends Refactoring> detect(@NotNull AnalysisScope scope, @NotNull ProgressIndicator indicator);
+
+    @Nullable
+    static Smell fromId(@NotNull String id) {
+        for (Smell smell : values()) {
+            if (smell.id.equals(id)) {
+                return smell;
+            }
+        }
+        return null;
+    }
+
+    private static List<? extends Refactoring> getCandidates(RefactoringType refactoringType, AnalysisScope scope,
+                                                             ProgressIndicator indicator) {
+        ProjectInfo projectInfo = ReadActionUtils.computeInReadAction(() -> new ProjectInfo(scope, false));
+        List<RefactoringType.AbstractCandidateRefactoringGroup> groups =
+                refactoringType.getRefactoringOpportunities(projectInfo, indicator);
+        if (groups == null) {
+            return Collections.emptyList();
+        }
+        return ReadActionUtils.computeInReadAction(() -> groups.stream()
+                .flatMap(group -> group.getCandidates().stream())
+                .collect(Collectors.toList()));
+    }
+}
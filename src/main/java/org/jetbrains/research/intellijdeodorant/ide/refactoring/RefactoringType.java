@@ -3,10 +3,12 @@ package org.jetbrains.research.intellijdeodorant.ide.refactoring;
 import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.psi.PsiClass;
 import org.jetbrains.research.intellijdeodorant.core.distance.ProjectInfo;
+import org.jetbrains.research.intellijdeodorant.utils.ReadActionUtils;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
 abstract public class RefactoringType {
     public abstract AbstractCandidateRefactoring newCandidateRefactoring(Object candidateRefactoring);
@@ -19,12 +21,29 @@ abstract public class RefactoringType {
             return null;
         }
 
-        List<AbstractCandidateRefactoringGroup> result = new ArrayList<>();
-        for (Object candidate : notAbstractRefactoringOpportunities) {
-            result.add(newAbstractCandidateRefactoringGroup(candidate));
-        }
+        return ReadActionUtils.computeInReadAction(() -> {
+            List<AbstractCandidateRefactoringGroup> result = new ArrayList<>();
+            for (Object candidate : notAbstractRefactoringOpportunities) {
+                result.add(newAbstractCandidateRefactoringGroup(candidate));
+            }
+            return result;
+        });
+    }
 
-        return result;
+    /**
+     * Passes the refactoring opportunities to the consumer in portions as soon as they are found.
+     * By default all opportunities are passed at once when the detection is finished.
+     *
+     * @return {@code false} if the opportunities cannot be found.
+     */
+    public boolean getRefactoringOpportunities(ProjectInfo projectInfo, ProgressIndicator indicator,
+                                               Consumer<List<AbstractCandidateRefactoringGroup>> groupsConsumer) {
+        List<AbstractCandidateRefactoringGroup> groups = getRefactoringOpportunities(projectInfo, indicator);
+        if (groups == null) {
+            return false;
+        }
+        groupsConsumer.accept(groups);
+        return true;
     }
 
     public abstract Set<?> getNotAbstractRefactoringOpportunities(ProjectInfo projectInfo, ProgressIndicator indicator);
@@ -1,7 +1,6 @@
 package org.jetbrains.research.intellijdeodorant.ide.refactoring;
 
 import com.intellij.psi.*;
-import org.jetbrains.research.intellijdeodorant.core.ast.ASTReader;
 import org.jetbrains.research.intellijdeodorant.core.ast.ClassObject;
 import org.jetbrains.research.intellijdeodorant.core.ast.SystemObject;
 import org.jetbrains.research.intellijdeodorant.core.ast.decomposition.cfg.AbstractVariable;
@@ -11,7 +10,7 @@ public class RefactoringUtility {
         return factory.createType(psiClass);
     }
 
-    public static PsiField findFieldDeclaration(AbstractVariable variable, PsiClass typeDeclaration) {
+    public static PsiField findFieldDeclaration(AbstractVariable variable, PsiClass typeDeclaration, SystemObject system) {
         for (PsiField fieldDeclaration : typeDeclaration.getFields()) {
             if (variable.getOrigin().equals(fieldDeclaration)) {
                 return fieldDeclaration;
@@ -21,16 +20,15 @@ public class RefactoringUtility {
         PsiClass superclassType = typeDeclaration.getSuperClass();
         if (superclassType != null) {
             String superclassQualifiedName = superclassType.getQualifiedName();
-            SystemObject system = ASTReader.getSystemObject();
             ClassObject superclassObject = system.getClassObject(superclassQualifiedName);
             if (superclassObject != null) {
-                return findFieldDeclaration(variable, superclassType);
+                return findFieldDeclaration(variable, superclassType, system);
             }
         }
         return null;
     }
 
-    public static PsiClass findDeclaringTypeDeclaration(PsiField variableBinding, PsiClass typeDeclaration) {
+    public static PsiClass findDeclaringTypeDeclaration(PsiField variableBinding, PsiClass typeDeclaration, SystemObject system) {
         if (variableBinding == null) {
             return null;
         }
@@ -42,16 +40,15 @@ public class RefactoringUtility {
         PsiClass superclassType = typeDeclaration.getSuperClass();
         if (superclassType != null) {
             String superclassQualifiedName = superclassType.getQualifiedName();
-            SystemObject system = ASTReader.getSystemObject();
             ClassObject superclassObject = system.getClassObject(superclassQualifiedName);
             if (superclassObject != null) {
-                return findDeclaringTypeDeclaration(variableBinding, superclassType);
+                return findDeclaringTypeDeclaration(variableBinding, superclassType, system);
             }
         }
         return null;
     }
 
-    public static PsiClass findDeclaringTypeDeclaration(PsiMethod methodBinding, PsiClass typeDeclaration) {
+    public static PsiClass findDeclaringTypeDeclaration(PsiMethod methodBinding, PsiClass typeDeclaration, SystemObject system) {
         if (typeDeclaration.equals(methodBinding.getContainingClass())) {
             return typeDeclaration;
         }
@@ -59,10 +56,9 @@ public class RefactoringUtility {
         PsiClass superclassType = typeDeclaration.getSuperClass();
         if (superclassType != null) {
             String superclassQualifiedName = superclassType.getQualifiedName();
-            SystemObject system = ASTReader.getSystemObject();
             ClassObject superclassObject = system.getClassObject(superclassQualifiedName);
             if (superclassObject != null) {
-                findDeclaringTypeDeclaration(methodBinding, superclassType);
+                findDeclaringTypeDeclaration(methodBinding, superclassType, system);
             }
         }
         return null;
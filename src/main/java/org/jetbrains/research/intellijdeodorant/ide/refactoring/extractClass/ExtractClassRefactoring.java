@@ -12,6 +12,7 @@ import com.intellij.psi.codeStyle.JavaCodeStyleManager;
 import com.intellij.psi.util.PsiTreeUtil;
 import org.eclipse.jdt.internal.compiler.ast.MarkerAnnotation;
 import org.jetbrains.research.intellijdeodorant.IntelliJDeodorantBundle;
+import org.jetbrains.research.intellijdeodorant.core.ast.SystemObject;
 import org.jetbrains.research.intellijdeodorant.core.ast.decomposition.cfg.PlainVariable;
 import org.jetbrains.research.intellijdeodorant.core.ast.util.ExpressionExtractor;
 import org.jetbrains.research.intellijdeodorant.core.ast.util.MethodDeclarationUtility;
@@ -34,6 +35,7 @@ public class ExtractClassRefactoring {
     private static final String ACCESSOR_SUFFIX = "2";
     private PsiJavaFile sourceFile;
     private PsiClass sourceTypeDeclaration;
+    private final SystemObject system;
     private Map<PsiMethod, Set<PlainVariable>> additionalArgumentsAddedToExtractedMethods;
     private Map<PsiMethod, Set<PsiParameter>> additionalParametersAddedToExtractedMethods;
     private Set<PsiMethod> sourceMethodBindingsChangedWithPublicModifier;
@@ -106,9 +108,11 @@ public class ExtractClassRefactoring {
     private static final String CREATED_EXTRACTED_CLASS = IntelliJDeodorantBundle.message("god.class.preview.created.extracted.class");
 
     public ExtractClassRefactoring(PsiJavaFile sourceFile, PsiClass sourceTypeDeclaration,
-                                   Set<PsiField> extractedFieldFragments, Set<PsiMethod> extractedMethods, Set<PsiMethod> delegateMethods, String defaultExtractedTypeName) {
+                                   Set<PsiField> extractedFieldFragments, Set<PsiMethod> extractedMethods, Set<PsiMethod> delegateMethods, String defaultExtractedTypeName,
+                                   SystemObject system) {
         this.sourceFile = sourceFile;
         this.sourceTypeDeclaration = sourceTypeDeclaration;
+        this.system = system;
         init(extractedFieldFragments, extractedMethods, delegateMethods, defaultExtractedTypeName);
     }
 
@@ -1084,7 +1088,7 @@ public class ExtractClassRefactoring {
     }
 
     private PsiMethod findSetterMethodInSourceClass(PsiField fieldBinding) {
-        PsiClass typeDeclaration = RefactoringUtility.findDeclaringTypeDeclaration(fieldBinding, sourceTypeDeclaration);
+        PsiClass typeDeclaration = RefactoringUtility.findDeclaringTypeDeclaration(fieldBinding, sourceTypeDeclaration, system);
         if (typeDeclaration != null) {
             PsiMethod[] contextMethods = typeDeclaration.getMethods();
             for (PsiMethod methodDeclaration : contextMethods) {
@@ -1098,7 +1102,7 @@ public class ExtractClassRefactoring {
     }
 
     private PsiMethod findGetterMethodInSourceClass(PsiField fieldBinding) {
-        PsiClass typeDeclaration = RefactoringUtility.findDeclaringTypeDeclaration(fieldBinding, sourceTypeDeclaration);
+        PsiClass typeDeclaration = RefactoringUtility.findDeclaringTypeDeclaration(fieldBinding, sourceTypeDeclaration, system);
         if (typeDeclaration != null) {
             PsiMethod[] contextMethods = typeDeclaration.getMethods();
             for (PsiMethod methodDeclaration : contextMethods) {
@@ -1835,7 +1839,7 @@ public class ExtractClassRefactoring {
                                         PsiExpression newExpression = (PsiExpression) newMethodInvocation.replace(factory.createExpressionFromText(modifiedSourceTypeName + "." + newMethodInvocation.getText(), sourceMethod));
                                         newMethodInvocations.set(j, newExpression);
                                         if (!sourceMethodBindingsChangedWithPublicModifier.contains(methodBinding)) {
-                                            PsiClass superclassTypeDeclaration = RefactoringUtility.findDeclaringTypeDeclaration(superclassMethodBinding, sourceTypeDeclaration);
+                                            PsiClass superclassTypeDeclaration = RefactoringUtility.findDeclaringTypeDeclaration(superclassMethodBinding, sourceTypeDeclaration, system);
                                             if (superclassTypeDeclaration != null) {
                                                 setPublicModifierToSourceMethod(methodInvocation.resolveMethod(), superclassTypeDeclaration);
                                             }
@@ -2198,7 +2202,7 @@ public class ExtractClassRefactoring {
     private boolean declaredInSourceTypeDeclarationOrSuperclass(PsiField variableBinding) {
         PsiField sourceField = sandboxToSourceFieldMap.get(variableBinding);
 
-        return RefactoringUtility.findDeclaringTypeDeclaration(sourceField, sourceTypeDeclaration) != null
+        return RefactoringUtility.findDeclaringTypeDeclaration(sourceField, sourceTypeDeclaration, system) != null
                 && !extractedFieldFragments.contains(sourceField);
     }
 
@@ -2212,7 +2216,7 @@ public class ExtractClassRefactoring {
 
     private PsiParameter addParameterToMovedMethod(PsiMethod newMethodDeclaration, PlainVariable additionalArgument) {
         PsiParameter parameter;
-        PsiField field = RefactoringUtility.findFieldDeclaration(additionalArgument, sourceTypeDeclaration);
+        PsiField field = RefactoringUtility.findFieldDeclaration(additionalArgument, sourceTypeDeclaration, system);
         PsiType fieldType = field.getType();
         String parameterName;
         if (additionalArgument.isField()) {
@@ -11,9 +11,12 @@ import org.jetbrains.research.intellijdeodorant.core.distance.ExtractClassCandid
 import org.jetbrains.research.intellijdeodorant.core.distance.ProjectInfo;
 import org.jetbrains.research.intellijdeodorant.ide.refactoring.RefactoringType;
 import org.jetbrains.research.intellijdeodorant.ide.ui.AbstractRefactoringPanel;
+import org.jetbrains.research.intellijdeodorant.utils.ReadActionUtils;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import static org.jetbrains.research.intellijdeodorant.JDeodorantFacade.getExtractClassRefactoringOpportunities;
 
@@ -33,6 +36,15 @@ public class ExtractClassRefactoringType extends RefactoringType {
         return getExtractClassRefactoringOpportunities(projectInfo, indicator);
     }
 
+    @Override
+    public boolean getRefactoringOpportunities(ProjectInfo projectInfo, ProgressIndicator indicator,
+                                               Consumer<List<AbstractCandidateRefactoringGroup>> groupsConsumer) {
+        getExtractClassRefactoringOpportunities(projectInfo, indicator,
+                group -> groupsConsumer.accept(Collections.singletonList(
+                        ReadActionUtils.computeInReadAction(() -> newAbstractCandidateRefactoringGroup(group)))));
+        return true;
+    }
+
     @Override
     public AbstractRefactoring newAbstractRefactoring(AbstractCandidateRefactoring candidateRefactoring) {
         return new AbstractExtractClassRefactoring((ExtractClassCandidateRefactoring) candidateRefactoring.getCandidateRefactoring());
@@ -125,7 +137,8 @@ public class ExtractClassRefactoringType extends RefactoringType {
                     candidateRefactoring.getExtractedFieldFragments(),
                     candidateRefactoring.getExtractedMethods(),
                     candidateRefactoring.getDelegateMethods(),
-                    candidateRefactoring.getDefaultTargetClassName());
+                    candidateRefactoring.getDefaultTargetClassName(),
+                    candidateRefactoring.getSystemObject());
             return refactoring;
         }
 
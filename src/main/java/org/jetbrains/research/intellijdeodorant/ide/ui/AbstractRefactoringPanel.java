@@ -8,9 +8,6 @@ import com.intellij.notification.NotificationDisplayType;
 import com.intellij.notification.NotificationGroup;
 import com.intellij.notification.Notifications;
 import com.intellij.openapi.application.ApplicationManager;
-import com.intellij.openapi.compiler.CompileScope;
-import com.intellij.openapi.compiler.CompileStatusNotification;
-import com.intellij.openapi.compiler.CompilerManager;
 import com.intellij.openapi.editor.Editor;
 import com.intellij.openapi.editor.colors.EditorColors;
 import com.intellij.openapi.editor.colors.EditorColorsManager;
@@ -23,8 +20,6 @@ import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.progress.Task;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.MessageType;
-import com.intellij.openapi.vfs.VirtualFile;
-import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiField;
 import com.intellij.psi.PsiMethod;
@@ -38,22 +33,26 @@ import com.intellij.util.messages.MessageBus;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.research.intellijdeodorant.IntelliJDeodorantBundle;
+import org.jetbrains.research.intellijdeodorant.core.CompilationErrorsChecker;
 import org.jetbrains.research.intellijdeodorant.core.distance.ProjectInfo;
+import org.jetbrains.research.intellijdeodorant.core.statistics.AnalysisStatistics;
+import org.jetbrains.research.intellijdeodorant.core.statistics.Instrumentation;
 import org.jetbrains.research.intellijdeodorant.ide.refactoring.Refactoring;
 import org.jetbrains.research.intellijdeodorant.ide.refactoring.RefactoringType;
 import org.jetbrains.research.intellijdeodorant.ide.refactoring.RefactoringType.AbstractCandidateRefactoring;
+import org.jetbrains.research.intellijdeodorant.ide.refactoring.RefactoringType.AbstractCandidateRefactoringGroup;
 import org.jetbrains.research.intellijdeodorant.ide.refactoring.RefactoringType.AbstractRefactoring;
 import org.jetbrains.research.intellijdeodorant.ide.ui.listeners.DoubleClickListener;
 import org.jetbrains.research.intellijdeodorant.ide.ui.listeners.ElementSelectionListener;
 import org.jetbrains.research.intellijdeodorant.ide.ui.listeners.EnterKeyListener;
 import org.jetbrains.research.intellijdeodorant.utils.ExportResultsUtil;
+import org.jetbrains.research.intellijdeodorant.utils.ReadActionUtils;
 
 import javax.swing.*;
 import javax.swing.tree.TreePath;
 import java.awt.*;
 import java.awt.event.InputEvent;
 import java.awt.event.KeyEvent;
-import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -61,6 +60,8 @@ import java.util.stream.Collectors;
 public abstract class AbstractRefactoringPanel extends JPanel {
     private static final NotificationGroup NOTIFICATION_GROUP =
             new NotificationGroup(IntelliJDeodorantBundle.message("intellijdeodorant"), NotificationDisplayType.STICKY_BALLOON, true);
+    private static final Comparator<AbstractCandidateRefactoringGroup> GROUPS_COMPARATOR =
+            Comparator.comparing(o -> o.getCandidates().get(0).getSourceClass().getQualifiedName());
     private final String detectIndicatorStatusTextKey;
     @NotNull
     protected final AnalysisScope scope;
@@ -78,6 +79,7 @@ public abstract class AbstractRefactoringPanel extends JPanel {
     private final RefactoringType refactoringType;
     private static Notification errorNotification;
     private final int refactorDepth;
+    private CandidatesQueue<AbstractCandidateRefactoringGroup> candidatesQueue;
 
     private boolean isPreviewUsage;
 
@@ -113,28 +115,27 @@ public abstract class AbstractRefactoringPanel extends JPanel {
     }
 
     /**
-     * Compiles the project and runs the task only if there are no compilation errors.
+     * Runs the task only if there are no compilation errors.
+     * Only the files whose errors are not known from the highlighting are compiled.
      */
     private static void runAfterCompilationCheck(ProjectInfo projectInfo, Task task) {
+        Project project = projectInfo.getProject();
+        CompilationErrorsChecker checker = CompilationErrorsChecker.getInstance(project);
+        CompilationErrorsChecker.Result result =
+                ReadActionUtils.computeInReadAction(() -> checker.check(projectInfo.getClasses()));
         ApplicationManager.getApplication().invokeLater(() -> {
-            List<PsiClass> classes = projectInfo.getClasses();
-
-            if (!classes.isEmpty()) {
-                VirtualFile[] virtualFiles = classes.stream()
-                        .map(classObject -> classObject.getContainingFile().getVirtualFile()).toArray(VirtualFile[]::new);
-                Project project = projectInfo.getProject();
-
-                CompilerManager compilerManager = CompilerManager.getInstance(project);
-                CompileStatusNotification callback = (aborted, errors, warnings, compileContext) -> {
-                    if (errors == 0 && !aborted) {
+            if (result.hasErrors()) {
+                task.onCancel();
+                showCompilationErrorNotification(project);
+            } else if (result.hasUnknownFiles()) {
+                checker.compile(result, compiled -> {
+                    if (compiled) {
                         ProgressManager.getInstance().run(task);
                     } else {
                         task.onCancel();
-                        AbstractRefactoringPanel.showCompilationErrorNotification(project);
+                        showCompilationErrorNotification(project);
                     }
-                };
-                CompileScope compileScope = compilerManager.createFilesCompileScope(virtualFiles);
-                compilerManager.make(compileScope, callback);
+                });
             } else {
                 ProgressManager.getInstance().run(task);
             }
@@ -153,22 +154,38 @@ public abstract class AbstractRefactoringPanel extends JPanel {
     }
 
     /**
-     * Shows the panel with refactoring suggestions.
+     * Shows the panel with refactoring suggestions when the calculation is finished.
      */
     private void showRefactoringsTable() {
-        removeSelection();
         scrollPane.setVisible(true);
-        model.reload();
         exportButton.setEnabled(!model.getCandidateRefactoringGroups().isEmpty());
         refreshButton.setEnabled(true);
         scrollPane.setViewportView(treeTable);
     }
 
+    /**
+     * Adds a batch of suggestions while the calculation is in progress, so they can be examined right away.
+     */
+    private void showFoundRefactorings(List<AbstractCandidateRefactoringGroup> groups) {
+        model.addCandidateRefactoringGroups(groups, GROUPS_COMPARATOR);
+        scrollPane.setVisible(true);
+        scrollPane.setViewportView(treeTable);
+    }
+
+    private void stopCandidatesQueue() {
+        if (candidatesQueue != null) {
+            candidatesQueue.stop();
+            candidatesQueue = null;
+        }
+    }
+
     /**
      * Clears the panel and shows text that proposes to press the Refresh button to search for refactoring opportunities.
      */
     protected void showRefreshingProposal() {
+        stopCandidatesQueue();
         model.candidateRefactoringGroups.clear();
+        model.reload();
         removeSelection();
         if (errorNotification != null && !errorNotification.isExpired()) {
             errorNotification.expire();
@@ -183,7 +200,9 @@ public abstract class AbstractRefactoringPanel extends JPanel {
      * Hides the panel while calculation of refactoring suggestions is in progress.
      */
     private void showEmptyPanel() {
+        stopCandidatesQueue();
         model.candidateRefactoringGroups.clear();
+        model.reload();
         removeSelection();
         exportButton.setEnabled(false);
         refreshButton.setEnabled(false);
@@ -292,28 +311,30 @@ public abstract class AbstractRefactoringPanel extends JPanel {
     }
 
     /**
-     * Calculates suggestions for whole project.
+     * Calculates suggestions for whole project, the suggestions are shown in batches as soon as they are found.
      */
     private void calculateRefactorings() {
         Project project = scope.getProject();
         ProjectInfo projectInfo = new ProjectInfo(scopeChooserCombo.getScope(), false);
+        CandidatesQueue<AbstractCandidateRefactoringGroup> queue = new CandidatesQueue<>(this::showFoundRefactorings);
+        candidatesQueue = queue;
 
         final Task.Backgroundable backgroundable = new Task.Backgroundable(project,
                 IntelliJDeodorantBundle.message(detectIndicatorStatusTextKey), true) {
             @Override
             public void run(@NotNull ProgressIndicator indicator) {
-                ApplicationManager.getApplication().runReadAction(() -> {
-                    List<RefactoringType.AbstractCandidateRefactoringGroup> candidates =
-                            refactoringType.getRefactoringOpportunities(projectInfo, indicator);
-                    if (candidates == null) {
+                AnalysisStatistics statistics = Instrumentation.startRun(getTitle(), indicator);
+                try {
+                    if (!refactoringType.getRefactoringOpportunities(projectInfo, indicator, queue::addAll)) {
                         showCompilationErrorNotification(getProject());
-                        candidates = new ArrayList<>();
                     }
-                    logFound(project, candidates.size());
-                    candidates.sort(Comparator.comparing(o -> o.getCandidates().get(0).getSourceClass().getQualifiedName()));
-                    model.setCandidateRefactoringGroups(candidates);
-                    ApplicationManager.getApplication().invokeLater(() -> showRefactoringsTable());
-                });
+                    queue.finish(() -> {
+                        logFound(project, model.getCandidateRefactoringGroups().size());
+                        showRefactoringsTable();
+                    });
+                } finally {
+                    Instrumentation.finishRun(statistics);
+                }
             }
 
             @Override
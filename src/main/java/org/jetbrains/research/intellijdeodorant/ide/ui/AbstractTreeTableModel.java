@@ -9,6 +9,8 @@ import org.jetbrains.research.intellijdeodorant.ide.refactoring.RefactoringType.
 import javax.swing.*;
 import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.DefaultTreeModel;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 public abstract class AbstractTreeTableModel extends DefaultTreeModel implements TreeTableModel {
@@ -19,13 +21,43 @@ public abstract class AbstractTreeTableModel extends DefaultTreeModel implements
     public AbstractTreeTableModel(List<AbstractCandidateRefactoringGroup> candidateRefactoringGroups,
                                   String[] columnNames, RefactoringType refactoringType) {
         super(new DefaultMutableTreeNode("root"));
-        this.candidateRefactoringGroups = candidateRefactoringGroups;
+        this.candidateRefactoringGroups = new ArrayList<>(candidateRefactoringGroups);
         this.columnNames = columnNames;
         this.refactoringType = refactoringType;
     }
 
     public void setCandidateRefactoringGroups(List<AbstractCandidateRefactoringGroup> candidateRefactoringGroups) {
-        this.candidateRefactoringGroups = candidateRefactoringGroups;
+        this.candidateRefactoringGroups = new ArrayList<>(candidateRefactoringGroups);
+    }
+
+    /**
+     * Inserts the groups so that the list stays sorted by the comparator and notifies the tree about each inserted row.
+     * Groups that are equal by the comparator are kept in the order of insertion.
+     */
+    public void addCandidateRefactoringGroups(List<AbstractCandidateRefactoringGroup> groups,
+                                              Comparator<? super AbstractCandidateRefactoringGroup> comparator) {
+        for (AbstractCandidateRefactoringGroup group : groups) {
+            int index = getInsertionIndex(candidateRefactoringGroups, group, comparator);
+            candidateRefactoringGroups.add(index, group);
+            fireTreeNodesInserted(this, new Object[]{root}, new int[]{index}, new Object[]{group});
+        }
+    }
+
+    /**
+     * Returns the index after the last element that is not greater than the given one.
+     */
+    static <T> int getInsertionIndex(List<? extends T> sortedList, T element, Comparator<? super T> comparator) {
+        int low = 0;
+        int high = sortedList.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (comparator.compare(sortedList.get(middle), element) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
     }
 
     public List<AbstractCandidateRefactoringGroup> getCandidateRefactoringGroups() {
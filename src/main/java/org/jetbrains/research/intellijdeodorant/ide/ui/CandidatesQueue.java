@@ -0,0 +1,79 @@
+package org.jetbrains.research.intellijdeodorant.ide.ui;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.util.concurrency.AppExecutorUtil;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Collects candidates that are found on background threads and passes them to the EDT in batches,
+ * so the table is updated at most once per {@link #BATCH_DELAY_MS} however often the candidates are found.
+ */
+class CandidatesQueue<T> {
+    private static final int BATCH_DELAY_MS = 200;
+
+    private final Queue<T> candidates = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final Consumer<List<T>> batchConsumer;
+    private volatile boolean stopped;
+
+    /**
+     * @param batchConsumer consumer that is called on the EDT with the candidates found since the previous batch.
+     */
+    CandidatesQueue(Consumer<List<T>> batchConsumer) {
+        this.batchConsumer = batchConsumer;
+    }
+
+    /**
+     * Adds the candidates to the next batch. Can be called from any thread.
+     */
+    void addAll(Collection<? extends T> newCandidates) {
+        if (stopped || newCandidates.isEmpty()) {
+            return;
+        }
+        candidates.addAll(newCandidates);
+        if (flushScheduled.compareAndSet(false, true)) {
+            AppExecutorUtil.getAppScheduledExecutorService().schedule(
+                    () -> ApplicationManager.getApplication().invokeLater(this::flush), BATCH_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Passes the remaining candidates to the EDT and runs the action there, unless the queue has been stopped.
+     */
+    void finish(Runnable onFinished) {
+        ApplicationManager.getApplication().invokeLater(() -> {
+            flush();
+            if (!stopped) {
+                onFinished.run();
+            }
+        });
+    }
+
+    /**
+     * Drops the candidates that have not been passed yet and ignores the further ones.
+     */
+    void stop() {
+        stopped = true;
+        candidates.clear();
+    }
+
+    private void flush() {
+        flushScheduled.set(false);
+        List<T> batch = new ArrayList<>();
+        T candidate;
+        while ((candidate = candidates.poll()) != null) {
+            batch.add(candidate);
+        }
+        if (!stopped && !batch.isEmpty()) {
+            batchConsumer.accept(batch);
+        }
+    }
+}
@@ -17,7 +17,6 @@ import com.intellij.openapi.project.Project;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiMethod;
 import com.intellij.psi.PsiStatement;
-import com.intellij.psi.SmartPsiElementPointer;
 import com.intellij.refactoring.HelpID;
 import com.intellij.refactoring.extractMethod.ExtractMethodHandler;
 import com.intellij.refactoring.extractMethod.PrepareFailedException;
@@ -34,6 +33,8 @@ import org.jetbrains.research.intellijdeodorant.core.ast.decomposition.cfg.ASTSl
 import org.jetbrains.research.intellijdeodorant.core.ast.decomposition.cfg.ASTSliceGroup;
 import org.jetbrains.research.intellijdeodorant.core.ast.decomposition.cfg.PDGNode;
 import org.jetbrains.research.intellijdeodorant.core.distance.ProjectInfo;
+import org.jetbrains.research.intellijdeodorant.core.statistics.AnalysisStatistics;
+import org.jetbrains.research.intellijdeodorant.core.statistics.Instrumentation;
 import org.jetbrains.research.intellijdeodorant.ide.fus.collectors.IntelliJDeodorantCounterCollector;
 import org.jetbrains.research.intellijdeodorant.ide.refactoring.extractMethod.ExtractMethodCandidateGroup;
 import org.jetbrains.research.intellijdeodorant.ide.refactoring.extractMethod.MyExtractMethodProcessor;
@@ -41,6 +42,8 @@ import org.jetbrains.research.intellijdeodorant.ide.ui.listeners.DoubleClickList
 import org.jetbrains.research.intellijdeodorant.ide.ui.listeners.ElementSelectionListener;
 import org.jetbrains.research.intellijdeodorant.ide.ui.listeners.EnterKeyListener;
 import org.jetbrains.research.intellijdeodorant.utils.ExportResultsUtil;
+import org.jetbrains.research.intellijdeodorant.utils.PsiElementHandle;
+import org.jetbrains.research.intellijdeodorant.utils.ReadActionUtils;
 
 import javax.swing.*;
 import javax.swing.tree.TreePath;
@@ -59,6 +62,8 @@ import static org.jetbrains.research.intellijdeodorant.utils.PsiUtils.*;
  * Panel for Extract Method refactoring.
  */
 class ExtractMethodPanel extends JPanel {
+    private static final Comparator<ExtractMethodCandidateGroup> GROUPS_COMPARATOR =
+            Comparator.comparing(ExtractMethodCandidateGroup::getDescription);
     @NotNull
     private final AnalysisScope scope;
     private final ExtractMethodTreeTableModel treeTableModel = new ExtractMethodTreeTableModel();
@@ -72,6 +77,7 @@ class ExtractMethodPanel extends JPanel {
             SwingConstants.CENTER
     );
     private final ScopeChooserCombo scopeChooserCombo;
+    private CandidatesQueue<ExtractMethodCandidateGroup> candidatesQueue;
 
     ExtractMethodPanel(@NotNull AnalysisScope scope) {
         this.scope = scope;
@@ -196,31 +202,37 @@ class ExtractMethodPanel extends JPanel {
     }
 
     /**
-     * Calculates suggestions for whole project.
+     * Calculates suggestions for whole project, the suggestions are shown in batches as soon as they are found.
      */
     private void calculateRefactorings() {
         Project project = scope.getProject();
         ProjectInfo projectInfo = new ProjectInfo(scopeChooserCombo.getScope(), false);
+        stopCandidatesQueue();
+        treeTableModel.setCandidateRefactoringGroups(new ArrayList<>());
+        CandidatesQueue<ExtractMethodCandidateGroup> queue = new CandidatesQueue<>(this::showFoundRefactorings);
+        candidatesQueue = queue;
+        Object extractionCheckLock = new Object();
 
         final Task.Backgroundable backgroundable = new Task.Backgroundable(project,
                 IntelliJDeodorantBundle.message("long.method.detect.indicator.status"), true) {
             @Override
             public void run(@NotNull ProgressIndicator indicator) {
-                ApplicationManager.getApplication().runReadAction(() -> {
-                    Set<ASTSliceGroup> candidates = getExtractMethodRefactoringOpportunities(projectInfo, indicator);
-                    final List<ExtractMethodCandidateGroup> extractMethodCandidateGroups = candidates.stream().filter(Objects::nonNull)
-                            .map(sliceGroup ->
-                                    sliceGroup.getCandidates().stream()
-                                            .filter(c -> canBeExtracted(c))
-                                            .collect(toSet()))
-                            .filter(set -> !set.isEmpty())
-                            .map(ExtractMethodCandidateGroup::new)
-                            .sorted(Comparator.comparing(ExtractMethodCandidateGroup::getDescription))
-                            .collect(toList());
-                    treeTableModel.setCandidateRefactoringGroups(extractMethodCandidateGroups);
-                    ApplicationManager.getApplication().invokeLater(() -> showRefactoringsTable());
-                    IntelliJDeodorantCounterCollector.getInstance().refactoringFound(project, "extract.method", extractMethodCandidateGroups.size());
-                });
+                AnalysisStatistics statistics = Instrumentation.startRun(getTitle(), indicator);
+                try {
+                    getExtractMethodRefactoringOpportunities(projectInfo, indicator, sliceGroups -> {
+                        // the Extract Method processor of the IDE is not meant to be run concurrently
+                        synchronized (extractionCheckLock) {
+                            queue.addAll(ReadActionUtils.computeInReadAction(() -> getExtractableCandidateGroups(sliceGroups)));
+                        }
+                    });
+                    queue.finish(() -> {
+                        showRefactoringsTable();
+                        IntelliJDeodorantCounterCollector.getInstance().refactoringFound(project, "extract.method",
+                                treeTableModel.getCandidateRefactoringGroups().size());
+                    });
+                } finally {
+                    Instrumentation.finishRun(statistics);
+                }
             }
 
             @Override
@@ -231,7 +243,40 @@ class ExtractMethodPanel extends JPanel {
         runAfterCompilationCheck(backgroundable, scope.getProject(), projectInfo);
     }
 
+    /**
+     * Keeps only the slices that can be extracted, must be called under a read action.
+     */
+    private List<ExtractMethodCandidateGroup> getExtractableCandidateGroups(List<ASTSliceGroup> sliceGroups) {
+        try (Instrumentation.Phase ignored = Instrumentation.startPhase("extract.method.applicability")) {
+            return sliceGroups.stream().filter(Objects::nonNull)
+                    .map(sliceGroup ->
+                            sliceGroup.getCandidates().stream()
+                                    .filter(c -> canBeExtracted(c))
+                                    .collect(toSet()))
+                    .filter(set -> !set.isEmpty())
+                    .map(ExtractMethodCandidateGroup::new)
+                    .collect(toList());
+        }
+    }
+
+    /**
+     * Adds a batch of suggestions while the calculation is in progress, so they can be examined right away.
+     */
+    private void showFoundRefactorings(List<ExtractMethodCandidateGroup> groups) {
+        treeTableModel.addCandidateRefactoringGroups(groups, GROUPS_COMPARATOR);
+        scrollPane.setViewportView(treeTable);
+        scrollPane.setVisible(true);
+    }
+
+    private void stopCandidatesQueue() {
+        if (candidatesQueue != null) {
+            candidatesQueue.stop();
+            candidatesQueue = null;
+        }
+    }
+
     private void showEmptyPanel() {
+        stopCandidatesQueue();
         scrollPane.setVisible(true);
         scrollPane.setViewportView(refreshLabel);
         refreshButton.setEnabled(true);
@@ -241,7 +286,6 @@ class ExtractMethodPanel extends JPanel {
      * Shows treeTable with available refactorings.
      */
     private void showRefactoringsTable() {
-        treeTableModel.reload();
         treeTable.setRootVisible(false);
         scrollPane.setViewportView(treeTable);
         scrollPane.setVisible(true);
@@ -258,7 +302,9 @@ class ExtractMethodPanel extends JPanel {
         if (selectedPath != null) {
             Object o = selectedPath.getLastPathComponent();
             if (o instanceof ASTSlice) {
-                openDefinition(((ASTSlice) o).getSourceMethodDeclaration(), scope, (ASTSlice) o);
+                ASTSlice slice = (ASTSlice) o;
+                slice.createSmartPointers();
+                openDefinition(slice.getSourceMethodDeclaration(), scope, slice);
             } else if (o instanceof ExtractMethodCandidateGroup) {
                 expandOrCollapsePath(e, treeTableTree, selectedPath);
             }
@@ -317,6 +363,7 @@ class ExtractMethodPanel extends JPanel {
      */
     private Runnable doExtract(ASTSlice slice) {
         return () -> {
+            slice.createSmartPointers();
             Editor editor = FileEditorManager.getInstance(slice.getSourceMethodDeclaration().getProject()).getSelectedTextEditor();
             SmartList<PsiStatement> statementsToExtract = getStatementsToExtract(slice);
 
@@ -360,20 +407,21 @@ class ExtractMethodPanel extends JPanel {
             @Override
             public void onSuccess() {
                 if (sourceMethod != null) {
-                    Set<SmartPsiElementPointer<PsiElement>> statements = slice.getSliceStatements();
-                    PsiStatement psiStatement = (PsiStatement) statements.iterator().next().getElement();
+                    List<PsiStatement> statements = slice.getSliceStatements().stream()
+                            .map(PsiElementHandle::getElement)
+                            .filter(Objects::nonNull)
+                            .collect(toList());
+                    PsiStatement psiStatement = statements.isEmpty() ? null : statements.get(0);
                     if (psiStatement != null && psiStatement.isValid()) {
                         EditorHelper.openInEditor(psiStatement);
                         Editor editor = FileEditorManager.getInstance(sourceMethod.getProject()).getSelectedTextEditor();
                         if (editor != null) {
                             TextAttributes attributes = EditorColorsManager.getInstance().getGlobalScheme().getAttributes(EditorColors.SEARCH_RESULT_ATTRIBUTES);
                             editor.getMarkupModel().removeAllHighlighters();
-                            statements.stream()
-                                    .filter(statement -> statement.getElement() != null)
-                                    .forEach(statement ->
-                                            editor.getMarkupModel().addRangeHighlighter(statement.getElement().getTextRange().getStartOffset(),
-                                                    statement.getElement().getTextRange().getEndOffset(), HighlighterLayer.SELECTION,
-                                                    attributes, HighlighterTargetArea.EXACT_RANGE));
+                            statements.forEach(statement ->
+                                    editor.getMarkupModel().addRangeHighlighter(statement.getTextRange().getStartOffset(),
+                                            statement.getTextRange().getEndOffset(), HighlighterLayer.SELECTION,
+                                            attributes, HighlighterTargetArea.EXACT_RANGE));
                         }
                     }
                 }
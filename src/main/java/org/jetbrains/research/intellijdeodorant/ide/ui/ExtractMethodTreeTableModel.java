@@ -10,6 +10,7 @@ import javax.swing.JTree;
 import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.DefaultTreeModel;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 public class ExtractMethodTreeTableModel extends DefaultTreeModel implements TreeTableModel {
@@ -28,6 +29,18 @@ public class ExtractMethodTreeTableModel extends DefaultTreeModel implements Tre
         reload();
     }
 
+    /**
+     * Inserts the groups so that the list stays sorted by the comparator and notifies the tree about each inserted row.
+     */
+    public void addCandidateRefactoringGroups(List<ExtractMethodCandidateGroup> groups,
+                                              Comparator<? super ExtractMethodCandidateGroup> comparator) {
+        for (ExtractMethodCandidateGroup group : groups) {
+            int index = AbstractTreeTableModel.getInsertionIndex(candidateRefactoringGroups, group, comparator);
+            candidateRefactoringGroups.add(index, group);
+            fireTreeNodesInserted(this, new Object[]{root}, new int[]{index}, new Object[]{group});
+        }
+    }
+
     public List<ExtractMethodCandidateGroup> getCandidateRefactoringGroups() {
         return candidateRefactoringGroups;
     }
@@ -3,7 +3,6 @@ package org.jetbrains.research.intellijdeodorant.ide.ui;
 import com.intellij.analysis.AnalysisScope;
 import com.intellij.icons.AllIcons;
 import com.intellij.ide.util.EditorHelper;
-import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.Task;
 import com.intellij.openapi.project.Project;
@@ -19,12 +18,15 @@ import org.jetbrains.research.intellijdeodorant.IntelliJDeodorantBundle;
 import org.jetbrains.research.intellijdeodorant.JDeodorantFacade;
 import org.jetbrains.research.intellijdeodorant.core.distance.MoveMethodCandidateRefactoring;
 import org.jetbrains.research.intellijdeodorant.core.distance.ProjectInfo;
+import org.jetbrains.research.intellijdeodorant.core.statistics.AnalysisStatistics;
+import org.jetbrains.research.intellijdeodorant.core.statistics.Instrumentation;
 import org.jetbrains.research.intellijdeodorant.ide.fus.collectors.IntelliJDeodorantCounterCollector;
 import org.jetbrains.research.intellijdeodorant.ide.refactoring.RefactoringsApplier;
 import org.jetbrains.research.intellijdeodorant.ide.refactoring.moveMethod.MoveMethodRefactoring;
 import org.jetbrains.research.intellijdeodorant.ide.ui.listeners.DoubleClickListener;
 import org.jetbrains.research.intellijdeodorant.utils.ExportResultsUtil;
 import org.jetbrains.research.intellijdeodorant.utils.PsiUtils;
+import org.jetbrains.research.intellijdeodorant.utils.ReadActionUtils;
 
 import javax.swing.*;
 import javax.swing.table.TableColumn;
@@ -176,15 +178,17 @@ class MoveMethodPanel extends JPanel {
         final Task.Backgroundable backgroundable = new Task.Backgroundable(project, IntelliJDeodorantBundle.message("feature.envy.detect.indicator.status"), true) {
             @Override
             public void run(@NotNull ProgressIndicator indicator) {
-                ApplicationManager.getApplication().runReadAction(() -> {
+                AnalysisStatistics statistics = Instrumentation.startRun(getTitle(), indicator);
+                try {
                     List<MoveMethodCandidateRefactoring> candidates = JDeodorantFacade.getMoveMethodRefactoringOpportunities(projectInfo, indicator, classNamesToBeExamined);
-                    final List<MoveMethodRefactoring> references = candidates.stream().filter(Objects::nonNull)
-                            .map(x ->
-                                    new MoveMethodRefactoring(x.getSourceMethodDeclaration(),
-                                            x.getTargetClass().getClassObject().getPsiClass(),
-                                            x.getDistinctSourceDependencies(),
-                                            x.getDistinctTargetDependencies()))
-                            .collect(Collectors.toList());
+                    final List<MoveMethodRefactoring> references = ReadActionUtils.computeInReadAction(() ->
+                            candidates.stream().filter(Objects::nonNull)
+                                    .map(x ->
+                                            new MoveMethodRefactoring(x.getSourceMethodDeclaration(),
+                                                    x.getTargetClass().getClassObject().getPsiClass(),
+                                                    x.getDistinctSourceDependencies(),
+                                                    x.getDistinctTargetDependencies()))
+                                    .collect(Collectors.toList()));
                     refactorings.clear();
                     refactorings.addAll(new ArrayList<>(references));
                     model.updateTable(refactorings);
@@ -192,7 +196,9 @@ class MoveMethodPanel extends JPanel {
                     scrollPane.setViewportView(table);
                     enableButtonsOnConditions();
                     IntelliJDeodorantCounterCollector.getInstance().refactoringFound(project, "move.method", references.size());
-                });
+                } finally {
+                    Instrumentation.finishRun(statistics);
+                }
             }
 
             @Override
@@ -0,0 +1,129 @@
+package org.jetbrains.research.intellijdeodorant.ide.ui;
+
+import com.intellij.icons.AllIcons;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.ui.JBColor;
+import com.intellij.ui.ScrollPaneFactory;
+import com.intellij.ui.table.JBTable;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.research.intellijdeodorant.IntelliJDeodorantBundle;
+import org.jetbrains.research.intellijdeodorant.core.statistics.AnalysisStatistics;
+import org.jetbrains.research.intellijdeodorant.core.statistics.Instrumentation;
+import org.jetbrains.research.intellijdeodorant.core.statistics.PhaseStatistics;
+import org.jetbrains.research.intellijdeodorant.utils.ExportResultsUtil;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Panel that shows the statistics of the last analysis run: time and memory of the phases and the counters.
+ */
+class StatisticsPanel extends JPanel {
+    private final StatisticsTableModel model = new StatisticsTableModel();
+    private final JBTable table = new JBTable(model);
+    private final JLabel titleLabel = new JLabel();
+    private final JButton exportButton = new JButton(AllIcons.ToolbarDecorator.Export);
+    private final JLabel emptyLabel = new JLabel(
+            IntelliJDeodorantBundle.message("statistics.empty"),
+            SwingConstants.CENTER
+    );
+    private final JScrollPane scrollPane = ScrollPaneFactory.createScrollPane(table);
+    @Nullable
+    private AnalysisStatistics statistics;
+
+    StatisticsPanel(@NotNull Project project) {
+        setLayout(new BorderLayout());
+        add(createButtonsPanel(), BorderLayout.NORTH);
+        add(scrollPane, BorderLayout.CENTER);
+        emptyLabel.setForeground(JBColor.GRAY);
+        ApplicationManager.getApplication().getMessageBus().connect(project).subscribe(Instrumentation.TOPIC,
+                statistics -> ApplicationManager.getApplication().invokeLater(() -> showStatistics(statistics)));
+        showStatistics(Instrumentation.getLastRun());
+    }
+
+    private JComponent createButtonsPanel() {
+        JPanel buttonsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        exportButton.setToolTipText(IntelliJDeodorantBundle.message("export"));
+        exportButton.addActionListener(e -> {
+            if (statistics != null) {
+                ExportResultsUtil.exportStatistics(statistics, this);
+            }
+        });
+        buttonsPanel.add(exportButton);
+        buttonsPanel.add(titleLabel);
+        return buttonsPanel;
+    }
+
+    private void showStatistics(@Nullable AnalysisStatistics statistics) {
+        this.statistics = statistics;
+        exportButton.setEnabled(statistics != null);
+        if (statistics == null) {
+            titleLabel.setText("");
+            scrollPane.setViewportView(emptyLabel);
+            return;
+        }
+        titleLabel.setText(IntelliJDeodorantBundle.message("statistics.title", statistics.getName(), statistics.getDuration()));
+        model.setStatistics(statistics);
+        scrollPane.setViewportView(table);
+    }
+
+    private static class StatisticsTableModel extends AbstractTableModel {
+        private static final String[] COLUMN_NAMES = {
+                IntelliJDeodorantBundle.message("statistics.column.name"),
+                IntelliJDeodorantBundle.message("statistics.column.count"),
+                IntelliJDeodorantBundle.message("statistics.column.elapsed.time"),
+                IntelliJDeodorantBundle.message("statistics.column.wall.time"),
+                IntelliJDeodorantBundle.message("statistics.column.cpu.time"),
+                IntelliJDeodorantBundle.message("statistics.column.allocated")
+        };
+
+        private final List<Object[]> rows = new ArrayList<>();
+
+        void setStatistics(@NotNull AnalysisStatistics statistics) {
+            rows.clear();
+            for (PhaseStatistics phase : statistics.getPhases()) {
+                rows.add(new Object[]{phase.getName(), phase.getInvocations(),
+                        TimeUnit.NANOSECONDS.toMillis(phase.getElapsedTime()),
+                        TimeUnit.NANOSECONDS.toMillis(phase.getWallTime()),
+                        TimeUnit.NANOSECONDS.toMillis(phase.getCpuTime()),
+                        phase.getAllocatedBytes() / 1024});
+            }
+            for (Map.Entry<String, Long> counter : statistics.getCounters().entrySet()) {
+                rows.add(new Object[]{counter.getKey(), counter.getValue(), null, null, null, null});
+            }
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return rows.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMN_NAMES.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMN_NAMES[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int columnIndex) {
+            return columnIndex == 0 ? String.class : Long.class;
+        }
+
+        @Override
+        public Object getValueAt(int rowIndex, int columnIndex) {
+            return rows.get(rowIndex)[columnIndex];
+        }
+    }
+}
@@ -1,12 +1,14 @@
 package org.jetbrains.research.intellijdeodorant.utils;
 
 import org.jetbrains.research.intellijdeodorant.IntelliJDeodorantBundle;
+import org.jetbrains.research.intellijdeodorant.core.statistics.AnalysisStatistics;
 import org.jetbrains.research.intellijdeodorant.ide.refactoring.Refactoring;
 
 import javax.swing.*;
 import java.awt.*;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.net.URI;
 import java.util.List;
@@ -33,6 +35,26 @@ public class ExportResultsUtil {
         exportToFile(refactorings, fileDialog.getFiles()[0].toURI());
     }
 
+    /**
+     * @param statistics statistics of the analysis run.
+     * @param panel      panel of current project.
+     */
+    public static void exportStatistics(AnalysisStatistics statistics, JPanel panel) {
+        JFrame frame = (JFrame) SwingUtilities.getWindowAncestor(panel);
+        FileDialog fileDialog = new FileDialog(frame, IntelliJDeodorantBundle.message("export"), FileDialog.SAVE);
+        fileDialog.setFile(IntelliJDeodorantBundle.message("statistics.export.file") + ".csv");
+        fileDialog.setFilenameFilter((dir, name) -> name.endsWith(".csv"));
+        fileDialog.setVisible(true);
+        if (fileDialog.getDirectory() == null || fileDialog.getFile() == null) {
+            return;
+        }
+        try (PrintWriter writer = new PrintWriter(fileDialog.getFiles()[0])) {
+            statistics.write(writer);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
     /**
      * @param refactorings list of refactoring suggestions.
      * @param pathUri      uri that representing the path to the file where the results will be written.
@@ -0,0 +1,153 @@
+package org.jetbrains.research.intellijdeodorant.utils;
+
+import com.intellij.openapi.util.TextRange;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Lightweight handle of a PSI element, made of its file, its text range and its class.
+ * <p>
+ * Unlike a {@link com.intellij.psi.SmartPsiElementPointer} it is not tracked by the smart pointer manager,
+ * so it is cheap enough to be created for every element of the analysis results. The element is looked up
+ * in its file when it is requested. After the file has been modified, a handle created with {@link #of(PsiElement)}
+ * no longer finds its element, while a handle anchored to its method with {@link #of(PsiElement, PsiMethodHandle)}
+ * finds it again as long as the text of the method has not changed.
+ * Must be used under a read action.
+ */
+public class PsiElementHandle<T extends PsiElement> {
+    private final PsiFile file;
+    private final long modificationStamp;
+    private final int startOffset;
+    private final int endOffset;
+    private final Class<? extends T> elementClass;
+    //range of the element in the current version of the file
+    private volatile Position position;
+
+    @SuppressWarnings("unchecked")
+    protected PsiElementHandle(@NotNull T element) {
+        this.file = element.getContainingFile();
+        this.modificationStamp = file.getModificationStamp();
+        TextRange range = element.getTextRange();
+        this.startOffset = range.getStartOffset();
+        this.endOffset = range.getEndOffset();
+        this.elementClass = (Class<? extends T>) element.getClass();
+        this.position = new Position(modificationStamp, startOffset, endOffset);
+    }
+
+    public static <T extends PsiElement> PsiElementHandle<T> of(@NotNull T element) {
+        return new PsiElementHandle<>(element);
+    }
+
+    /**
+     * Returns a handle of an element of the method, which is found again at the same distance from the start
+     * of the method after the file has been modified, as long as the text of the method has not changed.
+     */
+    public static <T extends PsiElement> PsiElementHandle<T> of(@NotNull T element, @NotNull PsiMethodHandle method) {
+        return new PsiElementHandle<T>(element) {
+            @Nullable
+            @Override
+            protected TextRange relocate(int startOffset, int endOffset) {
+                Integer shift = method.getOffsetShift();
+                return shift == null ? null : new TextRange(startOffset + shift, endOffset + shift);
+            }
+        };
+    }
+
+    /**
+     * Returns the file of the element, or {@code null} if it is no longer valid.
+     */
+    @Nullable
+    public PsiFile getFile() {
+        return file.isValid() ? file : null;
+    }
+
+    /**
+     * Returns {@code true} if the file of the element has not been modified since the handle was created.
+     */
+    public boolean isUpToDate() {
+        return file.isValid() && file.getModificationStamp() == modificationStamp;
+    }
+
+    /**
+     * Returns the element, or {@code null} if it cannot be found in the current version of its file.
+     */
+    @Nullable
+    public T getElement() {
+        if (!file.isValid()) {
+            return null;
+        }
+        Position position = this.position;
+        long currentStamp = file.getModificationStamp();
+        if (position.modificationStamp != currentStamp) {
+            TextRange range = relocate(startOffset, endOffset);
+            if (range == null) {
+                return null;
+            }
+            position = new Position(currentStamp, range.getStartOffset(), range.getEndOffset());
+            this.position = position;
+        }
+        return findElement(position.startOffset, position.endOffset);
+    }
+
+    /**
+     * Returns the range of the element in the modified file, given its range when the handle was created,
+     * or {@code null} if the element cannot be found again.
+     */
+    @Nullable
+    protected TextRange relocate(int startOffset, int endOffset) {
+        return null;
+    }
+
+    @Nullable
+    private T findElement(int startOffset, int endOffset) {
+        PsiElement element = file.findElementAt(startOffset);
+        while (element != null && !(element instanceof PsiFile)) {
+            TextRange range = element.getTextRange();
+            if (range.getStartOffset() != startOffset || range.getEndOffset() > endOffset) {
+                break;
+            }
+            if (range.getEndOffset() == endOffset && elementClass.isInstance(element)) {
+                return elementClass.cast(element);
+            }
+            element = element.getParent();
+        }
+        return null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o instanceof PsiElementHandle) {
+            PsiElementHandle<?> handle = (PsiElementHandle<?>) o;
+            return file.equals(handle.file) && modificationStamp == handle.modificationStamp
+                    && startOffset == handle.startOffset && endOffset == handle.endOffset
+                    && elementClass.equals(handle.elementClass);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 17;
+        result = 31 * result + file.hashCode();
+        result = 31 * result + startOffset;
+        result = 31 * result + endOffset;
+        return result;
+    }
+
+    private static class Position {
+        private final long modificationStamp;
+        private final int startOffset;
+        private final int endOffset;
+
+        private Position(long modificationStamp, int startOffset, int endOffset) {
+            this.modificationStamp = modificationStamp;
+            this.startOffset = startOffset;
+            this.endOffset = endOffset;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package org.jetbrains.research.intellijdeodorant.utils;
+
+import com.intellij.openapi.util.TextRange;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.PsiParameter;
+import com.intellij.psi.util.PsiTreeUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Handle of a method that finds the method again after its file has been modified, by its name, the types
+ * of its parameters and the name of its class. Among several matching methods the closest one to the previous
+ * position is taken.
+ */
+public class PsiMethodHandle extends PsiElementHandle<PsiMethod> {
+    private final String name;
+    private final String[] parameterTypes;
+    private final String className;
+    private final int methodStartOffset;
+    private final int textLength;
+    private final int textHash;
+    private volatile TextCheck textCheck;
+
+    private PsiMethodHandle(@NotNull PsiMethod method) {
+        super(method);
+        this.name = method.getName();
+        this.parameterTypes = getParameterTypes(method);
+        this.className = getClassName(method);
+        this.methodStartOffset = method.getTextRange().getStartOffset();
+        String text = method.getText();
+        this.textLength = text.length();
+        this.textHash = text.hashCode();
+    }
+
+    public static PsiMethodHandle of(@NotNull PsiMethod method) {
+        return new PsiMethodHandle(method);
+    }
+
+    /**
+     * Returns the distance the method has moved in its file since the handle was created, or {@code null}
+     * if the method cannot be found or its text has changed.
+     */
+    @Nullable
+    Integer getOffsetShift() {
+        PsiMethod method = getElement();
+        if (method == null) {
+            return null;
+        }
+        long modificationStamp = method.getContainingFile().getModificationStamp();
+        TextCheck check = textCheck;
+        if (check == null || check.modificationStamp != modificationStamp) {
+            String text = method.getText();
+            check = new TextCheck(modificationStamp, text.length() == textLength && text.hashCode() == textHash);
+            textCheck = check;
+        }
+        return check.textUnchanged ? method.getTextRange().getStartOffset() - methodStartOffset : null;
+    }
+
+    @Nullable
+    @Override
+    protected TextRange relocate(int startOffset, int endOffset) {
+        PsiFile file = getFile();
+        if (file == null) {
+            return null;
+        }
+        TextRange closestRange = null;
+        for (PsiMethod method : PsiTreeUtil.findChildrenOfType(file, PsiMethod.class)) {
+            if (name.equals(method.getName()) && Arrays.equals(parameterTypes, getParameterTypes(method))
+                    && Objects.equals(className, getClassName(method))) {
+                TextRange range = method.getTextRange();
+                if (closestRange == null || Math.abs(range.getStartOffset() - startOffset)
+                        < Math.abs(closestRange.getStartOffset() - startOffset)) {
+                    closestRange = range;
+                }
+            }
+        }
+        return closestRange;
+    }
+
+    private static String[] getParameterTypes(PsiMethod method) {
+        PsiParameter[] parameters = method.getParameterList().getParameters();
+        String[] parameterTypes = new String[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            parameterTypes[i] = parameters[i].getType().getCanonicalText();
+        }
+        return parameterTypes;
+    }
+
+    private static String getClassName(PsiMethod method) {
+        PsiClass containingClass = method.getContainingClass();
+        return containingClass == null ? null : containingClass.getQualifiedName();
+    }
+
+    private static class TextCheck {
+        private final long modificationStamp;
+        private final boolean textUnchanged;
+
+        private TextCheck(long modificationStamp, boolean textUnchanged) {
+            this.modificationStamp = modificationStamp;
+            this.textUnchanged = textUnchanged;
+        }
+    }
+}
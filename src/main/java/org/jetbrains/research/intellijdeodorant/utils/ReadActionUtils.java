@@ -0,0 +1,61 @@
+package org.jetbrains.research.intellijdeodorant.utils;
+
+import com.intellij.concurrency.SensitiveProgressWrapper;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.util.ProgressIndicatorUtils;
+import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.util.Ref;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.research.intellijdeodorant.core.statistics.Instrumentation;
+
+/**
+ * Runs the analysis in small read actions that give way to write actions, so a long analysis does not block typing.
+ * <p>
+ * A unit of work is cancelled as soon as a write action is requested. The pending write actions are then awaited
+ * and only the cancelled unit is run again, the results of the completed units are kept.
+ * Therefore a unit must not leave partial results behind when it is cancelled.
+ */
+public class ReadActionUtils {
+
+    private ReadActionUtils() {
+    }
+
+    /**
+     * Computes the unit in a read action that is restarted after every intervening write action.
+     * If the current thread already has read access, the unit is just computed.
+     * Must not be called on the EDT.
+     */
+    public static <T> T computeInReadAction(@NotNull Computable<T> unit) {
+        if (ApplicationManager.getApplication().isReadAccessAllowed()) {
+            return unit.compute();
+        }
+        ProgressIndicator indicator = ProgressManager.getInstance().getProgressIndicator();
+        Ref<T> result = new Ref<>();
+        while (true) {
+            ProgressManager.checkCanceled();
+            ProgressIndicator unitIndicator = indicator == null
+                    ? new EmptyProgressIndicator()
+                    : new SensitiveProgressWrapper(indicator);
+            if (ProgressIndicatorUtils.runInReadActionWithWriteActionPriority(() -> result.set(unit.compute()), unitIndicator)) {
+                return result.get();
+            }
+            Instrumentation.count("read.actions.restarted");
+            ProgressIndicatorUtils.yieldToPendingWriteActions();
+        }
+    }
+
+    /**
+     * Runs the unit in a read action that is restarted after every intervening write action.
+     *
+     * @see #computeInReadAction(Computable)
+     */
+    public static void runInReadAction(@NotNull Runnable unit) {
+        computeInReadAction(() -> {
+            unit.run();
+            return null;
+        });
+    }
+}
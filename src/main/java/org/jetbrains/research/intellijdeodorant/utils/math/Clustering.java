@@ -8,8 +8,26 @@ import java.util.HashSet;
 public abstract class Clustering {
     protected double[][] distanceMatrix;
 
+    public enum Algorithm {
+        /**
+         * Rebuilds the whole distance matrix after every merge.
+         */
+        HIERARCHICAL,
+        /**
+         * Updates a condensed distance matrix in place and caches the nearest neighbours of the clusters.
+         */
+        NEAREST_NEIGHBOR
+    }
+
     public static Clustering getInstance(double[][] distanceMatrix) {
-        return new Hierarchical(distanceMatrix);
+        return getInstance(distanceMatrix, Algorithm.NEAREST_NEIGHBOR);
+    }
+
+    public static Clustering getInstance(double[][] distanceMatrix, Algorithm algorithm) {
+        if (algorithm == Algorithm.HIERARCHICAL) {
+            return new Hierarchical(distanceMatrix);
+        }
+        return new NearestNeighborClustering(distanceMatrix);
     }
 
     public abstract HashSet<Cluster> clustering(ArrayList<Entity> entities);
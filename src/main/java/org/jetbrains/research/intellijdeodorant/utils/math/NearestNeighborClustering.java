@@ -0,0 +1,133 @@
+package org.jetbrains.research.intellijdeodorant.utils.math;
+
+import org.jetbrains.research.intellijdeodorant.core.distance.Entity;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+
+/**
+ * Single linkage agglomerative clustering that produces the same clusters as {@link Hierarchical}
+ * for symmetric distance matrices, in O(n^2) time instead of O(n^3).
+ * <p>
+ * Distances are kept in a condensed lower triangular array that is updated in place, and for every cluster
+ * the nearest of the preceding clusters is cached, so that the closest pair is found with a single pass over the clusters.
+ * Ties are broken in the same way as in {@link Hierarchical}.
+ */
+public class NearestNeighborClustering extends Clustering {
+
+    private final HashSet<Cluster> clusterSet;
+
+    public NearestNeighborClustering(double[][] distanceMatrix) {
+        this.distanceMatrix = distanceMatrix;
+        this.clusterSet = new HashSet<>();
+    }
+
+    public HashSet<Cluster> clustering(ArrayList<Entity> entities) {
+        int n = entities.size();
+        Cluster[] clusters = new Cluster[n];
+        for (int i = 0; i < n; i++) {
+            clusters[i] = new Cluster();
+            clusters[i].addEntity(entities.get(i));
+        }
+        double[] distances = new double[n * (n - 1) / 2];
+        for (int i = 1; i < n; i++) {
+            for (int j = 0; j < i; j++) {
+                distances[index(i, j)] = distanceMatrix[i][j];
+            }
+        }
+        // nearest[i] is the first preceding cluster with the minimum distance to cluster i
+        int[] nearest = new int[n];
+        double[] nearestDistances = new double[n];
+        for (int i = 1; i < n; i++) {
+            updateNearest(i, clusters, distances, nearest, nearestDistances);
+        }
+
+        int clustersCount = n;
+        while (clustersCount > 2) {
+            HashSet<Cluster> clustersNotPresentable = new HashSet<>();
+            double minVal = 2.0;
+            int minRow = 0;
+            int minCol = 1;
+            for (int i = 1; i < n; i++) {
+                if (clusters[i] != null && nearestDistances[i] < minVal) {
+                    minVal = nearestDistances[i];
+                    minRow = i;
+                    minCol = nearest[i];
+                }
+            }
+
+            if (minVal >= 1.0)
+                break;
+            if (clusters[minRow].getEntities().size() == 1 && clusters[minCol].getEntities().size() > 1) {
+                clustersNotPresentable.add(new Cluster(clusters[minCol].getEntities()));
+            } else if (clusters[minRow].getEntities().size() > 1 && clusters[minCol].getEntities().size() == 1) {
+                clustersNotPresentable.add(new Cluster(clusters[minRow].getEntities()));
+            }
+            clusters[minCol].addEntities(clusters[minRow].getEntities());
+            clusters[minRow] = null;
+            clustersCount--;
+
+            for (int i = 0; i < n; i++) {
+                if (clusters[i] != null && i != minCol) {
+                    int mergedIndex = index(minCol, i);
+                    distances[mergedIndex] = Math.min(distances[index(minRow, i)], distances[mergedIndex]);
+                }
+            }
+            updateNearest(minCol, clusters, distances, nearest, nearestDistances);
+            for (int i = minCol + 1; i < n; i++) {
+                if (clusters[i] != null) {
+                    double distance = distances[index(i, minCol)];
+                    if (nearest[i] == minRow || distance < nearestDistances[i]
+                            || (distance == nearestDistances[i] && minCol < nearest[i])) {
+                        if (nearest[i] == minRow && distance > nearestDistances[i]) {
+                            updateNearest(i, clusters, distances, nearest, nearestDistances);
+                        } else {
+                            nearest[i] = minCol;
+                            nearestDistances[i] = distance;
+                        }
+                    }
+                }
+            }
+
+            clusterSet.removeAll(clustersNotPresentable);
+            Cluster first = null;
+            Cluster second = null;
+            for (Cluster cluster : clusters) {
+                if (cluster != null) {
+                    if (first == null) {
+                        first = cluster;
+                    } else if (second == null) {
+                        second = cluster;
+                    }
+                }
+            }
+            boolean onlyOneMemberSeparated = clustersCount == 2
+                    && (first.getEntities().size() == 1 || second.getEntities().size() == 1);
+            if (!onlyOneMemberSeparated) {
+                for (Cluster cluster : clusters) {
+                    if (cluster != null && cluster.getEntities().size() > 1) {
+                        clusterSet.add(new Cluster(cluster.getEntities()));
+                    }
+                }
+            }
+        }
+        return clusterSet;
+    }
+
+    private static void updateNearest(int row, Cluster[] clusters, double[] distances, int[] nearest, double[] nearestDistances) {
+        double minVal = Double.POSITIVE_INFINITY;
+        int minCol = -1;
+        for (int j = 0; j < row; j++) {
+            if (clusters[j] != null && distances[index(row, j)] < minVal) {
+                minVal = distances[index(row, j)];
+                minCol = j;
+            }
+        }
+        nearest[row] = minCol;
+        nearestDistances[row] = minVal;
+    }
+
+    private static int index(int i, int j) {
+        return i > j ? i * (i - 1) / 2 + j : j * (j - 1) / 2 + i;
+    }
+}
@@ -0,0 +1,149 @@
+package org.jetbrains.research.intellijdeodorant.core.ast.decomposition.cfg;
+
+import com.intellij.analysis.AnalysisScope;
+import com.intellij.openapi.progress.util.ProgressIndicatorBase;
+import com.intellij.testFramework.fixtures.LightJavaCodeInsightFixtureTestCase;
+import org.jetbrains.research.intellijdeodorant.core.ast.ASTReader;
+import org.jetbrains.research.intellijdeodorant.core.ast.ClassObject;
+import org.jetbrains.research.intellijdeodorant.core.ast.MethodObject;
+import org.jetbrains.research.intellijdeodorant.core.ast.SystemObject;
+import org.jetbrains.research.intellijdeodorant.core.distance.ProjectInfo;
+
+import java.util.*;
+
+public class DataDependenceAnalysisTest extends LightJavaCodeInsightFixtureTestCase {
+    public void testDependencesAreTheSameAsSearchedFromEveryNode() {
+        myFixture.configureByText("Generated.java", MethodGenerator.generateClass("Generated", 200, 42));
+        ProjectInfo projectInfo = new ProjectInfo(new AnalysisScope(getProject()), false);
+        SystemObject systemObject = new ASTReader(projectInfo, new ProgressIndicatorBase()).getSystemObject();
+        ClassObject classObject = systemObject.getClassObject("Generated");
+
+        ListIterator<MethodObject> methodIterator = classObject.getMethodIterator();
+        while (methodIterator.hasNext()) {
+            MethodObject methodObject = methodIterator.next();
+            PDG pdg = new PDG(new CFG(methodObject), classObject.getPsiFile(),
+                    classObject.getFieldsAccessedInsideMethod(methodObject, systemObject));
+            Set<GraphEdge> expected = new LinkedHashSet<>();
+            new DependenceSearch(pdg.getEntryNode(), pdg.nodes, expected).createDependences();
+            Set<GraphEdge> actual = new LinkedHashSet<>();
+            new DataDependenceAnalysis(pdg.getEntryNode(), pdg.nodes).createDependences(actual::add);
+            assertEquals(methodObject.getName(), describe(expected), describe(actual));
+        }
+    }
+
+    private static List<String> describe(Set<GraphEdge> dependences) {
+        List<String> descriptions = new ArrayList<>();
+        for (GraphEdge edge : dependences) {
+            PDGAbstractDataDependence dependence = (PDGAbstractDataDependence) edge;
+            descriptions.add(dependence.getType() + " " + dependence.src.getId() + "->" + dependence.dst.getId() + " "
+                    + dependence.getData() + (dependence.isLoopCarried() ? " loop " + dependence.getLoop().getId() : ""));
+        }
+        return descriptions;
+    }
+
+    /**
+     * The depth-first search from every node that the analysis replaced.
+     */
+    private static class DependenceSearch {
+        private final PDGMethodEntryNode entryNode;
+        private final Set<GraphNode> nodes;
+        private final Set<GraphEdge> edges;
+
+        private DependenceSearch(PDGMethodEntryNode entryNode, Set<GraphNode> nodes, Set<GraphEdge> edges) {
+            this.entryNode = entryNode;
+            this.nodes = nodes;
+            this.edges = edges;
+        }
+
+        private void createDependences() {
+            PDGNode firstPDGNode = (PDGNode) nodes.iterator().next();
+            for (AbstractVariable variableInstruction : entryNode.definedVariables) {
+                if (firstPDGNode.usesLocalVariable(variableInstruction)) {
+                    edges.add(new PDGDataDependence(entryNode, firstPDGNode, variableInstruction, null));
+                }
+                if (!firstPDGNode.definesLocalVariable(variableInstruction)) {
+                    dataDependenceSearch(entryNode, variableInstruction, firstPDGNode, new LinkedHashSet<>(), null);
+                } else if (entryNode.declaresLocalVariable(variableInstruction)) {
+                    edges.add(new PDGDataDependence(entryNode, firstPDGNode, variableInstruction, null));
+                }
+            }
+            for (GraphNode node : nodes) {
+                PDGNode pdgNode = (PDGNode) node;
+                for (AbstractVariable variableInstruction : pdgNode.definedVariables) {
+                    dataDependenceSearch(pdgNode, variableInstruction, pdgNode, new LinkedHashSet<>(), null);
+                    outputDependenceSearch(pdgNode, variableInstruction, pdgNode, new LinkedHashSet<>(), null);
+                }
+                for (AbstractVariable variableInstruction : pdgNode.usedVariables) {
+                    antiDependenceSearch(pdgNode, variableInstruction, pdgNode, new LinkedHashSet<>(), null);
+                }
+            }
+        }
+
+        private void dataDependenceSearch(PDGNode initialNode, AbstractVariable variableInstruction,
+                                          PDGNode currentNode, Set<PDGNode> visitedNodes, CFGBranchNode loop) {
+            if (!visitedNodes.add(currentNode))
+                return;
+            for (GraphEdge edge : currentNode.getCFGNode().outgoingEdges) {
+                Flow flow = (Flow) edge;
+                loop = getLoop(flow, loop);
+                PDGNode dstPDGNode = ((CFGNode) flow.dst).getPDGNode();
+                if (dstPDGNode != null) {
+                    if (dstPDGNode.usesLocalVariable(variableInstruction)) {
+                        edges.add(new PDGDataDependence(initialNode, dstPDGNode, variableInstruction, loop));
+                    }
+                    if (!dstPDGNode.definesLocalVariable(variableInstruction)) {
+                        dataDependenceSearch(initialNode, variableInstruction, dstPDGNode, visitedNodes, loop);
+                    } else if (initialNode.declaresLocalVariable(variableInstruction) && !initialNode.equals(dstPDGNode)) {
+                        edges.add(new PDGDataDependence(initialNode, dstPDGNode, variableInstruction, loop));
+                    }
+                }
+            }
+        }
+
+        private void antiDependenceSearch(PDGNode initialNode, AbstractVariable variableInstruction,
+                                          PDGNode currentNode, Set<PDGNode> visitedNodes, CFGBranchNode loop) {
+            if (!visitedNodes.add(currentNode))
+                return;
+            for (GraphEdge edge : currentNode.getCFGNode().outgoingEdges) {
+                Flow flow = (Flow) edge;
+                loop = getLoop(flow, loop);
+                PDGNode dstPDGNode = ((CFGNode) flow.dst).getPDGNode();
+                if (dstPDGNode != null) {
+                    if (dstPDGNode.definesLocalVariable(variableInstruction)) {
+                        edges.add(new PDGAntiDependence(initialNode, dstPDGNode, variableInstruction, loop));
+                    } else {
+                        antiDependenceSearch(initialNode, variableInstruction, dstPDGNode, visitedNodes, loop);
+                    }
+                }
+            }
+        }
+
+        private void outputDependenceSearch(PDGNode initialNode, AbstractVariable variableInstruction,
+                                            PDGNode currentNode, Set<PDGNode> visitedNodes, CFGBranchNode loop) {
+            if (!visitedNodes.add(currentNode))
+                return;
+            for (GraphEdge edge : currentNode.getCFGNode().outgoingEdges) {
+                Flow flow = (Flow) edge;
+                loop = getLoop(flow, loop);
+                PDGNode dstPDGNode = ((CFGNode) flow.dst).getPDGNode();
+                if (dstPDGNode != null) {
+                    if (dstPDGNode.definesLocalVariable(variableInstruction)) {
+                        edges.add(new PDGOutputDependence(initialNode, dstPDGNode, variableInstruction, loop));
+                    } else {
+                        outputDependenceSearch(initialNode, variableInstruction, dstPDGNode, visitedNodes, loop);
+                    }
+                }
+            }
+        }
+
+        private static CFGBranchNode getLoop(Flow flow, CFGBranchNode loop) {
+            if (flow.isLoopbackFlow()) {
+                if (flow.dst instanceof CFGBranchLoopNode)
+                    loop = (CFGBranchLoopNode) flow.dst;
+                if (flow.src instanceof CFGBranchDoLoopNode)
+                    loop = (CFGBranchDoLoopNode) flow.src;
+            }
+            return loop;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package org.jetbrains.research.intellijdeodorant.core.ast.decomposition.cfg;
+
+import java.util.*;
+
+/**
+ * Generates methods with nested conditionals, loops and jumps over a few variables.
+ */
+class MethodGenerator {
+    private static final String[] VARIABLES = {"a", "b", "c", "d", "e"};
+
+    private final Random random;
+    private final StringBuilder body = new StringBuilder();
+    private final Deque<List<String>> scopes = new ArrayDeque<>();
+    private int loopDepth;
+    private int declarations;
+
+    private MethodGenerator(Random random) {
+        this.random = random;
+    }
+
+    /**
+     * Returns the source of a class with the given number of generated methods.
+     */
+    static String generateClass(String className, int methodsCount, long seed) {
+        Random random = new Random(seed);
+        StringBuilder source = new StringBuilder("public class " + className + " {\n");
+        for (int i = 0; i < methodsCount; i++) {
+            source.append(new MethodGenerator(random).generate("method" + i));
+        }
+        source.append("}\n");
+        return source.toString();
+    }
+
+    private String generate(String name) {
+        scopes.push(new ArrayList<>(Arrays.asList(VARIABLES)));
+        body.append("    int ").append(name).append("(int a, int b) {\n");
+        body.append("        int c = a, d = b, e = 0;\n");
+        block(2, 3 + random.nextInt(6));
+        body.append("        return a + b + c + d + e;\n");
+        body.append("    }\n");
+        return body.toString();
+    }
+
+    private void block(int indent, int statements) {
+        scopes.push(new ArrayList<>(scopes.peek()));
+        for (int i = 0; i < statements; i++) {
+            statement(indent);
+        }
+        scopes.pop();
+    }
+
+    private void statement(int indent) {
+        int kind = indent > 5 ? random.nextInt(4) : random.nextInt(11);
+        if (kind <= 2) {
+            line(indent, assignment());
+        } else if (kind == 3) {
+            String variable = "v" + declarations++;
+            line(indent, "int " + variable + " = " + expression() + ";");
+            scopes.peek().add(variable);
+        } else if (kind == 4) {
+            line(indent, "if (" + condition() + ") {");
+            block(indent + 1, 1 + random.nextInt(3));
+            if (random.nextBoolean()) {
+                line(indent, "} else {");
+                block(indent + 1, 1 + random.nextInt(3));
+            }
+            line(indent, "}");
+        } else if (kind == 5) {
+            line(indent, "while (" + condition() + ") {");
+            loop(indent);
+            line(indent, "}");
+        } else if (kind == 6) {
+            String variable = "i" + declarations++;
+            line(indent, "for (int " + variable + " = 0; " + variable + " < " + variable() + "; " + variable + "++) {");
+            loop(indent);
+            line(indent, "}");
+        } else if (kind == 7) {
+            line(indent, "do {");
+            loop(indent);
+            line(indent, "} while (" + condition() + ");");
+        } else if (kind == 8 && loopDepth > 0) {
+            line(indent, "if (" + condition() + ") " + (random.nextBoolean() ? "break;" : "continue;"));
+        } else if (kind == 9) {
+            line(indent, "if (" + condition() + ") return " + variable() + ";");
+        } else {
+            line(indent, variable() + "++;");
+        }
+    }
+
+    private void loop(int indent) {
+        loopDepth++;
+        block(indent + 1, 1 + random.nextInt(3));
+        loopDepth--;
+    }
+
+    private String assignment() {
+        return VARIABLES[random.nextInt(VARIABLES.length)] + " = " + expression() + ";";
+    }
+
+    private String expression() {
+        return random.nextInt(3) == 0 ? variable() : variable() + " + " + variable();
+    }
+
+    private String condition() {
+        return variable() + " > " + variable();
+    }
+
+    private String variable() {
+        List<String> variables = scopes.peek();
+        return variables.get(random.nextInt(variables.size()));
+    }
+
+    private void line(int indent, String line) {
+        for (int i = 0; i < indent; i++) {
+            body.append("    ");
+        }
+        body.append(line).append('\n');
+    }
+}
@@ -0,0 +1,157 @@
+package org.jetbrains.research.intellijdeodorant.core.ast.decomposition.cfg;
+
+import com.intellij.analysis.AnalysisScope;
+import com.intellij.openapi.progress.util.ProgressIndicatorBase;
+import com.intellij.psi.PsiVariable;
+import com.intellij.testFramework.fixtures.LightJavaCodeInsightFixtureTestCase;
+import org.jetbrains.research.intellijdeodorant.core.ast.ASTReader;
+import org.jetbrains.research.intellijdeodorant.core.ast.ClassObject;
+import org.jetbrains.research.intellijdeodorant.core.ast.MethodObject;
+import org.jetbrains.research.intellijdeodorant.core.ast.SystemObject;
+import org.jetbrains.research.intellijdeodorant.core.distance.ProjectInfo;
+
+import java.util.*;
+
+/**
+ * Compares the slices of the slice index with the edge filtering and the backward traversal that it replaced.
+ * The slices are compared as sets, because the slice unions collect them into sets ordered by node id
+ * or only check which nodes they contain.
+ */
+public class PDGSliceIndexTest extends LightJavaCodeInsightFixtureTestCase {
+    private Map<PDG, CFG> pdgs;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        myFixture.configureByText("Generated.java", MethodGenerator.generateClass("Generated", 100, 7));
+        ProjectInfo projectInfo = new ProjectInfo(new AnalysisScope(getProject()), false);
+        SystemObject systemObject = new ASTReader(projectInfo, new ProgressIndicatorBase()).getSystemObject();
+        ClassObject classObject = systemObject.getClassObject("Generated");
+        pdgs = new LinkedHashMap<>();
+        ListIterator<MethodObject> methodIterator = classObject.getMethodIterator();
+        while (methodIterator.hasNext()) {
+            MethodObject methodObject = methodIterator.next();
+            CFG cfg = new CFG(methodObject);
+            pdgs.put(new PDG(cfg, classObject.getPsiFile(),
+                    classObject.getFieldsAccessedInsideMethod(methodObject, systemObject)), cfg);
+        }
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        pdgs = null;
+        super.tearDown();
+    }
+
+    public void testRegionsAndSlicesAreTheSameAsTraversed() {
+        for (Map.Entry<PDG, CFG> entry : pdgs.entrySet()) {
+            PDG pdg = entry.getKey();
+            for (BasicBlock boundaryBlock : entry.getValue().getBasicBlocks()) {
+                String message = pdg.getMethod().getName() + " B" + boundaryBlock.getId();
+                TraversedSlice expected = new TraversedSlice(pdg, boundaryBlock);
+                PDGSlice actual = new PDGSlice(pdg, boundaryBlock);
+                for (GraphEdge edge : pdg.edges) {
+                    assertEquals(message + " " + edge, expected.edges.contains(edge), actual.edgeBelongsToBlockBasedRegion(edge));
+                }
+                for (GraphNode node : pdg.nodes) {
+                    PDGNode pdgNode = (PDGNode) node;
+                    assertEquals(message + " " + pdgNode.getId(), ids(expected.computeSlice(pdgNode)),
+                            ids(actual.computeSlice(pdgNode)));
+                    Set<AbstractVariable> variables = new LinkedHashSet<>(pdgNode.definedVariables);
+                    variables.addAll(pdgNode.usedVariables);
+                    for (AbstractVariable variable : variables) {
+                        assertEquals(message + " " + pdgNode.getId() + " " + variable,
+                                ids(expected.computeSlice(pdgNode, variable)), ids(actual.computeSlice(pdgNode, variable)));
+                    }
+                }
+            }
+        }
+    }
+
+    public void testCandidateSlicesAreTheSameAsTraversed() {
+        for (PDG pdg : pdgs.keySet()) {
+            for (PsiVariable declaration : pdg.getVariableDeclarationsInMethod()) {
+                PlainVariable variable = new PlainVariable(declaration);
+                Set<PDGNode> nodeCriteria = pdg.getAssignmentNodesOfVariableCriterion(variable);
+                for (PDGSliceUnion sliceUnion : new PDGSliceUnionCollection(pdg, variable).getSliceUnions()) {
+                    TraversedSlice expected = new TraversedSlice(pdg, sliceUnion.getBoundaryBlock());
+                    Set<PDGNode> expectedSliceNodes = new LinkedHashSet<>();
+                    for (PDGNode nodeCriterion : nodeCriteria) {
+                        expectedSliceNodes.addAll(expected.computeSlice(nodeCriterion));
+                    }
+                    assertEquals(pdg.getMethod().getName() + " " + variable + " B" + sliceUnion.getBoundaryBlock().getId(),
+                            ids(expectedSliceNodes), ids(sliceUnion.getSliceNodes()));
+                }
+            }
+        }
+    }
+
+    private static Set<Integer> ids(Set<PDGNode> nodes) {
+        Set<Integer> ids = new TreeSet<>();
+        for (PDGNode node : nodes) {
+            ids.add(node.getId());
+        }
+        return ids;
+    }
+
+    /**
+     * The region edges and the backward traversal of {@link PDGSlice} before the slice index.
+     */
+    private static class TraversedSlice {
+        private final Set<GraphNode> nodes = new LinkedHashSet<>();
+        private final Set<GraphEdge> edges = new LinkedHashSet<>();
+
+        private TraversedSlice(PDG pdg, BasicBlock boundaryBlock) {
+            nodes.addAll(pdg.blockBasedRegion(boundaryBlock));
+            for (GraphEdge edge : pdg.edges) {
+                PDGDependence dependence = (PDGDependence) edge;
+                if (nodes.contains(dependence.src) && nodes.contains(dependence.dst)) {
+                    if (dependence instanceof PDGAbstractDataDependence) {
+                        PDGAbstractDataDependence dataDependence = (PDGAbstractDataDependence) dependence;
+                        if (dataDependence.isLoopCarried()) {
+                            PDGNode loopNode = dataDependence.getLoop().getPDGNode();
+                            if (nodes.contains(loopNode))
+                                edges.add(dataDependence);
+                        } else
+                            edges.add(dataDependence);
+                    } else
+                        edges.add(dependence);
+                }
+            }
+        }
+
+        private Set<PDGNode> computeSlice(PDGNode nodeCriterion, AbstractVariable localVariableCriterion) {
+            Set<PDGNode> sliceNodes = new LinkedHashSet<>();
+            if (nodeCriterion.definesLocalVariable(localVariableCriterion)) {
+                sliceNodes.addAll(traverseBackward(nodeCriterion, new LinkedHashSet<>()));
+            } else if (nodeCriterion.usesLocalVariable(localVariableCriterion)) {
+                for (GraphEdge edge : nodeCriterion.incomingEdges) {
+                    if (edges.contains(edge) && edge instanceof PDGDataDependence
+                            && ((PDGDataDependence) edge).getData().equals(localVariableCriterion)) {
+                        sliceNodes.addAll(traverseBackward((PDGNode) edge.src, new LinkedHashSet<>()));
+                    }
+                }
+                sliceNodes.addAll(traverseBackward(nodeCriterion, new LinkedHashSet<>()));
+            }
+            return sliceNodes;
+        }
+
+        private Set<PDGNode> computeSlice(PDGNode nodeCriterion) {
+            return traverseBackward(nodeCriterion, new LinkedHashSet<>());
+        }
+
+        private Set<PDGNode> traverseBackward(PDGNode node, Set<PDGNode> visitedNodes) {
+            Set<PDGNode> sliceNodes = new LinkedHashSet<>();
+            sliceNodes.add(node);
+            visitedNodes.add(node);
+            for (GraphEdge edge : node.incomingEdges) {
+                if (edges.contains(edge) && !(edge instanceof PDGAntiDependence) && !(edge instanceof PDGOutputDependence)) {
+                    PDGNode srcPDGNode = (PDGNode) edge.src;
+                    if (!visitedNodes.contains(srcPDGNode))
+                        sliceNodes.addAll(traverseBackward(srcPDGNode, visitedNodes));
+                }
+            }
+            return sliceNodes;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package org.jetbrains.research.intellijdeodorant.core.ast.decomposition.cfg;
+
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.psi.PsiVariable;
+import com.intellij.testFramework.fixtures.LightJavaCodeInsightFixtureTestCase;
+
+import java.util.*;
+
+public class ReachingAliasSetTest extends LightJavaCodeInsightFixtureTestCase {
+    private static final int VARIABLES_COUNT = 8;
+
+    public void testAliasSetsAreTheSameAsCopiedSets() {
+        PsiVariable[] variables = createVariables();
+        for (long seed = 0; seed < 2000; seed++) {
+            Random random = new Random(seed);
+            List<ReachingAliasSet> actual = new ArrayList<>(Collections.singletonList(new ReachingAliasSet()));
+            List<CopiedAliasSets> expected = new ArrayList<>(Collections.singletonList(new CopiedAliasSets()));
+            for (int step = 0; step < 40; step++) {
+                int index = random.nextInt(actual.size());
+                int operation = random.nextInt(4);
+                if (operation == 0) {
+                    actual.add(actual.get(index).copy());
+                    expected.add(expected.get(index).copy());
+                } else if (operation < 3) {
+                    PsiVariable leftHandSide = variables[random.nextInt(VARIABLES_COUNT)];
+                    PsiVariable rightHandSide = variables[random.nextInt(VARIABLES_COUNT)];
+                    actual.get(index).insertAlias(leftHandSide, rightHandSide);
+                    expected.get(index).insertAlias(leftHandSide, rightHandSide);
+                } else {
+                    PsiVariable leftHandSide = variables[random.nextInt(VARIABLES_COUNT)];
+                    actual.get(index).removeAlias(leftHandSide);
+                    expected.get(index).removeAlias(leftHandSide);
+                }
+                for (int i = 0; i < actual.size(); i++) {
+                    String message = "seed " + seed + ", step " + step + ", set " + i;
+                    assertEquals(message, expected.get(i).toString(), actual.get(i).toString());
+                    for (PsiVariable variable : variables) {
+                        AbstractVariable abstractVariable = new PlainVariable(variable);
+                        assertEquals(message, expected.get(i).containsAlias(abstractVariable),
+                                actual.get(i).containsAlias(abstractVariable));
+                        assertEquals(message, String.valueOf(expected.get(i).getAliases(abstractVariable)),
+                                String.valueOf(actual.get(i).getAliases(abstractVariable)));
+                    }
+                }
+            }
+        }
+    }
+
+    private PsiVariable[] createVariables() {
+        StringBuilder source = new StringBuilder("public class Aliases {\n");
+        for (int i = 0; i < VARIABLES_COUNT; i++) {
+            source.append("    Object v").append(i).append(";\n");
+        }
+        source.append("}\n");
+        PsiJavaFile psiFile = (PsiJavaFile) myFixture.configureByText("Aliases.java", source.toString());
+        PsiClass psiClass = psiFile.getClasses()[0];
+        return psiClass.getFields();
+    }
+
+    /**
+     * The alias sets that were copied as a whole on every copy, which the copy-on-write sets replaced.
+     */
+    private static class CopiedAliasSets {
+        private final List<LinkedHashSet<PsiVariable>> aliasSets;
+
+        private CopiedAliasSets() {
+            this.aliasSets = new ArrayList<>();
+        }
+
+        private CopiedAliasSets(List<LinkedHashSet<PsiVariable>> aliasSets) {
+            this.aliasSets = aliasSets;
+        }
+
+        private void insertAlias(PsiVariable leftHandSideReference, PsiVariable rightHandSideReference) {
+            boolean rightHandSideReferenceFound = false;
+            for (LinkedHashSet<PsiVariable> aliasSet : aliasSets) {
+                if (aliasSet.contains(rightHandSideReference)) {
+                    rightHandSideReferenceFound = true;
+                    aliasSet.add(leftHandSideReference);
+                }
+            }
+            if (!rightHandSideReferenceFound) {
+                LinkedHashSet<PsiVariable> aliasSet = new LinkedHashSet<>();
+                aliasSet.add(leftHandSideReference);
+                aliasSet.add(rightHandSideReference);
+                aliasSets.add(aliasSet);
+            }
+            List<LinkedHashSet<PsiVariable>> aliasSetsToBeRemoved = new ArrayList<>();
+            for (LinkedHashSet<PsiVariable> aliasSet : aliasSets) {
+                if (aliasSet.contains(leftHandSideReference)) {
+                    if (!aliasSet.contains(rightHandSideReference))
+                        aliasSet.remove(leftHandSideReference);
+                    if (aliasSet.size() == 1)
+                        aliasSetsToBeRemoved.add(aliasSet);
+                }
+            }
+            for (LinkedHashSet<PsiVariable> aliasSet : aliasSetsToBeRemoved) {
+                aliasSets.remove(aliasSet);
+            }
+        }
+
+        private void removeAlias(PsiVariable leftHandSideReference) {
+            List<LinkedHashSet<PsiVariable>> aliasSetsToBeRemoved = new ArrayList<>();
+            for (LinkedHashSet<PsiVariable> aliasSet : aliasSets) {
+                if (aliasSet.contains(leftHandSideReference)) {
+                    aliasSet.remove(leftHandSideReference);
+                    if (aliasSet.size() == 1)
+                        aliasSetsToBeRemoved.add(aliasSet);
+                }
+            }
+            for (LinkedHashSet<PsiVariable> aliasSet : aliasSetsToBeRemoved) {
+                aliasSets.remove(aliasSet);
+            }
+        }
+
+        private boolean containsAlias(AbstractVariable variable) {
+            for (LinkedHashSet<PsiVariable> aliasSet : aliasSets) {
+                for (PsiVariable alias : aliasSet) {
+                    if (alias.equals(variable.getOrigin()))
+                        return true;
+                }
+            }
+            return false;
+        }
+
+        private Set<PsiVariable> getAliases(AbstractVariable variable) {
+            for (LinkedHashSet<PsiVariable> aliasSet : aliasSets) {
+                if (aliasSet.contains(variable.getOrigin())) {
+                    Set<PsiVariable> aliases = new LinkedHashSet<>();
+                    for (PsiVariable alias : aliasSet) {
+                        if (!alias.equals(variable.getOrigin()))
+                            aliases.add(alias);
+                    }
+                    return aliases;
+                }
+            }
+            return null;
+        }
+
+        private CopiedAliasSets copy() {
+            List<LinkedHashSet<PsiVariable>> aliasSetsCopy = new ArrayList<>();
+            for (LinkedHashSet<PsiVariable> aliasSet : aliasSets) {
+                aliasSetsCopy.add(new LinkedHashSet<>(aliasSet));
+            }
+            return new CopiedAliasSets(aliasSetsCopy);
+        }
+
+        @Override
+        public String toString() {
+            return aliasSets.toString();
+        }
+    }
+}
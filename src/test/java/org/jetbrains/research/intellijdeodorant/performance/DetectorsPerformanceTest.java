@@ -0,0 +1,165 @@
+package org.jetbrains.research.intellijdeodorant.performance;
+
+import com.intellij.analysis.AnalysisScope;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.util.ProgressIndicatorBase;
+import com.intellij.openapi.project.Project;
+import com.intellij.testFramework.LightProjectDescriptor;
+import com.intellij.testFramework.fixtures.LightJavaCodeInsightFixtureTestCase;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.research.intellijdeodorant.JDeodorantFacade;
+import org.jetbrains.research.intellijdeodorant.core.AnalysisFactsCache;
+import org.jetbrains.research.intellijdeodorant.core.AnalysisSession;
+import org.jetbrains.research.intellijdeodorant.core.distance.ProjectInfo;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.*;
+
+/**
+ * Runs every detector on a generated project and compares the wall time and the peak heap usage of each phase
+ * with the stored baseline. The test fails if any value exceeds the baseline by more than the margin.
+ * <p>
+ * The size of the project, the margin and the baseline are configured by system properties:
+ * <ul>
+ *     <li>{@code deodorant.performance.classes} and {@code deodorant.performance.methods} - size of the project;</li>
+ *     <li>{@code deodorant.performance.margin} - allowed relative excess, e.g. {@code 0.3} for 30%;</li>
+ *     <li>{@code deodorant.performance.updateBaseline} - store the measured values as the new baseline
+ *     in {@code src/test/resources/performance/baseline.properties}, the test must be run from the project directory.</li>
+ * </ul>
+ * The baseline keeps the values of every project size under its own prefix. The test fails if there is
+ * no baseline for the configured size, unless the baseline is being updated.
+ */
+public class DetectorsPerformanceTest extends LightJavaCodeInsightFixtureTestCase {
+    private static final String BASELINE_RESOURCE = "/performance/baseline.properties";
+    private static final String BASELINE_PATH = "src/test/resources" + BASELINE_RESOURCE;
+    private static final int CLASSES_COUNT = Integer.getInteger("deodorant.performance.classes", 200);
+    private static final int METHODS_COUNT = Integer.getInteger("deodorant.performance.methods", 12);
+    private static final double MARGIN = Double.parseDouble(System.getProperty("deodorant.performance.margin", "0.3"));
+    private static final boolean UPDATE_BASELINE = Boolean.getBoolean("deodorant.performance.updateBaseline");
+    private static final String SIZE_PREFIX = CLASSES_COUNT + "x" + METHODS_COUNT + ".";
+
+    @NotNull
+    @Override
+    protected LightProjectDescriptor getProjectDescriptor() {
+        return LightJavaCodeInsightFixtureTestCase.JAVA_8;
+    }
+
+    public void testDetectors() throws IOException {
+        new SyntheticProjectGenerator(CLASSES_COUNT, METHODS_COUNT).generate().forEach(myFixture::addFileToProject);
+        myFixture.allowTreeAccessForAllFiles();
+        Project project = myFixture.getProject();
+        AnalysisScope scope = new AnalysisScope(project);
+        ProgressIndicator indicator = new ProgressIndicatorBase();
+        Set<String> classNamesToBeExamined = new HashSet<>();
+        for (int i = 0; i < CLASSES_COUNT; i++) {
+            classNamesToBeExamined.add(SyntheticProjectGenerator.getQualifiedClassName(i));
+        }
+        AnalysisSession.getInstance(project).invalidate();
+        AnalysisFactsCache.getInstance(project).clear();
+
+        Map<String, Measurement> measurements = new LinkedHashMap<>();
+        measurements.put("model", measure(() ->
+                AnalysisSession.getInstance(project).getSystemObject(new ProjectInfo(scope, false), indicator)));
+        measurements.put("feature.envy", measure(() ->
+                JDeodorantFacade.getMoveMethodRefactoringOpportunities(new ProjectInfo(scope, true), indicator, classNamesToBeExamined)));
+        measurements.put("long.method", measure(() ->
+                JDeodorantFacade.getExtractMethodRefactoringOpportunities(new ProjectInfo(scope, false), indicator)));
+        measurements.put("god.class", measure(() ->
+                JDeodorantFacade.getExtractClassRefactoringOpportunities(new ProjectInfo(scope, false), indicator)));
+        measurements.put("type.checking", measure(() ->
+                JDeodorantFacade.getTypeCheckEliminationRefactoringOpportunities(new ProjectInfo(scope, false), indicator)));
+
+        Properties baseline = loadBaseline();
+        if (UPDATE_BASELINE) {
+            saveBaseline(baseline, measurements);
+            return;
+        }
+        List<String> regressions = new ArrayList<>();
+        for (Map.Entry<String, Measurement> entry : measurements.entrySet()) {
+            String phase = entry.getKey();
+            checkValue(regressions, phase + ".time", entry.getValue().time, baseline);
+            checkValue(regressions, phase + ".heap", entry.getValue().peakHeap, baseline);
+        }
+        assertTrue(String.join("\n", regressions) + "\n" + report(measurements), regressions.isEmpty());
+    }
+
+    private static String report(Map<String, Measurement> measurements) {
+        StringBuilder report = new StringBuilder("Measured for " + CLASSES_COUNT + " classes with " + METHODS_COUNT + " methods:");
+        measurements.forEach((phase, measurement) -> report.append("\n").append(phase).append(": ").append(measurement));
+        return report.toString();
+    }
+
+    private static Measurement measure(Runnable phase) {
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+        long start = System.currentTimeMillis();
+        phase.run();
+        long time = System.currentTimeMillis() - start;
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peakHeap += pool.getPeakUsage().getUsed();
+            }
+        }
+        return new Measurement(time, peakHeap);
+    }
+
+    private static void checkValue(List<String> regressions, String key, long value, Properties baseline) {
+        String baselineValue = baseline.getProperty(SIZE_PREFIX + key);
+        if (baselineValue == null) {
+            regressions.add(key + ": there is no baseline for " + CLASSES_COUNT + " classes with " + METHODS_COUNT
+                    + " methods, run the test with -Ddeodorant.performance.updateBaseline=true to store it");
+            return;
+        }
+        long limit = (long) (Long.parseLong(baselineValue) * (1 + MARGIN));
+        if (value > limit) {
+            regressions.add(key + ": " + value + " exceeds the baseline " + baselineValue + " by more than " + (int) (MARGIN * 100) + "%");
+        }
+    }
+
+    private static Properties loadBaseline() throws IOException {
+        Properties baseline = new Properties();
+        try (InputStream input = DetectorsPerformanceTest.class.getResourceAsStream(BASELINE_RESOURCE)) {
+            if (input != null) {
+                baseline.load(input);
+            }
+        }
+        return baseline;
+    }
+
+    private static void saveBaseline(Properties baseline, Map<String, Measurement> measurements) throws IOException {
+        measurements.forEach((phase, measurement) -> {
+            baseline.setProperty(SIZE_PREFIX + phase + ".time", String.valueOf(measurement.time));
+            baseline.setProperty(SIZE_PREFIX + phase + ".heap", String.valueOf(measurement.peakHeap));
+        });
+        File file = new File(BASELINE_PATH);
+        if (!file.getParentFile().isDirectory() && !file.getParentFile().mkdirs()) {
+            throw new IOException("Cannot create directory " + file.getParentFile());
+        }
+        try (OutputStream output = new FileOutputStream(file)) {
+            baseline.store(output, "Wall time (ms) and peak heap usage (bytes) of the detectors by project size (classes x methods)");
+        }
+    }
+
+    private static class Measurement {
+        private final long time;
+        private final long peakHeap;
+
+        private Measurement(long time, long peakHeap) {
+            this.time = time;
+            this.peakHeap = peakHeap;
+        }
+
+        @Override
+        public String toString() {
+            return time + " ms, peak heap " + peakHeap / (1024 * 1024) + " MB";
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package org.jetbrains.research.intellijdeodorant.performance;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Generates the sources of a project in which every detector has something to find:
+ * methods that use the fields of the next class (Feature Envy), long methods with several computations (Long Method),
+ * classes with two unrelated groups of members (God Class) and switches on type codes (Type Checking).
+ */
+class SyntheticProjectGenerator {
+    private static final String PACKAGE_NAME = "synthetic";
+    private static final int FIELDS_COUNT = 4;
+    private static final int GOD_CLASS_FREQUENCY = 10;
+    private static final int TYPE_CODE_FREQUENCY = 5;
+
+    private final int classesCount;
+    private final int methodsCount;
+
+    SyntheticProjectGenerator(int classesCount, int methodsCount) {
+        this.classesCount = classesCount;
+        this.methodsCount = methodsCount;
+    }
+
+    /**
+     * Returns the texts of the generated files by their relative paths.
+     */
+    Map<String, String> generate() {
+        Map<String, String> files = new LinkedHashMap<>();
+        for (int i = 0; i < classesCount; i++) {
+            files.put("src/" + PACKAGE_NAME + "/" + getClassName(i) + ".java", generateClass(i));
+        }
+        return files;
+    }
+
+    static String getQualifiedClassName(int index) {
+        return PACKAGE_NAME + "." + getClassName(index);
+    }
+
+    private static String getClassName(int index) {
+        return "Class" + index;
+    }
+
+    private String generateClass(int index) {
+        boolean hasTypeCode = index % TYPE_CODE_FREQUENCY == 0;
+        String nextClassName = getClassName((index + 1) % classesCount);
+        StringBuilder text = new StringBuilder();
+        text.append("package ").append(PACKAGE_NAME).append(";\n\n");
+        text.append("public class ").append(getClassName(index)).append(" {\n");
+        if (hasTypeCode) {
+            text.append("    public static final int TYPE_A = 0;\n");
+            text.append("    public static final int TYPE_B = 1;\n");
+            text.append("    public static final int TYPE_C = 2;\n");
+            text.append("    private int type;\n");
+        }
+        for (int i = 0; i < FIELDS_COUNT; i++) {
+            text.append("    private int field").append(i).append(";\n");
+        }
+        text.append("    private ").append(nextClassName).append(" next;\n\n");
+        for (int i = 0; i < FIELDS_COUNT; i++) {
+            text.append("    public int getField").append(i).append("() {\n")
+                    .append("        return field").append(i).append(";\n")
+                    .append("    }\n\n");
+            text.append("    public void setField").append(i).append("(int value) {\n")
+                    .append("        field").append(i).append(" = value;\n")
+                    .append("    }\n\n");
+        }
+        for (int i = 0; i < methodsCount; i++) {
+            switch (i % 4) {
+                case 0:
+                    appendRegularMethod(text, i);
+                    break;
+                case 1:
+                    appendEnviousMethod(text, i, nextClassName);
+                    break;
+                case 2:
+                    appendLongMethod(text, i);
+                    break;
+                default:
+                    if (hasTypeCode) {
+                        appendTypeCheckingMethod(text, i);
+                    } else {
+                        appendRegularMethod(text, i);
+                    }
+            }
+        }
+        if (index % GOD_CLASS_FREQUENCY == 0) {
+            appendSecondConcept(text);
+        }
+        text.append("}\n");
+        return text.toString();
+    }
+
+    private static void appendRegularMethod(StringBuilder text, int index) {
+        text.append("    public int method").append(index).append("(int x) {\n")
+                .append("        int a = field").append(index % FIELDS_COUNT).append(" + x;\n")
+                .append("        int b = field").append((index + 1) % FIELDS_COUNT).append(" * 2;\n")
+                .append("        return a + b;\n")
+                .append("    }\n\n");
+    }
+
+    private static void appendEnviousMethod(StringBuilder text, int index, String nextClassName) {
+        text.append("    public int method").append(index).append("(").append(nextClassName).append(" other) {\n")
+                .append("        int a = other.getField0();\n")
+                .append("        int b = other.getField1();\n")
+                .append("        other.setField2(a + b);\n")
+                .append("        other.setField3(a * b);\n")
+                .append("        return other.getField2() - other.getField3();\n")
+                .append("    }\n\n");
+    }
+
+    private static void appendLongMethod(StringBuilder text, int index) {
+        text.append("    public int method").append(index).append("(int x) {\n")
+                .append("        int sum = 0;\n")
+                .append("        int product = 1;\n")
+                .append("        int count = 0;\n")
+                .append("        int max = field0;\n")
+                .append("        for (int k = 0; k < x; k++) {\n")
+                .append("            sum += field0 + k;\n")
+                .append("            product *= field1 + k;\n")
+                .append("            if (k > max) {\n")
+                .append("                max = k;\n")
+                .append("            }\n")
+                .append("            if (sum > 100) {\n")
+                .append("                sum -= field2;\n")
+                .append("                count++;\n")
+                .append("            }\n")
+                .append("        }\n")
+                .append("        int average = count == 0 ? 0 : sum / count;\n")
+                .append("        field3 = average + max;\n")
+                .append("        return sum + product + count + average;\n")
+                .append("    }\n\n");
+    }
+
+    private static void appendTypeCheckingMethod(StringBuilder text, int index) {
+        text.append("    public int method").append(index).append("() {\n")
+                .append("        switch (type) {\n")
+                .append("            case TYPE_A:\n")
+                .append("                return field0 + ").append(index).append(";\n")
+                .append("            case TYPE_B:\n")
+                .append("                return field1 * field2;\n")
+                .append("            case TYPE_C:\n")
+                .append("                return field2 - field3;\n")
+                .append("            default:\n")
+                .append("                return 0;\n")
+                .append("        }\n")
+                .append("    }\n\n");
+    }
+
+    /**
+     * Adds a group of members that are not related to the rest of the class.
+     */
+    private static void appendSecondConcept(StringBuilder text) {
+        for (int i = 0; i < FIELDS_COUNT; i++) {
+            text.append("    private String label").append(i).append(";\n");
+        }
+        text.append("\n");
+        for (int i = 0; i < FIELDS_COUNT; i++) {
+            text.append("    public String describe").append(i).append("(String prefix) {\n")
+                    .append("        label").append(i).append(" = prefix + label").append((i + 1) % FIELDS_COUNT).append(";\n")
+                    .append("        return label").append(i).append(" + label").append((i + 2) % FIELDS_COUNT).append(";\n")
+                    .append("    }\n\n");
+        }
+    }
+}
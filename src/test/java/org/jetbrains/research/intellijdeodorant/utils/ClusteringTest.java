@@ -0,0 +1,79 @@
+package org.jetbrains.research.intellijdeodorant.utils;
+
+import junit.framework.TestCase;
+import org.jetbrains.research.intellijdeodorant.core.distance.Entity;
+import org.jetbrains.research.intellijdeodorant.utils.math.Cluster;
+import org.jetbrains.research.intellijdeodorant.utils.math.Clustering;
+
+import java.util.*;
+
+public class ClusteringTest extends TestCase {
+
+    public void testNearestNeighborClusteringProducesSameClustersAsHierarchical() {
+        Random random = new Random(42);
+        for (int test = 0; test < 2000; test++) {
+            int size = 1 + random.nextInt(test < 1900 ? 12 : 60);
+            double[][] distanceMatrix = generateDistanceMatrix(random, size);
+            ArrayList<Entity> entities = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                entities.add(new TestEntity(i));
+            }
+
+            HashSet<Cluster> expected = Clustering.getInstance(copy(distanceMatrix), Clustering.Algorithm.HIERARCHICAL).clustering(entities);
+            HashSet<Cluster> actual = Clustering.getInstance(copy(distanceMatrix), Clustering.Algorithm.NEAREST_NEIGHBOR).clustering(entities);
+            assertEquals(expected, actual);
+        }
+    }
+
+    /**
+     * Generates a symmetric matrix with few distinct distances, so that ties have to be broken.
+     */
+    private static double[][] generateDistanceMatrix(Random random, int size) {
+        double[][] distanceMatrix = new double[size][size];
+        int levels = 1 + random.nextInt(6);
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < i; j++) {
+                double distance = random.nextInt(5) == 0 ? 1.0 : (double) random.nextInt(levels + 1) / levels;
+                distanceMatrix[i][j] = distance;
+                distanceMatrix[j][i] = distance;
+            }
+        }
+        return distanceMatrix;
+    }
+
+    private static double[][] copy(double[][] matrix) {
+        double[][] copy = new double[matrix.length][];
+        for (int i = 0; i < matrix.length; i++) {
+            copy[i] = matrix[i].clone();
+        }
+        return copy;
+    }
+
+    private static class TestEntity extends Entity {
+        private final int id;
+
+        private TestEntity(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public Set<String> getEntitySet() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public Set<String> getFullEntitySet() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public String getClassOrigin() {
+            return "Test";
+        }
+
+        @Override
+        public String toString() {
+            return "entity" + id;
+        }
+    }
+}